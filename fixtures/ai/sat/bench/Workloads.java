@@ -0,0 +1,171 @@
+package ai.sat.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Scanner;
+
+import ai.sat.dpll.ClauseArena;
+import ai.sat.maze.Maze;
+
+/**
+ * Generates the problems run by the benchmarks. Every generator is deterministic: the same parameters and seed give
+ * the same problem on every run and every machine, so that the scores of two builds can be compared.
+ * @author kps9907
+ *
+ */
+public class Workloads {
+	/**
+	 * Ratio of clauses to variables at which random 3-SAT problems are hardest, about half of them being satisfiable.
+	 */
+	public static final double PHASE_TRANSITION_RATIO = 4.26;
+
+	/**
+	 * Generates a random k-SAT problem: every clause has k distinct variables, each negated with probability one half.
+	 * @param noOfVariables
+	 * @param k no. of literals per clause.
+	 * @param ratio no. of clauses per variable, e.g. PHASE_TRANSITION_RATIO for 3-SAT.
+	 * @param seed
+	 * @return ClauseArena
+	 */
+	public static ClauseArena randomKSat(int noOfVariables, int k, double ratio, long seed) {
+		Random random = new Random(seed);
+		int noOfClauses = (int) Math.round(noOfVariables * ratio);
+		ClauseArena clauses = new ClauseArena(noOfClauses * (k + ClauseArena.HEADER), noOfClauses);
+		int[] clause = new int[k];
+		for(int i = 0; i < noOfClauses; i++) {
+			for(int j = 0; j < k; j++) {
+				int variable;
+				boolean distinct;
+				do {
+					variable = 1 + random.nextInt(noOfVariables);
+					distinct = true;
+					for(int l = 0; l < j; l++)
+						distinct &= Math.abs(clause[l]) != variable;
+				} while(!distinct);
+				clause[j] = random.nextBoolean() ? variable : -variable;
+			}
+			clauses.addClause(clause, k);
+		}
+		clauses.setNoOfLiterals(noOfVariables);
+		return clauses;
+	}
+
+	/**
+	 * Generates the pigeonhole problem of putting n + 1 pigeons into n holes, which is unsatisfiable and takes a
+	 * resolution proof exponential in n. Variable (p * n + h + 1) states that pigeon p is in hole h.
+	 * @param noOfHoles
+	 * @return ClauseArena
+	 */
+	public static ClauseArena pigeonhole(int noOfHoles) {
+		ClauseArena clauses = new ClauseArena();
+		//Long enough for the clauses of every pigeon and for those of two pigeons, with a single hole as well.
+		int[] clause = new int[Math.max(noOfHoles, 2)];
+		//Every pigeon is in some hole.
+		for(int p = 0; p <= noOfHoles; p++) {
+			for(int h = 0; h < noOfHoles; h++)
+				clause[h] = p * noOfHoles + h + 1;
+			clauses.addClause(clause, noOfHoles);
+		}
+		//No two pigeons share a hole.
+		for(int h = 0; h < noOfHoles; h++) {
+			for(int p = 0; p <= noOfHoles; p++) {
+				for(int q = p + 1; q <= noOfHoles; q++) {
+					clause[0] = -(p * noOfHoles + h + 1);
+					clause[1] = -(q * noOfHoles + h + 1);
+					clauses.addClause(clause, 2);
+				}
+			}
+		}
+		clauses.setNoOfLiterals((noOfHoles + 1) * noOfHoles);
+		return clauses;
+	}
+
+	/**
+	 * Generates an adventure maze in the format of maze_input.txt. The nodes form a grid whose neighbouring nodes are
+	 * linked both ways, a few links being left out at random. START is in a corner and every treasure is found at two
+	 * nodes picked at random.
+	 * @param width
+	 * @param height
+	 * @param noOfTreasures
+	 * @param maxSteps
+	 * @param seed
+	 * @return String
+	 */
+	public static String maze(int width, int height, int noOfTreasures, int maxSteps, long seed) {
+		Random random = new Random(seed);
+		int noOfNodes = width * height;
+		List<String> names = new ArrayList<String>();
+		for(int i = 0; i < noOfNodes; i++)
+			names.add(i == 0 ? "START" : "N" + i);
+		List<List<String>> treasures = new ArrayList<List<String>>();
+		for(int i = 0; i < noOfNodes; i++)
+			treasures.add(new ArrayList<String>());
+		List<String> treasureList = new ArrayList<String>();
+		for(int t = 0; t < noOfTreasures; t++) {
+			treasureList.add("T" + t);
+			for(int i = 0; i < 2; i++) {
+				List<String> nodeTreasures = treasures.get(1 + random.nextInt(noOfNodes - 1));
+				if(!nodeTreasures.contains("T" + t))
+					nodeTreasures.add("T" + t);
+			}
+		}
+		//Whether the links to the right of and below every node are kept.
+		boolean[] right = new boolean[noOfNodes];
+		boolean[] down = new boolean[noOfNodes];
+		for(int i = 0; i < noOfNodes; i++) {
+			right[i] = i % width + 1 < width && random.nextInt(10) != 0;
+			down[i] = i / width + 1 < height && random.nextInt(10) != 0;
+		}
+
+		StringBuilder maze = new StringBuilder();
+		maze.append(String.join(" ", names)).append('\n');
+		maze.append(String.join(" ", treasureList)).append('\n');
+		maze.append(maxSteps).append('\n');
+		for(int i = 0; i < noOfNodes; i++) {
+			maze.append(names.get(i)).append(" TREASURES");
+			for(String treasure : treasures.get(i))
+				maze.append(' ').append(treasure);
+			maze.append(" NEXT");
+			if(right[i])
+				maze.append(' ').append(names.get(i + 1));
+			if(i % width > 0 && right[i - 1])
+				maze.append(' ').append(names.get(i - 1));
+			if(down[i])
+				maze.append(' ').append(names.get(i + width));
+			if(i >= width && down[i - width])
+				maze.append(' ').append(names.get(i - width));
+			maze.append('\n');
+		}
+		return maze.toString();
+	}
+
+	/**
+	 * Reads a maze generated by maze into the form taken by the front end.
+	 * @param mazeText
+	 * @return Maze
+	 */
+	public static Maze toMaze(String mazeText) {
+		Maze maze = new Maze();
+		Scanner scanner = new Scanner(mazeText);
+		maze.getInput(scanner);
+		scanner.close();
+		return maze;
+	}
+
+	/**
+	 * Writes a set of clauses in DIMACS CNF format.
+	 * @param clauses
+	 * @return String
+	 */
+	public static String toDimacs(ClauseArena clauses) {
+		StringBuilder dimacs = new StringBuilder();
+		dimacs.append("p cnf ").append(clauses.getNoOfLiterals()).append(' ').append(clauses.getNoOfClauses()).append('\n');
+		for(int i = 0; i < clauses.getNoOfClauses(); i++) {
+			for(int j = 0; j < clauses.getSize(i); j++)
+				dimacs.append(clauses.getLiteral(i, j)).append(' ');
+			dimacs.append("0\n");
+		}
+		return dimacs.toString();
+	}
+}
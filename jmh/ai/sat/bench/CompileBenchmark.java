@@ -0,0 +1,117 @@
+package ai.sat.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ai.sat.frontend.AtMostOneEncoding;
+import ai.sat.frontend.ClauseWriter;
+import ai.sat.frontend.SATCompiler;
+import ai.sat.maze.Maze;
+
+/**
+ * Measures generating the clauses of a maze, for the at-most-one encodings with and without pruning, and writing
+ * them to a file as the front end does.
+ * @author kps9907
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompileBenchmark {
+	/**
+	 * Encoding of the constraint that the player is at one place at a time.
+	 */
+	@Param({"PAIRWISE", "COMMANDER"})
+	public AtMostOneEncoding encoding;
+
+	/**
+	 * Whether the atoms which are never true are left out.
+	 */
+	@Param({"false", "true"})
+	public boolean prune;
+
+	/**
+	 * Maze compiled by the benchmarks.
+	 */
+	private Maze maze;
+
+	/**
+	 * File written by write.
+	 */
+	private File outputFile;
+
+	/**
+	 * Generates the maze and creates the file written.
+	 * @throws IOException
+	 */
+	@Setup
+	public void setUp() throws IOException {
+		maze = Workloads.toMaze(Workloads.maze(12, 12, 6, 30, 2));
+		outputFile = File.createTempFile("bench", ".txt");
+	}
+
+	/**
+	 * Deletes the file written.
+	 */
+	@TearDown
+	public void tearDown() {
+		outputFile.delete();
+	}
+
+	/**
+	 * Generates the clauses into the blackhole instead of storing them.
+	 * @param blackhole
+	 */
+	@Benchmark
+	public void generate(Blackhole blackhole) {
+		SATCompiler satCompiler = createCompiler();
+		satCompiler.generateAtoms();
+		satCompiler.generateClauses((literals, length) -> {
+			blackhole.consume(literals);
+			blackhole.consume(length);
+		});
+	}
+
+	/**
+	 * Generates the clauses and writes them and the key as the front end does.
+	 * @throws IOException
+	 */
+	@Benchmark
+	public void write() throws IOException {
+		SATCompiler satCompiler = createCompiler();
+		satCompiler.generateAtoms();
+		ClauseWriter out = new ClauseWriter(outputFile);
+		satCompiler.generateClauses(out);
+		out.writeKey(satCompiler.getAtomKey());
+		out.close();
+	}
+
+	/**
+	 * Creates a compiler of the maze with the parameters of the benchmark.
+	 * @return SATCompiler
+	 */
+	private SATCompiler createCompiler() {
+		SATCompiler satCompiler = new SATCompiler(maze);
+		satCompiler.setAtMostOneEncoding(encoding);
+		satCompiler.setPrune(prune);
+		return satCompiler;
+	}
+}
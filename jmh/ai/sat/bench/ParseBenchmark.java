@@ -0,0 +1,100 @@
+package ai.sat.bench;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ai.sat.dpll.ClauseArena;
+import ai.sat.dpll.CnfReader;
+import ai.sat.frontend.ClauseWriter;
+import ai.sat.frontend.SATCompiler;
+
+/**
+ * Measures reading the clauses, from the text written by the front end and from DIMACS CNF. The clauses read are
+ * returned, so that reading them cannot be optimised away.
+ * @author kps9907
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+	/**
+	 * Clauses and key of a maze as written by the front end.
+	 */
+	private File textFile;
+
+	/**
+	 * Random 3-SAT problem in DIMACS CNF.
+	 */
+	private File dimacsFile;
+
+	/**
+	 * Writes the files read by the benchmarks.
+	 * @throws IOException
+	 */
+	@Setup
+	public void setUp() throws IOException {
+		textFile = File.createTempFile("bench", ".txt");
+		SATCompiler satCompiler = new SATCompiler(Workloads.toMaze(Workloads.maze(12, 12, 6, 30, 1)));
+		satCompiler.generateAtoms();
+		ClauseWriter clauseWriter = new ClauseWriter(textFile);
+		satCompiler.generateClauses(clauseWriter);
+		clauseWriter.writeKey(satCompiler.getAtomKey());
+		clauseWriter.close();
+
+		dimacsFile = File.createTempFile("bench", ".cnf");
+		try(Writer writer = new FileWriter(dimacsFile)) {
+			writer.write(Workloads.toDimacs(Workloads.randomKSat(20000, 3, Workloads.PHASE_TRANSITION_RATIO, 1)));
+		}
+	}
+
+	/**
+	 * Deletes the files read by the benchmarks.
+	 */
+	@TearDown
+	public void tearDown() {
+		textFile.delete();
+		dimacsFile.delete();
+	}
+
+	@Benchmark
+	public ClauseArena text() throws IOException {
+		return read(textFile);
+	}
+
+	@Benchmark
+	public ClauseArena dimacs() throws IOException {
+		return read(dimacsFile);
+	}
+
+	/**
+	 * Reads the clauses of a file as the sat solver does.
+	 * @param inputFile
+	 * @return ClauseArena
+	 * @throws IOException
+	 */
+	private static ClauseArena read(File inputFile) throws IOException {
+		ClauseArena clauses = new ClauseArena();
+		new CnfReader(clauses, new ArrayList<String>()).read(inputFile);
+		return clauses;
+	}
+}
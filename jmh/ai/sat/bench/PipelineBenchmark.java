@@ -0,0 +1,54 @@
+package ai.sat.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ai.sat.MazePipeline;
+
+/**
+ * Measures the front end, the sat solver and the back end run in memory on a maze, from its text to its solution path.
+ * @author kps9907
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipelineBenchmark {
+	/**
+	 * Maze in the format of maze_input.txt.
+	 */
+	private String mazeText;
+
+	/**
+	 * Pipeline pruning the atoms never true and solving with cdcl.
+	 */
+	private MazePipeline mazePipeline;
+
+	/**
+	 * Generates the maze.
+	 */
+	@Setup
+	public void setUp() {
+		mazeText = Workloads.maze(10, 10, 4, 24, 3);
+		mazePipeline = new MazePipeline("-prune", "-solver", "cdcl");
+	}
+
+	@Benchmark
+	public List<String> maze() {
+		return mazePipeline.solve(mazeText);
+	}
+}
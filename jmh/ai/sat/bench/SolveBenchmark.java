@@ -0,0 +1,116 @@
+package ai.sat.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ai.sat.dpll.CDCL;
+import ai.sat.dpll.ClauseArena;
+import ai.sat.dpll.DPLL;
+import ai.sat.dpll.PropagationMode;
+import ai.sat.dpll.SatSolver;
+import ai.sat.dpll.StaticOrderHeuristic;
+import ai.sat.dpll.VSIDSHeuristic;
+import ai.sat.frontend.SATCompiler;
+
+/**
+ * Measures solving random 3-SAT problems at the phase transition, pigeonhole problems and the clauses of a maze.
+ * The solvers copy the clauses they are given, so the same clauses are solved by every operation. Dpll gets smaller
+ * problems than cdcl, which it would take far longer to solve.
+ * @author kps9907
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolveBenchmark {
+	/**
+	 * Random 3-SAT problems solved by dpll and by cdcl.
+	 */
+	private ClauseArena smallKSat;
+	private ClauseArena kSat;
+
+	/**
+	 * Pigeonhole problems solved by dpll and by cdcl.
+	 */
+	private ClauseArena smallPigeonhole;
+	private ClauseArena pigeonhole;
+
+	/**
+	 * Clauses of a maze, solved by the sat solver with cdcl.
+	 */
+	private ClauseArena mazeClauses;
+
+	/**
+	 * Generates the problems.
+	 */
+	@Setup
+	public void setUp() {
+		smallKSat = Workloads.randomKSat(60, 3, Workloads.PHASE_TRANSITION_RATIO, 1);
+		kSat = Workloads.randomKSat(150, 3, Workloads.PHASE_TRANSITION_RATIO, 1);
+		smallPigeonhole = Workloads.pigeonhole(6);
+		pigeonhole = Workloads.pigeonhole(7);
+		SATCompiler satCompiler = new SATCompiler(Workloads.toMaze(Workloads.maze(10, 10, 4, 24, 3)));
+		satCompiler.generateAtoms();
+		mazeClauses = satCompiler.getClauseArena();
+	}
+
+	@Benchmark
+	public boolean dpllKSat() {
+		return solveWithDpll(smallKSat);
+	}
+
+	@Benchmark
+	public boolean cdclKSat() {
+		return solveWithCdcl(kSat);
+	}
+
+	@Benchmark
+	public boolean dpllPigeonhole() {
+		return solveWithDpll(smallPigeonhole);
+	}
+
+	@Benchmark
+	public boolean cdclPigeonhole() {
+		return solveWithCdcl(pigeonhole);
+	}
+
+	@Benchmark
+	public boolean cdclMaze() {
+		SatSolver satSolver = new SatSolver();
+		satSolver.parseArguments(new String[] {"-solver", "cdcl"});
+		return satSolver.solve(mazeClauses, new byte[mazeClauses.getNoOfLiterals() + 1]);
+	}
+
+	/**
+	 * Solves with dpll, watched literals and the static order.
+	 * @param clauses
+	 * @return boolean
+	 */
+	private static boolean solveWithDpll(ClauseArena clauses) {
+		return new DPLL(clauses.getNoOfLiterals(), PropagationMode.WATCHED, new StaticOrderHeuristic())
+				.solve(clauses, new byte[clauses.getNoOfLiterals() + 1]);
+	}
+
+	/**
+	 * Solves with cdcl and vsids.
+	 * @param clauses
+	 * @return boolean
+	 */
+	private static boolean solveWithCdcl(ClauseArena clauses) {
+		return new CDCL(clauses.getNoOfLiterals(), new VSIDSHeuristic(clauses.getNoOfLiterals()))
+				.solve(clauses, new byte[clauses.getNoOfLiterals() + 1]);
+	}
+}
@@ -0,0 +1,148 @@
+package ai.sat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+
+import ai.sat.backend.BackEnd;
+import ai.sat.dpll.ClauseArena;
+import ai.sat.dpll.SatSolver;
+import ai.sat.dpll.SolveResult;
+import ai.sat.frontend.AtMostOneEncoding;
+import ai.sat.frontend.SATCompiler;
+import ai.sat.maze.Maze;
+
+/**
+ * Runs the front end, the sat solver and the back end on an adventure maze problem within one program.
+ * The atoms, clauses and valuation are handed from one stage to the next in memory instead of through the files in
+ * src/io_files, so several mazes can be solved one after the other or concurrently without starting a program
+ * for every stage. A pipeline holds no state of its own between calls.
+ * @author kps9907
+ *
+ */
+public class MazePipeline {
+	/**
+	 * Options of the sat solver, in the command line form read by SatSolver.
+	 */
+	private String[] solverArgs;
+
+	/**
+	 * How the constraint that the player is at one place at a time is encoded.
+	 */
+	private AtMostOneEncoding atMostOneEncoding = AtMostOneEncoding.PAIRWISE;
+
+	/**
+	 * No. of threads generating the clauses of a maze.
+	 */
+	private int noOfThreads = 1;
+
+	/**
+	 * Whether the atoms which are never true are left out.
+	 */
+	private boolean prune = false;
+
+	/**
+	 * Compiles and solves with the default options of the front end and the sat solver.
+	 */
+	public MazePipeline() {
+		this(new String[0]);
+	}
+
+	/**
+	 * @param args options of the front end and of the sat solver as given on their command lines, e.g.
+	 * -prune -amo sequential -solver cdcl. The front end reads -amo, -threads and -prune as FrontEnd does, so that the
+	 * clauses solved are those it writes. -threads defaults to 1 rather than one per processor, since pipelines often
+	 * run concurrently. The sat solver reads the other options, see SatSolver.
+	 */
+	public MazePipeline(String... args) {
+		this.solverArgs = args.clone();
+		for(int i = 0; i < args.length; i++) {
+			if(args[i].equals("-amo") && i + 1 < args.length)
+				atMostOneEncoding = AtMostOneEncoding.valueOf(args[++i].toUpperCase());
+			else if(args[i].equals("-threads") && i + 1 < args.length)
+				noOfThreads = Integer.parseInt(args[++i]);
+			else if(args[i].equals("-prune"))
+				prune = true;
+		}
+	}
+
+	/**
+	 * Solves a maze given in the format of maze_input.txt.
+	 * @param mazeText
+	 * @return List<String> the names of the nodes visited at every step, or null if there is no solution.
+	 */
+	public List<String> solve(String mazeText) {
+		return solve(parseMaze(mazeText));
+	}
+
+	/**
+	 * Solves a maze given in the format of maze_input.txt within the budget of the sat solver options.
+	 * @param mazeText
+	 * @param solutionPath receives the names of the nodes visited at every step if a solution is found.
+	 * @return SolveResult UNKNOWN if the solver was stopped by its budget.
+	 */
+	public SolveResult solve(String mazeText, List<String> solutionPath) {
+		return solve(parseMaze(mazeText), solutionPath);
+	}
+
+	/**
+	 * Solves a maze.
+	 * @param maze
+	 * @return List<String> the names of the nodes visited at every step, or null if there is no solution or the
+	 * solver was stopped by its budget.
+	 */
+	public List<String> solve(Maze maze) {
+		List<String> solutionPath = new ArrayList<String>();
+		return solve(maze, solutionPath) == SolveResult.SATISFIABLE ? solutionPath : null;
+	}
+
+	/**
+	 * Solves a maze within the budget of the sat solver options, e.g. -timeout.
+	 * @param maze
+	 * @param solutionPath receives the names of the nodes visited at every step if a solution is found.
+	 * @return SolveResult UNKNOWN if the solver was stopped by its budget.
+	 */
+	public SolveResult solve(Maze maze, List<String> solutionPath) {
+		SATCompiler satCompiler = new SATCompiler(maze);
+		satCompiler.setAtMostOneEncoding(atMostOneEncoding);
+		satCompiler.setNoOfThreads(noOfThreads);
+		satCompiler.setPrune(prune);
+		satCompiler.generateAtoms();
+		ClauseArena clauses = satCompiler.getClauseArena();
+
+		SatSolver satSolver = new SatSolver();
+		satSolver.parseArguments(solverArgs);
+		byte[] bindings = new byte[clauses.getNoOfLiterals() + 1];
+		SolveResult result = satSolver.solveWithinBudget(clauses, bindings);
+
+		if(result == SolveResult.SATISFIABLE)
+			solutionPath.addAll(new BackEnd(satCompiler.getAtomKey(), bindings, result).getSolutionPath());
+		return result;
+	}
+
+	/**
+	 * Reads a maze given in the format of maze_input.txt.
+	 * @param mazeText
+	 * @return Maze
+	 */
+	private static Maze parseMaze(String mazeText) {
+		Maze maze = new Maze();
+		Scanner scanner = new Scanner(mazeText);
+		maze.getInput(scanner);
+		scanner.close();
+		return maze;
+	}
+
+	/**
+	 * Solves the maze of maze_input.txt and prints the solution path as the back end does, without writing the
+	 * intermediate files.
+	 * @param args options of the front end and of the sat solver, see MazePipeline(String...).
+	 */
+	public static void main(String[] args) {
+		Maze maze = new Maze();
+		maze.getInput();
+		List<String> solutionPath = new ArrayList<String>();
+		SolveResult result = new MazePipeline(args).solve(maze, solutionPath);
+		BackEnd.printSolution(result == SolveResult.SATISFIABLE ? solutionPath : null, result);
+	}
+}
@@ -0,0 +1,334 @@
+package ai.sat;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import ai.sat.backend.BackEnd;
+import ai.sat.dpll.ClauseArena;
+import ai.sat.dpll.CnfReader;
+import ai.sat.dpll.SatSolver;
+import ai.sat.dpll.SolveResult;
+import ai.sat.dpll.WatchedLiteralPropagator;
+
+/**
+ * Stays resident and solves the jobs sent to it, so that the program start and the warm up of the compiler are paid
+ * once instead of for every maze. Jobs are read from the standard input, or from the connections to a port of the
+ * loopback address, in a line protocol:
+ * MAZE id [options] or CNF id [options], then the maze in the format of maze_input.txt or the clauses in the
+ * format of dpll_input.txt or DIMACS CNF, then a line holding END. Blank lines are skipped. The options are those of
+ * SatSolver, e.g. -solver cdcl -timeout 5, and for a maze also -amo, -threads and -prune of FrontEnd, as read by
+ * MazePipeline. They follow those given to the daemon.
+ * Every job runs on a thread of its own when the JDK has virtual threads, or else on a fixed pool of as many threads as
+ * jobs solving at a time, and holds its own pipeline, solver and clauses instead of the files in src/io_files. At most
+ * a fixed no. of jobs solve at a time over every stream served, the others waiting. Every stream reads as many more
+ * ahead at most, its next job only being read once one of its own finishes, so a client sending jobs faster than they
+ * are solved is slowed down rather than held in memory, and a client not reading its answers only stops itself.
+ * A job answers with one line when it finishes, jobs sent together possibly finishing in any order: the id followed
+ * by what the back end prints, i.e. the solution path, NO SOLUTION or UNKNOWN. Clauses without a key are answered
+ * with the literals of the satisfying valuation terminated by 0 instead of a path. A job which cannot be read, or
+ * whose problem is cut off by the end of the stream before END, is answered with the id followed by ERROR and the
+ * reason. A header without an id is answered with ERROR and the reason alone.
+ * @author kps9907
+ *
+ */
+public class SolverDaemon {
+	/**
+	 * Line ending the problem of a job.
+	 */
+	private static final String END = "END";
+
+	/**
+	 * Options of the sat solver given to the daemon, used by every job before its own.
+	 */
+	private String[] solverArgs;
+
+	/**
+	 * Runs the jobs.
+	 */
+	private ExecutorService jobExecutor;
+
+	/**
+	 * Runs every connection on a thread of its own. The same executor as the jobs when it starts virtual threads.
+	 */
+	private ExecutorService connectionExecutor;
+
+	/**
+	 * Bounds the no. of jobs solving at a time.
+	 */
+	private Semaphore solving;
+
+	/**
+	 * No. of jobs read and not yet finished at most, for every stream served.
+	 */
+	private int maxPending;
+
+	/**
+	 * @param noOfJobs no. of jobs solving at a time.
+	 * @param solverArgs options of the sat solver used by every job, e.g. -solver cdcl.
+	 */
+	public SolverDaemon(int noOfJobs, String... solverArgs) {
+		this.solverArgs = solverArgs.clone();
+		this.solving = new Semaphore(Math.max(noOfJobs, 1));
+		this.maxPending = 2 * Math.max(noOfJobs, 1);
+		this.connectionExecutor = createVirtualThreadExecutor();
+		if(connectionExecutor != null)
+			this.jobExecutor = connectionExecutor;
+		else {
+			//Without virtual threads a waiting job would hold a thread, so the jobs queue for a fixed pool instead.
+			this.jobExecutor = Executors.newFixedThreadPool(Math.max(noOfJobs, 1), runnable -> newDaemonThread(runnable, "solver-job"));
+			this.connectionExecutor = Executors.newCachedThreadPool(runnable -> newDaemonThread(runnable, "solver-connection"));
+		}
+	}
+
+	/**
+	 * Reads jobs from a stream until it ends and writes their answers to another, waiting for the last job before
+	 * returning.
+	 * @param in
+	 * @param out
+	 * @throws IOException if the streams cannot be read or written.
+	 */
+	public void serve(InputStream in, OutputStream out) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+		PrintWriter writer = new PrintWriter(out, false, StandardCharsets.UTF_8);
+		//Released by every job when it finishes, so that only the no. of jobs is kept rather than the jobs.
+		Semaphore finished = new Semaphore(0);
+		//Of this stream only, as a job holds its permit until its answer is written, which waits for the client.
+		Semaphore pending = new Semaphore(maxPending);
+		int noOfJobs = 0;
+		String line;
+		while((line = reader.readLine()) != null) {
+			String[] header = line.trim().split("\\s+");
+			if(header[0].isEmpty())
+				continue;
+			String command = header[0].toUpperCase();
+			if(!command.equals("MAZE") && !command.equals("CNF") || header.length < 2) {
+				//Answers with the id where the header has one, and with ERROR alone otherwise.
+				String error = "ERROR expected MAZE id or CNF id but got " + line.trim();
+				writeLine(writer, header.length < 2 ? error : header[1] + " " + error);
+				continue;
+			}
+			String id = header[1];
+			String[] args = Arrays.copyOfRange(header, 2, header.length);
+			//Waits for a job to finish before reading another once too many are pending.
+			try {
+				pending.acquire();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+			//Reads the problem up to END before handing it to the job, so the next job can be read meanwhile.
+			StringBuilder problem = new StringBuilder();
+			while((line = reader.readLine()) != null && !line.trim().equals(END)) {
+				if(!line.trim().isEmpty())
+					problem.append(line).append('\n');
+			}
+			//A job cut off by the end of the stream may be missing clauses or nodes, so it is not solved.
+			if(line == null) {
+				pending.release();
+				answer(writer, id, "ERROR the stream ended before " + END);
+				break;
+			}
+			String text = problem.toString();
+			jobExecutor.execute(() -> {
+				try {
+					answer(writer, id, solve(command, text, args));
+				} finally {
+					pending.release();
+					finished.release();
+				}
+			});
+			noOfJobs++;
+		}
+		//Waits for the jobs of this stream, so that their answers are written before it is closed.
+		try {
+			finished.acquire(noOfJobs);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		writer.flush();
+	}
+
+	/**
+	 * Accepts connections on a port of the loopback address and serves each of them on a thread of its own until the
+	 * program is stopped.
+	 * @param port
+	 * @throws IOException if the port cannot be listened on.
+	 */
+	public void listen(int port) throws IOException {
+		try (ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+			while(true) {
+				Socket socket = serverSocket.accept();
+				connectionExecutor.execute(() -> {
+					try (Socket connection = socket) {
+						serve(connection.getInputStream(), connection.getOutputStream());
+					} catch (IOException e) {
+						e.printStackTrace();
+					}
+				});
+			}
+		}
+	}
+
+	/**
+	 * Stops accepting jobs and interrupts those running, whose solvers then answer UNKNOWN.
+	 */
+	public void shutdown() {
+		connectionExecutor.shutdownNow();
+		jobExecutor.shutdownNow();
+	}
+
+	/**
+	 * Solves a job once a place among the jobs solving at a time is free.
+	 * @param command MAZE or CNF.
+	 * @param text the problem.
+	 * @param args options of the job.
+	 * @return String the answer without the id.
+	 */
+	private String solve(String command, String text, String[] args) {
+		String[] options = new String[solverArgs.length + args.length];
+		System.arraycopy(solverArgs, 0, options, 0, solverArgs.length);
+		System.arraycopy(args, 0, options, solverArgs.length, args.length);
+		try {
+			solving.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return SolveResult.UNKNOWN.name();
+		}
+		try {
+			if(command.equals("MAZE"))
+				return solveMaze(text, options);
+			return solveClauses(text, options);
+		} catch (IOException | RuntimeException e) {
+			return "ERROR " + e;
+		} finally {
+			solving.release();
+		}
+	}
+
+	/**
+	 * Solves a maze job with the pipeline.
+	 * @param mazeText
+	 * @param options
+	 * @return String the solution as the back end prints it.
+	 */
+	private static String solveMaze(String mazeText, String[] options) {
+		List<String> solutionPath = new ArrayList<String>();
+		SolveResult result = new MazePipeline(options).solve(mazeText, solutionPath);
+		return BackEnd.formatSolution(result == SolveResult.SATISFIABLE ? solutionPath : null, result);
+	}
+
+	/**
+	 * Solves a clauses job. Clauses with a key, as written by the front end, are answered with the solution path.
+	 * @param clausesText
+	 * @param options
+	 * @return String the solution as the back end prints it, or the literals of the valuation.
+	 * @throws IOException if the clauses are malformed.
+	 */
+	private static String solveClauses(String clausesText, String[] options) throws IOException {
+		ClauseArena clauses = new ClauseArena();
+		List<String> key = new ArrayList<String>();
+		new CnfReader(clauses, key).read(new ByteArrayInputStream(clausesText.getBytes(StandardCharsets.UTF_8)));
+		SatSolver satSolver = new SatSolver();
+		satSolver.parseArguments(options);
+		byte[] bindings = new byte[clauses.getNoOfLiterals() + 1];
+		SolveResult result = satSolver.solveWithinBudget(clauses, bindings);
+		if(result != SolveResult.SATISFIABLE || key.size() > 1)
+			return BackEnd.formatSolution(new BackEnd(BackEnd.readKey(key), bindings, result).getSolutionPath(), result);
+		StringBuilder valuation = new StringBuilder();
+		for(int x = 1; x < bindings.length; x++)
+			valuation.append(bindings[x] == WatchedLiteralPropagator.TRUE ? x : -x).append(" ");
+		return valuation.append("0").toString();
+	}
+
+	/**
+	 * Writes the answer of a job as one line, whole even when several jobs finish at the same time.
+	 * @param writer
+	 * @param id
+	 * @param answer
+	 */
+	private static void answer(PrintWriter writer, String id, String answer) {
+		writeLine(writer, id + " " + answer);
+	}
+
+	/**
+	 * Writes a line of the answers, whole even when several jobs finish at the same time.
+	 * @param writer
+	 * @param line
+	 */
+	private static void writeLine(PrintWriter writer, String line) {
+		synchronized(writer) {
+			writer.println(line);
+			writer.flush();
+		}
+	}
+
+	/**
+	 * Creates an executor starting a virtual thread per task, found by reflection since virtual threads need Java 21.
+	 * @return ExecutorService or null if the JDK has no virtual threads.
+	 */
+	private static ExecutorService createVirtualThreadExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Creates a daemon thread, so that the threads of the daemon do not keep the program running.
+	 * @param runnable
+	 * @param name
+	 * @return Thread
+	 */
+	private static Thread newDaemonThread(Runnable runnable, String name) {
+		Thread thread = new Thread(runnable, name);
+		thread.setDaemon(true);
+		return thread;
+	}
+
+	/**
+	 * Serves jobs from the standard input until it ends, or from a port of the loopback address.
+	 * @param args -port n listens on port n of the loopback address instead of reading the standard input.
+	 * -jobs n sets the no. of jobs solving at a time. Defaults to the no. of available processors.
+	 * The other arguments are options of the sat solver used by every job, see SatSolver.
+	 */
+	public static void main(String[] args) {
+		int port = -1;
+		int noOfJobs = Runtime.getRuntime().availableProcessors();
+		List<String> solverArgs = new ArrayList<String>();
+		for(int i = 0; i < args.length; i++) {
+			if(args[i].equals("-port") && i + 1 < args.length)
+				port = Integer.parseInt(args[++i]);
+			else if(args[i].equals("-jobs") && i + 1 < args.length)
+				noOfJobs = Integer.parseInt(args[++i]);
+			else
+				solverArgs.add(args[i]);
+		}
+		SolverDaemon daemon = new SolverDaemon(noOfJobs, solverArgs.toArray(new String[0]));
+		try {
+			if(port >= 0)
+				daemon.listen(port);
+			else
+				daemon.serve(System.in, System.out);
+		} catch (IOException e) {
+			e.printStackTrace();
+		} finally {
+			daemon.shutdown();
+		}
+	}
+}
@@ -2,11 +2,14 @@ package ai.sat.backend;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
 
+import ai.sat.dpll.SolveResult;
+
 /**
  * Maps the dpll output for the adventure maze problem to a user readable solution path.
  * @author kps9907
@@ -21,7 +24,39 @@ public class BackEnd {
 	/**
 	 * List of satisfying bindings generated by the dpll algorithm.
 	 */
-	private Map<Integer, String> bindings = new HashMap<Integer, String>();
+	private Map<Integer, String> bindings = new LinkedHashMap<Integer, String>();
+
+	/**
+	 * Whether dpll stopped before it could tell if there is a solution.
+	 */
+	private boolean unknown = false;
+
+	public BackEnd() {
+	}
+
+	/**
+	 * Decodes a valuation held in memory instead of the output file.
+	 * @param atAtomMap mapping from the integer form of the 'At' atoms to their string representation.
+	 * @param valuation TRUE (1) or FALSE (-1) for every variable, or null if there is no satisfying valuation.
+	 */
+	public BackEnd(Map<Integer, String> atAtomMap, byte[] valuation) {
+		this.atAtomMap.putAll(atAtomMap);
+		if(valuation != null) {
+			for(int x = 1; x < valuation.length; x++)
+				bindings.put(x, valuation[x] == 1 ? "T" : "F");
+		}
+	}
+
+	/**
+	 * Decodes the outcome of a search held in memory.
+	 * @param atAtomMap mapping from the integer form of the 'At' atoms to their string representation.
+	 * @param valuation TRUE (1) or FALSE (-1) for every variable, used if the result is SATISFIABLE.
+	 * @param result
+	 */
+	public BackEnd(Map<Integer, String> atAtomMap, byte[] valuation, SolveResult result) {
+		this(atAtomMap, result == SolveResult.SATISFIABLE ? valuation : null);
+		this.unknown = result == SolveResult.UNKNOWN;
+	}
 
 	/**
 	 * Generates the solution from the evaluation obtained from the dpll algorithm.
@@ -31,6 +66,11 @@ public class BackEnd {
 		Scanner scanner;
 		try {
 			scanner = new Scanner(inputFile);
+			//The search was stopped before it found a valuation, so only the key follows.
+			if(scanner.hasNext(SolveResult.UNKNOWN.name())) {
+				scanner.nextLine();
+				unknown = true;
+			}
 			//Reads the bindings from the input file
 			while(scanner.hasNextLine()) {
 				Integer x = scanner.nextInt();
@@ -50,13 +90,84 @@ public class BackEnd {
 		}
 
 		//Prints out the solution according to the valuation obtained from dpll.
-		if(bindings.size()==0)
-			System.out.println("NO SOLUTION");
-		else{
-			for(int x : bindings.keySet())
-				if(atAtomMap.get(x) != null && bindings.get(x).equals("T"))
-					System.out.print(atAtomMap.get(x).substring(0, atAtomMap.get(x).indexOf(" "))+ " ");
+		printSolution(getSolutionPath(), getResult());
+	}
+
+	/**
+	 * Prints a solution path on the standard output.
+	 * @param solutionPath the names of the nodes visited, or null if there is no solution.
+	 */
+	public static void printSolution(List<String> solutionPath) {
+		printSolution(solutionPath, solutionPath != null ? SolveResult.SATISFIABLE : SolveResult.UNSATISFIABLE);
+	}
+
+	/**
+	 * Prints a solution path on the standard output, or UNKNOWN if the search was stopped before it could tell
+	 * whether there is one.
+	 * @param solutionPath the names of the nodes visited, or null if there is no solution.
+	 * @param result
+	 */
+	public static void printSolution(List<String> solutionPath, SolveResult result) {
+		if(result == SolveResult.UNKNOWN || solutionPath == null)
+			System.out.println(formatSolution(solutionPath, result));
+		else
+			System.out.print(formatSolution(solutionPath, result));
+	}
+
+	/**
+	 * Returns what printSolution prints, without the line break.
+	 * @param solutionPath the names of the nodes visited, or null if there is no solution.
+	 * @param result
+	 * @return String
+	 */
+	public static String formatSolution(List<String> solutionPath, SolveResult result) {
+		if(result == SolveResult.UNKNOWN)
+			return "UNKNOWN";
+		else if(solutionPath == null)
+			return "NO SOLUTION";
+		StringBuilder solution = new StringBuilder();
+		for(String node : solutionPath)
+			solution.append(node).append(" ");
+		return solution.toString();
+	}
+
+	/**
+	 * Reads the key following the clauses in the front end format, i.e. an atom and its string form per line.
+	 * @param key lines of the key. A line holding only the separator 0 is skipped.
+	 * @return Map<Integer, String> mapping from the integer form of the atoms to their string representation.
+	 */
+	public static Map<Integer, String> readKey(List<String> key) {
+		Map<Integer, String> atomMap = new LinkedHashMap<Integer, String>();
+		for(String line : key) {
+			String[] fields = line.trim().split("\\s+", 2);
+			if(fields.length == 2)
+				atomMap.put(Integer.parseInt(fields[0]), fields[1].trim());
 		}
+		return atomMap;
+	}
+
+	/**
+	 * Returns whether a solution was found, there is none, or the search was stopped before it could tell.
+	 * @return SolveResult
+	 */
+	public SolveResult getResult() {
+		if(unknown)
+			return SolveResult.UNKNOWN;
+		return bindings.size() == 0 ? SolveResult.UNSATISFIABLE : SolveResult.SATISFIABLE;
+	}
+
+	/**
+	 * Returns the nodes visited at every step according to the valuation obtained from dpll.
+	 * @return List<String> the names of the nodes in the order of the steps, or null if there is no solution.
+	 */
+	public List<String> getSolutionPath() {
+		if(bindings.size()==0)
+			return null;
+		List<String> solutionPath = new ArrayList<String>();
+		for(int x : bindings.keySet())
+			if(atAtomMap.get(x) != null && bindings.get(x).equals("T"))
+				solutionPath.add(atAtomMap.get(x).substring(0, atAtomMap.get(x).indexOf(" ")));
+		return solutionPath;
 	}
 	
 	public static void main(String[] args) {
@@ -0,0 +1,223 @@
+package ai.sat.dpll;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Reads and writes a compact binary form of a formula and the key following it, meant for batch runs where parsing
+ * the text form takes a noticeable share of the time.
+ * The layout is:
+ * the magic bytes SATB, a version byte and a flags byte whose lowest bit tells whether a key is present,
+ * then the no. of variables, the no. of clauses and the total no. of literals,
+ * then the no. of literals of every clause,
+ * then the literals of every clause, each written as the difference from the previous literal of the same clause
+ * after mapping literal x to 2x and -x to 2x + 1,
+ * then the no. of key lines and every line as its length in bytes followed by its UTF-8 bytes.
+ * Counts are unsigned varints, 7 bits per byte with the high bit set on all but the last byte. Differences are
+ * zigzag encoded first so that small negative differences stay short.
+ * @author kps9907
+ *
+ */
+public class BinaryCnf {
+	/**
+	 * First bytes of every binary formula.
+	 */
+	private static final byte[] MAGIC = {'S', 'A', 'T', 'B'};
+
+	/**
+	 * Version of the layout written.
+	 */
+	private static final int VERSION = 1;
+
+	/**
+	 * Flag telling that the formula is followed by a key.
+	 */
+	private static final int HAS_KEY = 1;
+
+	/**
+	 * Largest no. of variables read, for which the arrays of the solvers indexed by literal, of size
+	 * 2 * noOfVariables + 2, can still be allocated.
+	 */
+	private static final int MAX_VARIABLES = (Integer.MAX_VALUE - 8) / 2 - 1;
+
+	/**
+	 * Tells whether the first bytes of a file are those of a binary formula.
+	 * @param magic first bytes of the file.
+	 * @return boolean
+	 */
+	public static boolean isBinaryCnf(ByteBuffer magic) {
+		if(magic.remaining() < MAGIC.length)
+			return false;
+		for(int i = 0; i < MAGIC.length; i++) {
+			if(magic.get(magic.position() + i) != MAGIC[i])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Writes a formula and its key to a file.
+	 * @param outputFile
+	 * @param clauses
+	 * @param key lines used by the back end to map variables back to atoms, or null if there is no key.
+	 * @throws IOException
+	 */
+	public static void write(File outputFile, ClauseArena clauses, List<String> key) throws IOException {
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(outputFile), 1 << 16)) {
+			out.write(MAGIC);
+			out.write(VERSION);
+			out.write(key != null ? HAS_KEY : 0);
+			long noOfLiterals = 0;
+			for(int i = 0; i < clauses.getNoOfClauses(); i++)
+				noOfLiterals += clauses.getSize(i);
+			writeVarint(out, clauses.getNoOfLiterals());
+			writeVarint(out, clauses.getNoOfClauses());
+			writeVarint(out, noOfLiterals);
+			for(int i = 0; i < clauses.getNoOfClauses(); i++)
+				writeVarint(out, clauses.getSize(i));
+			for(int i = 0; i < clauses.getNoOfClauses(); i++) {
+				long previous = 0;
+				for(int j = 0; j < clauses.getSize(i); j++) {
+					long code = code(clauses.getLiteral(i, j));
+					long delta = code - previous;
+					writeVarint(out, (delta << 1) ^ (delta >> 63));
+					previous = code;
+				}
+			}
+			if(key != null) {
+				writeVarint(out, key.size());
+				for(String line : key) {
+					byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+					writeVarint(out, bytes.length);
+					out.write(bytes);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads a formula into a clause arena. The key, if any, is added to the remainder after a 0 line, the way it
+	 * follows the clauses in the text form.
+	 * @param buffer bytes of the file, starting with the magic bytes.
+	 * @param clauses arena receiving the clauses.
+	 * @param remainder receives the 0 separator and the key.
+	 * @throws IOException if the bytes are not a well formed binary formula.
+	 */
+	public static void read(ByteBuffer buffer, ClauseArena clauses, List<String> remainder) throws IOException {
+		try {
+			if(!isBinaryCnf(buffer))
+				throw new IOException("Not a binary formula");
+			buffer.position(buffer.position() + MAGIC.length);
+			int version = buffer.get();
+			if(version != VERSION)
+				throw new IOException("Unsupported binary formula version " + version);
+			int flags = buffer.get();
+			int noOfVariables = readCount(buffer);
+			if(noOfVariables > MAX_VARIABLES)
+				throw new IOException("No. of variables " + noOfVariables + " is out of range");
+			int noOfClauses = readCount(buffer);
+			long noOfLiterals = readVarint(buffer);
+			//Every clause takes at least one byte in the length table.
+			if(noOfClauses > buffer.remaining())
+				throw new IOException("Binary formula is truncated");
+			int[] sizes = new int[noOfClauses];
+			long total = 0;
+			for(int i = 0; i < noOfClauses; i++) {
+				sizes[i] = readCount(buffer);
+				total += sizes[i];
+			}
+			if(total != noOfLiterals)
+				throw new IOException("Clause lengths add up to " + total + " literals instead of " + noOfLiterals);
+			clauses.setNoOfLiterals(noOfVariables);
+			for(int i = 0; i < noOfClauses; i++) {
+				clauses.startClause();
+				long code = 0;
+				for(int j = 0; j < sizes[i]; j++) {
+					long zigzag = readVarint(buffer);
+					code += (zigzag >>> 1) ^ -(zigzag & 1);
+					if(code < 2 || code > 2L * noOfVariables + 1)
+						throw new IOException("Literal out of range in clause " + i);
+					clauses.addLiteral((code & 1) == 0 ? (int) (code >> 1) : (int) -(code >> 1));
+				}
+				clauses.endClause(0);
+			}
+			if((flags & HAS_KEY) != 0) {
+				remainder.add("0");
+				int noOfLines = readCount(buffer);
+				//Every line takes at least one byte for its length, and its bytes must be there before allocating them.
+				if(noOfLines > buffer.remaining())
+					throw new IOException("Binary formula is truncated");
+				for(int i = 0; i < noOfLines; i++) {
+					int length = readCount(buffer);
+					if(length > buffer.remaining())
+						throw new IOException("Binary formula is truncated");
+					byte[] bytes = new byte[length];
+					buffer.get(bytes);
+					remainder.add(new String(bytes, StandardCharsets.UTF_8));
+				}
+			}
+		} catch (BufferUnderflowException e) {
+			throw new IOException("Binary formula is truncated", e);
+		}
+	}
+
+	/**
+	 * Maps a literal to a non negative code, x to 2x and -x to 2x + 1.
+	 * @param literal
+	 * @return long
+	 */
+	private static long code(int literal) {
+		return literal > 0 ? 2L * literal : -2L * literal + 1;
+	}
+
+	/**
+	 * Writes an unsigned varint.
+	 * @param out
+	 * @param value
+	 * @throws IOException
+	 */
+	private static void writeVarint(OutputStream out, long value) throws IOException {
+		while((value & ~0x7fL) != 0) {
+			out.write((int) (value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		out.write((int) value);
+	}
+
+	/**
+	 * Reads an unsigned varint.
+	 * @param buffer
+	 * @return long
+	 * @throws IOException if the varint is longer than 64 bits.
+	 */
+	private static long readVarint(ByteBuffer buffer) throws IOException {
+		long value = 0;
+		for(int shift = 0; shift < 64; shift += 7) {
+			int b = buffer.get();
+			value |= (long) (b & 0x7f) << shift;
+			if((b & 0x80) == 0)
+				return value;
+		}
+		throw new IOException("Malformed varint at byte " + buffer.position());
+	}
+
+	/**
+	 * Reads a varint holding a count, which must fit an int.
+	 * @param buffer
+	 * @return int
+	 * @throws IOException if the count is out of range.
+	 */
+	private static int readCount(ByteBuffer buffer) throws IOException {
+		long value = readVarint(buffer);
+		if(value > Integer.MAX_VALUE)
+			throw new IOException("Count out of range at byte " + buffer.position());
+		return (int) value;
+	}
+}
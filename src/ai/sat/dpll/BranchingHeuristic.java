@@ -0,0 +1,32 @@
+package ai.sat.dpll;
+
+/**
+ * Chooses the literal to bind at every decision of the search.
+ * @author kps9907
+ *
+ */
+public interface BranchingHeuristic {
+	/**
+	 * Picks an unbound literal to bind next.
+	 * @param propagator holds the current bindings.
+	 * @return int the literal to bind to true or 0 if every variable is bound.
+	 */
+	int pickBranchLiteral(WatchedLiteralPropagator propagator);
+
+	/**
+	 * Notifies the heuristic that a variable took part in a conflict.
+	 * @param variable
+	 */
+	void bump(int variable);
+
+	/**
+	 * Notifies the heuristic that a conflict has been handled. Called once per conflict after its variables were bumped.
+	 */
+	void decay();
+
+	/**
+	 * Notifies the heuristic that a literal has been unbound on backtracking.
+	 * @param literal the literal as it was bound.
+	 */
+	void unbound(int literal);
+}
@@ -0,0 +1,451 @@
+package ai.sat.dpll;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Implements conflict driven clause learning.
+ * Every conflict is analysed back to its first unique implication point, the resulting clause is learnt and the search
+ * jumps back to the highest decision level at which the learnt clause is unit instead of the previous decision.
+ * Learnt clauses with a high literal block distance are periodically deleted to keep propagation fast.
+ * @author kps9907
+ *
+ */
+public class CDCL {
+	/**
+	 * No. of conflicts before the learnt clauses are first reduced.
+	 */
+	private static final int FIRST_REDUCE = 2000;
+
+	/**
+	 * No. of conflicts by which the interval between two reductions grows.
+	 */
+	private static final int REDUCE_INCREMENT = 300;
+
+	/**
+	 * No. of conflicts between two imports of the clauses shared by other solvers.
+	 */
+	private static final int IMPORT_INTERVAL = 500;
+
+	/**
+	 * No. of literals generated by the given problem.
+	 */
+	private int noOfLiterals = 0;
+
+	/**
+	 * Marks the variables already visited by the conflict analysis.
+	 */
+	private boolean[] seen;
+
+	/**
+	 * Marks the decision levels already counted while computing a literal block distance.
+	 */
+	private int[] levelStamps;
+
+	/**
+	 * Stamp used for the current literal block distance computation.
+	 */
+	private int currentStamp = 0;
+
+	/**
+	 * Literals of the clause being learnt.
+	 */
+	private int[] learntLiterals;
+
+	/**
+	 * Picks the literal to bind at every decision.
+	 */
+	private BranchingHeuristic heuristic;
+
+	/**
+	 * Exchange through which learnt clauses are shared with other solvers, or null if the solver runs alone.
+	 */
+	private ClauseExchange exchange;
+
+	/**
+	 * Id of this solver in the exchange.
+	 */
+	private int solverId;
+
+	/**
+	 * Set from another thread to stop the search.
+	 */
+	private volatile boolean cancelled = false;
+
+	/**
+	 * Assumptions found responsible by the last search that failed under assumptions.
+	 */
+	private int[] failedAssumptions = new int[0];
+
+	/**
+	 * Counts what the search does, or null if nothing is counted.
+	 */
+	private SolverStatistics statistics = null;
+
+	/**
+	 * Limits the search, or null if it runs until it finishes or is cancelled.
+	 */
+	private SolveBudget budget = null;
+
+	/**
+	 * No. of times this solver checked its budget, kept across searches so that the clock is read as often however
+	 * short the searches are.
+	 */
+	private long noOfChecks = 0;
+
+	public CDCL(int noOfLiterals) {
+		this(noOfLiterals, new VSIDSHeuristic(noOfLiterals));
+	}
+
+	public CDCL(int noOfLiterals, BranchingHeuristic heuristic) {
+		this.noOfLiterals = noOfLiterals;
+		this.heuristic = heuristic;
+		this.seen = new boolean[noOfLiterals + 1];
+		this.levelStamps = new int[noOfLiterals + 1];
+		this.learntLiterals = new int[noOfLiterals + 1];
+	}
+
+	/**
+	 * Shares short learnt clauses with other solvers working on the same problem and imports theirs.
+	 * Imported clauses are added after going back to decision level 0, i.e. the search restarts every time.
+	 * @param exchange
+	 * @param solverId id of this solver in the exchange.
+	 */
+	public void setClauseExchange(ClauseExchange exchange, int solverId) {
+		this.exchange = exchange;
+		this.solverId = solverId;
+	}
+
+	/**
+	 * Raises the no. of variables, e.g. before solving again after clauses over new variables were added.
+	 * @param noOfLiterals
+	 */
+	public void addVariables(int noOfLiterals) {
+		if(noOfLiterals <= this.noOfLiterals)
+			return;
+		this.noOfLiterals = noOfLiterals;
+		this.seen = Arrays.copyOf(seen, noOfLiterals + 1);
+		this.levelStamps = Arrays.copyOf(levelStamps, noOfLiterals + 1);
+		this.learntLiterals = Arrays.copyOf(learntLiterals, noOfLiterals + 1);
+	}
+
+	/**
+	 * Counts what the search does in a set of statistics from now on.
+	 * @param statistics null to stop counting.
+	 */
+	public void setStatistics(SolverStatistics statistics) {
+		this.statistics = statistics;
+	}
+
+	/**
+	 * Limits the search by a budget from now on. A search stopped by its budget returns false and is then cancelled.
+	 * @param budget null for no limit.
+	 */
+	public void setBudget(SolveBudget budget) {
+		this.budget = budget;
+	}
+
+	/**
+	 * Stops the search, which then returns false. May be called from any thread.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * Returns whether the search was cancelled or stopped by its budget. A false result of a cancelled search says nothing about the problem.
+	 * @return boolean
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Applies the CDCL algorithm on a set of clauses and bindings generated.
+	 * @param clauses
+	 * @param bindings UNBOUND, TRUE or FALSE for every variable. Bound variables are kept and the satisfying
+	 * valuation, if any, is written back.
+	 * @return boolean whether a satisfiable valuation is possible or not.
+	 */
+	public boolean solve(ClauseArena clauses, byte[] bindings) {
+		WatchedLiteralPropagator propagator = new WatchedLiteralPropagator(noOfLiterals, clauses);
+		propagator.setBranchingHeuristic(heuristic);
+		for(int x = 1; x <= noOfLiterals; x++) {
+			if(bindings[x] != WatchedLiteralPropagator.UNBOUND)
+				propagator.assign(bindings[x] == WatchedLiteralPropagator.TRUE ? x : -x);
+		}
+		if(search(propagator, new int[0])) {
+			propagator.getBindings(bindings);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Searches for a satisfying valuation in which every assumption is true, keeping the clauses learnt in
+	 * the propagator so that later searches on it start from them. The propagator must be at decision level 0.
+	 * On success the valuation is left bound in the propagator.
+	 * @param propagator
+	 * @param assumptions literals bound as the first decisions, one per decision level, without duplicates.
+	 * @return boolean whether a satisfiable valuation is possible or not under the assumptions.
+	 */
+	public boolean solve(WatchedLiteralPropagator propagator, int[] assumptions) {
+		propagator.setBranchingHeuristic(heuristic);
+		failedAssumptions = new int[0];
+		return search(propagator, assumptions);
+	}
+
+	/**
+	 * Returns the assumptions which together cannot be true, found by the last search that failed under assumptions.
+	 * Empty if the clauses are unsatisfiable without any assumption.
+	 * @return int[]
+	 */
+	public int[] getFailedAssumptions() {
+		return failedAssumptions;
+	}
+
+	/**
+	 * Decides, propagates and learns from conflicts until every variable is bound, a conflict occurs at level 0,
+	 * an assumption is found false or the search is cancelled.
+	 * @param propagator
+	 * @param assumptions literals bound as the first decisions.
+	 * @return boolean whether a satisfiable valuation was found or not.
+	 */
+	private boolean search(WatchedLiteralPropagator propagator, int[] assumptions) {
+		if(statistics == null)
+			return search(propagator, assumptions, 0, 0);
+		//Bindings propagated before this search, so that the statistics count on from where they were.
+		long propagationOffset = statistics.getPropagations() - propagator.getNoOfPropagations();
+		long unitOffset = statistics.getUnitBindings() - propagator.getNoOfUnitBindings();
+		boolean satisfiable = search(propagator, assumptions, propagationOffset, unitOffset);
+		statistics.setPropagations(propagationOffset + propagator.getNoOfPropagations(), unitOffset + propagator.getNoOfUnitBindings());
+		return satisfiable;
+	}
+
+	/**
+	 * Runs the search of search(propagator, assumptions).
+	 * @param propagator
+	 * @param assumptions
+	 * @param propagationOffset added to the no. of bindings propagated by the propagator to give the no. counted by the
+	 * statistics.
+	 * @param unitOffset added to the no. of bindings implied by unit clauses in the propagator to give the no. counted
+	 * by the statistics.
+	 * @return boolean whether a satisfiable valuation was found or not.
+	 */
+	private boolean search(WatchedLiteralPropagator propagator, int[] assumptions, long propagationOffset, long unitOffset) {
+		long conflicts = 0;
+		long decisions = 0;
+		long nextReduce = FIRST_REDUCE;
+		int reduceInterval = FIRST_REDUCE;
+		long nextImport = IMPORT_INTERVAL;
+		long exchangeCursor = 0;
+		List<int[]> imported = new ArrayList<int[]>();
+		while(!cancelled) {
+			if(propagator.hasConflict()) {
+				//A conflict without decisions means the clauses are unsatisfiable.
+				if(propagator.getDecisionLevel() == 0)
+					return false;
+				conflicts++;
+				if(statistics != null)
+					statistics.recordConflict(propagationOffset + propagator.getNoOfPropagations(),
+							unitOffset + propagator.getNoOfUnitBindings());
+				if(budget != null && budget.isExhausted(decisions, conflicts, ++noOfChecks)) {
+					cancelled = true;
+					break;
+				}
+				int[] learntClause = analyse(propagator);
+				int backjumpLevel = learntClause.length == 1 ? 0 : propagator.getLevel(Math.abs(learntClause[1]));
+				int lbd = computeLbd(propagator, learntClause);
+				heuristic.decay();
+				propagator.backtrack(backjumpLevel);
+				if(statistics != null)
+					statistics.recordBacktrack();
+				propagator.learn(learntClause, lbd);
+				if(exchange != null)
+					exchange.publish(solverId, learntClause);
+				continue;
+			}
+
+			if(exchange != null && conflicts >= nextImport) {
+				nextImport = conflicts + IMPORT_INTERVAL;
+				exchangeCursor = exchange.collect(solverId, exchangeCursor, imported);
+				if(!imported.isEmpty()) {
+					propagator.backtrack(0);
+					for(int[] clause : imported) {
+						if(!propagator.importClause(clause, clause.length))
+							return false;
+					}
+					imported.clear();
+				}
+			}
+
+			if(conflicts >= nextReduce) {
+				reduceLearntClauses(propagator);
+				reduceInterval += REDUCE_INCREMENT;
+				nextReduce = conflicts + reduceInterval;
+			}
+
+			//Bind the assumptions first, one per decision level. An assumption already true gets an empty level.
+			int literal = 0;
+			while(propagator.getDecisionLevel() < assumptions.length) {
+				int assumption = assumptions[propagator.getDecisionLevel()];
+				if(propagator.value(assumption) == WatchedLiteralPropagator.TRUE)
+					propagator.newDecisionLevel();
+				else if(propagator.value(assumption) == WatchedLiteralPropagator.FALSE) {
+					failedAssumptions = analyseFinal(propagator, assumption);
+					return false;
+				}
+				else {
+					literal = assumption;
+					break;
+				}
+			}
+
+			//Pick an unbound literal that can be binded. All clauses are satisfied once every literal is bound.
+			if(literal == 0)
+				literal = heuristic.pickBranchLiteral(propagator);
+			if(literal == 0)
+				return true;
+			decisions++;
+			if(budget != null && budget.isExhausted(decisions, conflicts, ++noOfChecks)) {
+				cancelled = true;
+				break;
+			}
+			if(statistics != null)
+				statistics.recordDecision(propagator.getDecisionLevel() + 1, propagationOffset + propagator.getNoOfPropagations(),
+						unitOffset + propagator.getNoOfUnitBindings());
+			propagator.newDecisionLevel();
+			propagator.assign(literal);
+		}
+		return false;
+	}
+
+	/**
+	 * Resolves the conflicting clause with the reasons of its literals bound at the current decision level
+	 * until a single such literal, the first unique implication point, is left.
+	 * @param propagator
+	 * @return int[] learnt clause. Its first literal is the negated unique implication point and its second literal,
+	 * if any, is the one bound at the highest decision level among the rest.
+	 */
+	private int[] analyse(WatchedLiteralPropagator propagator) {
+		int noOfLearntLiterals = 1;
+		int currentLevel = propagator.getDecisionLevel();
+		int pathCount = 0;
+		int pivot = 0;
+		int position = propagator.getTrailSize() - 1;
+		do {
+			//Visit the conflicting clause first, then the reason of every pivot.
+			int size = pivot == 0 ? propagator.getConflictSize() : propagator.getReasonSize(pivot);
+			for(int j = 0; j < size; j++) {
+				int literal = pivot == 0 ? propagator.getConflictLiteral(j) : propagator.getReasonLiteral(pivot, j);
+				int variable = Math.abs(literal);
+				if(variable == pivot || seen[variable] || propagator.getLevel(variable) == 0)
+					continue;
+				seen[variable] = true;
+				heuristic.bump(variable);
+				if(propagator.getLevel(variable) == currentLevel)
+					pathCount++;
+				else
+					learntLiterals[noOfLearntLiterals++] = literal;
+			}
+			//Pick the most recently bound literal taking part in the conflict.
+			while(!seen[Math.abs(propagator.getTrailLiteral(position))])
+				position--;
+			pivot = Math.abs(propagator.getTrailLiteral(position));
+			position--;
+			seen[pivot] = false;
+			pathCount--;
+		} while(pathCount > 0);
+
+		learntLiterals[0] = propagator.value(pivot) == WatchedLiteralPropagator.TRUE ? -pivot : pivot;
+		int[] learntClause = Arrays.copyOf(learntLiterals, noOfLearntLiterals);
+		int highest = 1;
+		for(int i = 1; i < learntClause.length; i++) {
+			seen[Math.abs(learntClause[i])] = false;
+			if(propagator.getLevel(Math.abs(learntClause[i])) > propagator.getLevel(Math.abs(learntClause[highest])))
+				highest = i;
+		}
+		//Watch the literal which is unbound last on backtracking.
+		if(learntClause.length > 1) {
+			int literal = learntClause[1];
+			learntClause[1] = learntClause[highest];
+			learntClause[highest] = literal;
+		}
+		return learntClause;
+	}
+
+	/**
+	 * Finds the assumptions which imply the negation of a false assumption by following the reasons of the bindings
+	 * back to the decisions, which are all assumptions since assumptions are bound before any other decision.
+	 * @param propagator
+	 * @param assumption
+	 * @return int[] the false assumption and the assumptions implying its negation.
+	 */
+	private int[] analyseFinal(WatchedLiteralPropagator propagator, int assumption) {
+		List<Integer> core = new ArrayList<Integer>();
+		core.add(assumption);
+		seen[Math.abs(assumption)] = true;
+		for(int i = propagator.getTrailSize() - 1; i >= 0; i--) {
+			int literal = propagator.getTrailLiteral(i);
+			int variable = Math.abs(literal);
+			if(propagator.getLevel(variable) == 0)
+				break;
+			if(!seen[variable])
+				continue;
+			seen[variable] = false;
+			int size = propagator.getReasonSize(variable);
+			if(size == 0)
+				core.add(literal);
+			for(int j = 1; j < size; j++) {
+				int reasonVariable = Math.abs(propagator.getReasonLiteral(variable, j));
+				if(propagator.getLevel(reasonVariable) > 0)
+					seen[reasonVariable] = true;
+			}
+		}
+		seen[Math.abs(assumption)] = false;
+		int[] result = new int[core.size()];
+		for(int i = 0; i < result.length; i++)
+			result[i] = core.get(i);
+		return result;
+	}
+
+	/**
+	 * Counts the distinct decision levels among the literals of a clause.
+	 * @param propagator
+	 * @param clause
+	 * @return int literal block distance of the clause.
+	 */
+	private int computeLbd(WatchedLiteralPropagator propagator, int[] clause) {
+		currentStamp++;
+		int lbd = 0;
+		for(int literal : clause) {
+			int level = propagator.getLevel(Math.abs(literal));
+			if(levelStamps[level] != currentStamp) {
+				levelStamps[level] = currentStamp;
+				lbd++;
+			}
+		}
+		return lbd;
+	}
+
+	/**
+	 * Deletes half of the learnt clauses, starting with the ones of highest literal block distance.
+	 * Clauses with a literal block distance of 2 or less are always kept.
+	 * @param propagator
+	 */
+	private void reduceLearntClauses(WatchedLiteralPropagator propagator) {
+		int noOfLearntClauses = propagator.getNoOfLearntClauses();
+		List<Integer> candidates = new ArrayList<Integer>();
+		for(int i = 0; i < noOfLearntClauses; i++) {
+			if(propagator.getLbd(i) > 2)
+				candidates.add(i);
+		}
+		//Highest literal block distance first, oldest first among equals.
+		candidates.sort((a, b) -> propagator.getLbd(b) != propagator.getLbd(a) ? propagator.getLbd(b) - propagator.getLbd(a) : a - b);
+		boolean[] deleted = new boolean[noOfLearntClauses];
+		for(int i = 0; i < noOfLearntClauses / 2 && i < candidates.size(); i++)
+			deleted[candidates.get(i)] = true;
+		propagator.deleteLearntClauses(deleted);
+	}
+}
@@ -0,0 +1,276 @@
+package ai.sat.dpll;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Stores clauses back to back in a single int array.
+ * Every clause is a header followed by its literals. The header holds the no. of literals and a flags word whose lowest
+ * bit marks learnt clauses and whose other bits hold the literal block distance. A clause is referred to either by its
+ * index, in the order clauses were added, or by its reference, the position of its first literal in the arena.
+ * @author kps9907
+ *
+ */
+public class ClauseArena implements ClauseSink {
+	/**
+	 * No. of ints before the first literal of every clause.
+	 */
+	public static final int HEADER = 2;
+
+	/**
+	 * Position of the no. of literals relative to the reference of a clause.
+	 */
+	public static final int SIZE = -2;
+
+	/**
+	 * Position of the flags relative to the reference of a clause.
+	 */
+	public static final int FLAGS = -1;
+
+	/**
+	 * Flag marking a learnt clause.
+	 */
+	public static final int LEARNT = 1;
+
+	/**
+	 * Headers and literals of every clause.
+	 */
+	private int[] arena;
+
+	/**
+	 * No. of ints used in the arena.
+	 */
+	private int arenaSize = 0;
+
+	/**
+	 * Reference of every clause by index.
+	 */
+	private int[] references;
+
+	/**
+	 * No. of clauses stored.
+	 */
+	private int noOfClauses = 0;
+
+	/**
+	 * Reference of the clause being added, or -1 if none is.
+	 */
+	private int openClause = -1;
+
+	/**
+	 * Highest variable found in any clause.
+	 */
+	private int noOfLiterals = 0;
+
+	public ClauseArena() {
+		this(1024, 64);
+	}
+
+	/**
+	 * Creates an arena sized for the expected no. of ints and clauses. Both grow as needed.
+	 * @param arenaCapacity
+	 * @param clauseCapacity
+	 */
+	public ClauseArena(int arenaCapacity, int clauseCapacity) {
+		this.arena = new int[Math.max(arenaCapacity, HEADER)];
+		this.references = new int[Math.max(clauseCapacity, 1)];
+	}
+
+	/**
+	 * Starts a new clause. Its literals are added with addLiteral and it is stored by endClause.
+	 */
+	public void startClause() {
+		ensureArenaCapacity(HEADER);
+		arenaSize += HEADER;
+		openClause = arenaSize;
+	}
+
+	/**
+	 * Adds a literal to the clause started last.
+	 * @param literal
+	 */
+	public void addLiteral(int literal) {
+		ensureArenaCapacity(1);
+		arena[arenaSize++] = literal;
+		if(Math.abs(literal) > noOfLiterals)
+			noOfLiterals = Math.abs(literal);
+	}
+
+	/**
+	 * Stores the clause started last.
+	 * @param flags
+	 * @return int reference of the clause.
+	 */
+	public int endClause(int flags) {
+		int reference = openClause;
+		arena[reference + SIZE] = arenaSize - reference;
+		arena[reference + FLAGS] = flags;
+		if(noOfClauses == references.length)
+			references = Arrays.copyOf(references, 2 * references.length);
+		references[noOfClauses++] = reference;
+		openClause = -1;
+		return reference;
+	}
+
+	/**
+	 * Stores a clause.
+	 * @param literals
+	 * @param length no. of literals to take from the start of the array.
+	 * @param flags
+	 * @return int reference of the clause.
+	 */
+	public int addClause(int[] literals, int length, int flags) {
+		startClause();
+		ensureArenaCapacity(length);
+		for(int i = 0; i < length; i++)
+			addLiteral(literals[i]);
+		return endClause(flags);
+	}
+
+	/**
+	 * Stores an input clause.
+	 * @param literals
+	 * @param length no. of literals to take from the start of the array.
+	 */
+	@Override
+	public void addClause(int[] literals, int length) {
+		addClause(literals, length, 0);
+	}
+
+	/**
+	 * Grows the arena so that it can hold a no. of extra ints.
+	 * @param extra
+	 */
+	private void ensureArenaCapacity(int extra) {
+		if(arenaSize + extra > arena.length)
+			arena = Arrays.copyOf(arena, Math.max(2 * arena.length, arenaSize + extra));
+	}
+
+	/**
+	 * Returns the array backing the arena. It is replaced when the arena grows, so it must be fetched again
+	 * after clauses are added.
+	 * @return int[]
+	 */
+	public int[] getArena() {
+		return arena;
+	}
+
+	/**
+	 * Returns the no. of clauses stored.
+	 * @return int
+	 */
+	public int getNoOfClauses() {
+		return noOfClauses;
+	}
+
+	/**
+	 * Returns the highest variable found in any clause.
+	 * @return int
+	 */
+	public int getNoOfLiterals() {
+		return noOfLiterals;
+	}
+
+	/**
+	 * Raises the no. of variables, e.g. to the no. declared by a DIMACS header, even if some never occur in a clause.
+	 * @param noOfLiterals
+	 */
+	public void setNoOfLiterals(int noOfLiterals) {
+		this.noOfLiterals = Math.max(this.noOfLiterals, noOfLiterals);
+	}
+
+	/**
+	 * Returns the reference of a clause.
+	 * @param clauseIndex
+	 * @return int
+	 */
+	public int getReference(int clauseIndex) {
+		return references[clauseIndex];
+	}
+
+	/**
+	 * Returns the no. of literals of a clause.
+	 * @param clauseIndex
+	 * @return int
+	 */
+	public int getSize(int clauseIndex) {
+		return arena[references[clauseIndex] + SIZE];
+	}
+
+	/**
+	 * Returns a literal of a clause.
+	 * @param clauseIndex
+	 * @param position
+	 * @return int
+	 */
+	public int getLiteral(int clauseIndex, int position) {
+		return arena[references[clauseIndex] + position];
+	}
+
+	/**
+	 * Returns the flags of a clause.
+	 * @param clauseIndex
+	 * @return int
+	 */
+	public int getFlags(int clauseIndex) {
+		return arena[references[clauseIndex] + FLAGS];
+	}
+
+	/**
+	 * Removes clauses and moves the remaining ones down so the arena stays contiguous.
+	 * @param deleted flags indexed by clause index.
+	 * @return int[] new reference of every clause by old index, or -1 for deleted clauses.
+	 */
+	public int[] compact(boolean[] deleted) {
+		int[] newReferences = new int[noOfClauses];
+		int size = 0;
+		int noOfKept = 0;
+		for(int i = 0; i < noOfClauses; i++) {
+			if(deleted[i]) {
+				newReferences[i] = -1;
+				continue;
+			}
+			int reference = references[i];
+			int length = arena[reference + SIZE] + HEADER;
+			System.arraycopy(arena, reference - HEADER, arena, size, length);
+			newReferences[i] = size + HEADER;
+			references[noOfKept++] = size + HEADER;
+			size += length;
+		}
+		arenaSize = size;
+		noOfClauses = noOfKept;
+		return newReferences;
+	}
+
+	/**
+	 * Copies the clauses to lists of boxed literals, the form the reference dpll procedure works on.
+	 * @return List<List<Integer>>
+	 */
+	public List<List<Integer>> toLists() {
+		List<List<Integer>> clauses = new ArrayList<List<Integer>>(noOfClauses);
+		for(int i = 0; i < noOfClauses; i++) {
+			List<Integer> literals = new ArrayList<Integer>(getSize(i));
+			for(int j = 0; j < getSize(i); j++)
+				literals.add(getLiteral(i, j));
+			clauses.add(literals);
+		}
+		return clauses;
+	}
+
+	/**
+	 * Passes every clause stored to a sink, in the order they were added.
+	 * @param sink
+	 */
+	public void copyTo(ClauseSink sink) {
+		int[] literals = new int[16];
+		for(int i = 0; i < noOfClauses; i++) {
+			int reference = references[i];
+			int size = arena[reference + SIZE];
+			if(size > literals.length)
+				literals = new int[Math.max(size, 2 * literals.length)];
+			System.arraycopy(arena, reference, literals, 0, size);
+			sink.addClause(literals, size);
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package ai.sat.dpll;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock free ring buffer through which solvers running on the same problem share short learnt clauses.
+ * Every clause published gets the next sequence no. and overwrites the slot of the clause published capacity
+ * sequence nos. before it. Readers keep their own cursor and skip the clauses they missed because they were
+ * overwritten, so a slow reader never holds up the others.
+ * @author kps9907
+ *
+ */
+public class ClauseExchange {
+	/**
+	 * A published clause. Its fields are final so it is seen complete by every thread that reads its slot.
+	 */
+	private static class Entry {
+		private final long sequence;
+		private final int source;
+		private final int[] clause;
+
+		private Entry(long sequence, int source, int[] clause) {
+			this.sequence = sequence;
+			this.source = source;
+			this.clause = clause;
+		}
+	}
+
+	/**
+	 * Most recently published clauses, by sequence no. modulo the capacity.
+	 */
+	private AtomicReferenceArray<Entry> slots;
+
+	/**
+	 * No. of clauses published so far, i.e. the sequence no. of the next clause.
+	 */
+	private AtomicLong published = new AtomicLong();
+
+	/**
+	 * Longest clause that is shared. Longer clauses are rarely useful to the other solvers.
+	 */
+	private int maxSize;
+
+	/**
+	 * @param capacity no. of clauses kept for readers.
+	 * @param maxSize longest clause that is shared.
+	 */
+	public ClauseExchange(int capacity, int maxSize) {
+		this.slots = new AtomicReferenceArray<Entry>(capacity);
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Shares a clause unless it is too long. The clause must not be modified afterwards.
+	 * @param source id of the solver publishing the clause.
+	 * @param clause
+	 */
+	public void publish(int source, int[] clause) {
+		if(clause.length > maxSize)
+			return;
+		long sequence = published.getAndIncrement();
+		slots.set((int) (sequence % slots.length()), new Entry(sequence, source, clause));
+	}
+
+	/**
+	 * Collects the clauses published by other solvers since a cursor. The collected clauses must not be modified.
+	 * @param reader id of the solver reading, whose own clauses are skipped.
+	 * @param cursor sequence no. of the first clause not yet read, 0 at first.
+	 * @param clauses receives the clauses.
+	 * @return long cursor to pass on the next call.
+	 */
+	public long collect(int reader, long cursor, List<int[]> clauses) {
+		long end = published.get();
+		//Clauses more than capacity sequence nos. old are overwritten.
+		cursor = Math.max(cursor, end - slots.length());
+		for(; cursor < end; cursor++) {
+			Entry entry = slots.get((int) (cursor % slots.length()));
+			//The slot is still being written. Come back to it on the next call.
+			if(entry == null || entry.sequence < cursor)
+				break;
+			if(entry.sequence == cursor && entry.source != reader)
+				clauses.add(entry.clause);
+		}
+		return cursor;
+	}
+}
@@ -0,0 +1,16 @@
+package ai.sat.dpll;
+
+/**
+ * Receives clauses one at a time as they are generated, e.g. to write them to a file or to add them to a solver,
+ * so that the whole set of clauses never needs to be held in another form first.
+ * @author kps9907
+ *
+ */
+public interface ClauseSink {
+	/**
+	 * Receives a clause. The array belongs to the caller and may be reused once the call returns.
+	 * @param literals
+	 * @param length no. of literals to take from the start of the array.
+	 */
+	void addClause(int[] literals, int length);
+}
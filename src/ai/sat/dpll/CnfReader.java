@@ -0,0 +1,334 @@
+package ai.sat.dpll;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads clauses straight from a file into a clause arena without creating a string or list per clause.
+ * Two formats are accepted:
+ * the format written by the front end, one clause per line followed by a line holding 0 and the key used by the
+ * back end, and standard DIMACS CNF, a "p cnf" header followed by clauses each terminated by 0.
+ * Lines starting with c are comments in both. Plain files are memory mapped, gzip and xz files are detected from
+ * their first bytes and decompressed while reading. Formulas written by BinaryCnf are handed over to it.
+ * @author kps9907
+ *
+ */
+public class CnfReader {
+	/**
+	 * No. of bytes of a plain file mapped at a time.
+	 */
+	private static final int WINDOW = 1 << 26;
+
+	/**
+	 * No. of bytes read at a time from a compressed file.
+	 */
+	private static final int BUFFER = 1 << 16;
+
+	/**
+	 * Arena receiving the clauses.
+	 */
+	private ClauseArena clauses;
+
+	/**
+	 * Receives the 0 separator and the key lines following the clauses in the front end format.
+	 */
+	private List<String> remainder;
+
+	/**
+	 * Whether the input is in DIMACS format, i.e. a "p cnf" header was read.
+	 */
+	private boolean dimacs = false;
+
+	/**
+	 * Whether the clauses have ended and the key is being read.
+	 */
+	private boolean inRemainder = false;
+
+	/**
+	 * Whether the end of a DIMACS input, a line starting with %, was reached.
+	 */
+	private boolean ended = false;
+
+	/**
+	 * Whether the current line is a comment.
+	 */
+	private boolean inComment = false;
+
+	/**
+	 * Whether no character other than blanks has been read on the current line.
+	 */
+	private boolean atLineStart = true;
+
+	/**
+	 * Collects the bytes of the current line of the header or of the key, decoded as UTF-8 once the line ends.
+	 */
+	private ByteArrayOutputStream line;
+
+	/**
+	 * Whether a literal is being read, its sign and its magnitude so far.
+	 */
+	private boolean inNumber = false;
+	private boolean negative = false;
+	private long number = 0;
+
+	/**
+	 * Whether a clause has been started in the arena and not yet ended.
+	 */
+	private boolean clauseOpen = false;
+
+	/**
+	 * Whether the current line of a front end input only held a 0, which separates the clauses from the key.
+	 */
+	private boolean separatorOnLine = false;
+
+	/**
+	 * No. of bytes read so far. Used in error messages.
+	 */
+	private long position = 0;
+
+	/**
+	 * @param clauses arena receiving the clauses.
+	 * @param remainder receives the lines following the clauses.
+	 */
+	public CnfReader(ClauseArena clauses, List<String> remainder) {
+		this.clauses = clauses;
+		this.remainder = remainder;
+	}
+
+	/**
+	 * Reads a file, decompressing it if it is gzip or xz compressed. Files in the binary format of BinaryCnf are
+	 * detected from their first bytes and decoded by it.
+	 * @param inputFile
+	 * @throws IOException if the file cannot be read or is malformed.
+	 */
+	public void read(File inputFile) throws IOException {
+		try (RandomAccessFile file = new RandomAccessFile(inputFile, "r"); FileChannel channel = file.getChannel()) {
+			ByteBuffer magic = ByteBuffer.allocate(6);
+			channel.read(magic, 0);
+			magic.flip();
+			if(BinaryCnf.isBinaryCnf(magic)) {
+				if(channel.size() > Integer.MAX_VALUE)
+					throw new IOException("Binary formula too large to map: " + inputFile);
+				BinaryCnf.read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), clauses, remainder);
+				return;
+			}
+			else if(magic.remaining() >= 2 && (magic.get(0) & 0xff) == 0x1f && (magic.get(1) & 0xff) == 0x8b) {
+				try (InputStream in = new GZIPInputStream(new FileInputStream(inputFile), BUFFER)) {
+					readChunks(in);
+				}
+			}
+			else if(magic.remaining() == 6 && (magic.get(0) & 0xff) == 0xfd && magic.get(1) == '7' && magic.get(2) == 'z'
+					&& magic.get(3) == 'X' && magic.get(4) == 'Z' && magic.get(5) == 0) {
+				readXz(inputFile);
+			}
+			else {
+				long size = channel.size();
+				for(long offset = 0; offset < size; offset += WINDOW)
+					parse(channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(WINDOW, size - offset)));
+			}
+		}
+		finish();
+	}
+
+	/**
+	 * Reads uncompressed text in the front end format or in DIMACS CNF from a stream, e.g. a job sent to the solver
+	 * daemon.
+	 * @param in read to its end, not closed.
+	 * @throws IOException if the stream cannot be read or is malformed.
+	 */
+	public void read(InputStream in) throws IOException {
+		readChunks(in);
+		finish();
+	}
+
+	/**
+	 * Reads an xz compressed file through the xz command, since the JDK has no xz decoder.
+	 * @param inputFile
+	 * @throws IOException if xz is not available or fails.
+	 */
+	private void readXz(File inputFile) throws IOException {
+		Process process = new ProcessBuilder("xz", "-dc", inputFile.getPath()).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+		try (InputStream in = process.getInputStream()) {
+			readChunks(in);
+		}
+		try {
+			if(process.waitFor() != 0)
+				throw new IOException("xz failed to decompress " + inputFile);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while decompressing " + inputFile, e);
+		}
+	}
+
+	/**
+	 * Reads a stream chunk by chunk.
+	 * @param in
+	 * @throws IOException
+	 */
+	private void readChunks(InputStream in) throws IOException {
+		byte[] buffer = new byte[BUFFER];
+		int n;
+		while((n = in.read(buffer)) > 0)
+			parse(ByteBuffer.wrap(buffer, 0, n));
+	}
+
+	/**
+	 * Parses a chunk of the input. Literals and lines may span chunks.
+	 * @param buffer
+	 * @throws IOException if the input is malformed.
+	 */
+	private void parse(ByteBuffer buffer) throws IOException {
+		while(buffer.hasRemaining() && !ended) {
+			byte b = buffer.get();
+			position++;
+			if(inRemainder || line != null) {
+				if(b == '\n')
+					endLine();
+				else if(b != '\r')
+					line.write(b);
+				continue;
+			}
+			if(inComment) {
+				if(b == '\n')
+					endLine();
+				continue;
+			}
+			if(b >= '0' && b <= '9') {
+				number = 10 * number + (b - '0');
+				if(number > Integer.MAX_VALUE)
+					throw new IOException("Literal out of range at byte " + position);
+				inNumber = true;
+				atLineStart = false;
+			}
+			else if(b == '-' && !inNumber) {
+				negative = true;
+				atLineStart = false;
+			}
+			else if(b == ' ' || b == '\t' || b == '\r')
+				endNumber();
+			else if(b == '\n') {
+				endNumber();
+				endLine();
+			}
+			else if(atLineStart && b == 'c')
+				inComment = true;
+			else if(atLineStart && b == 'p') {
+				line = new ByteArrayOutputStream();
+				line.write('p');
+				atLineStart = false;
+			}
+			else if(atLineStart && b == '%' && dimacs)
+				ended = true;
+			else
+				throw new IOException("Unexpected character '" + (char) (b & 0xff) + "' at byte " + position);
+		}
+	}
+
+	/**
+	 * Adds the literal just read to the current clause.
+	 * @throws IOException if a sign is not followed by digits.
+	 */
+	private void endNumber() throws IOException {
+		if(!inNumber) {
+			if(negative)
+				throw new IOException("Sign without literal at byte " + position);
+			return;
+		}
+		int literal = negative ? (int) -number : (int) number;
+		inNumber = false;
+		negative = false;
+		number = 0;
+		if(literal != 0) {
+			if(!clauseOpen) {
+				clauses.startClause();
+				clauseOpen = true;
+			}
+			clauses.addLiteral(literal);
+		}
+		else if(dimacs) {
+			if(!clauseOpen)
+				clauses.startClause();
+			clauses.endClause(0);
+			clauseOpen = false;
+		}
+		else if(!clauseOpen)
+			separatorOnLine = true;
+	}
+
+	/**
+	 * Handles the end of a line. In the front end format every line is a clause, and a line holding only 0
+	 * ends the clauses.
+	 */
+	private void endLine() throws IOException {
+		if(line != null) {
+			if(inRemainder)
+				remainder.add(line.toString(StandardCharsets.UTF_8));
+			else
+				readHeader(line.toString(StandardCharsets.UTF_8));
+			line = inRemainder ? new ByteArrayOutputStream() : null;
+		}
+		else if(!dimacs && !inComment) {
+			if(clauseOpen) {
+				clauses.endClause(0);
+				clauseOpen = false;
+			}
+			else if(separatorOnLine) {
+				remainder.add("0");
+				inRemainder = true;
+				line = new ByteArrayOutputStream();
+			}
+		}
+		separatorOnLine = false;
+		inComment = false;
+		atLineStart = true;
+	}
+
+	/**
+	 * Reads a DIMACS "p cnf variables clauses" header.
+	 * @param header
+	 * @throws IOException if the header is malformed.
+	 */
+	private void readHeader(String header) throws IOException {
+		String[] fields = header.trim().split("\\s+");
+		if(fields.length != 4 || !fields[0].equals("p") || !fields[1].equals("cnf"))
+			throw new IOException("Malformed header: " + header);
+		try {
+			clauses.setNoOfLiterals(Integer.parseInt(fields[2]));
+		} catch (NumberFormatException e) {
+			throw new IOException("Malformed header: " + header, e);
+		}
+		dimacs = true;
+	}
+
+	/**
+	 * Ends whatever was being read when the input ran out.
+	 * @throws IOException
+	 */
+	private void finish() throws IOException {
+		if(ended)
+			return;
+		endNumber();
+		if(inRemainder) {
+			if(line.size() > 0)
+				remainder.add(line.toString(StandardCharsets.UTF_8));
+			return;
+		}
+		if(line != null) {
+			readHeader(line.toString(StandardCharsets.UTF_8));
+			line = null;
+		}
+		if(dimacs && clauseOpen)
+			throw new IOException("Last clause is not terminated by 0");
+		if(!dimacs)
+			endLine();
+	}
+}
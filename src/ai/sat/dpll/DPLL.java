@@ -15,28 +15,280 @@ public class DPLL {
 	 * No. of literals generated by the given problem.
 	 */
 	private int noOfLiterals = 0;
+
+	/**
+	 * How bindings are propagated to the clauses.
+	 */
+	private PropagationMode propagationMode = PropagationMode.WATCHED;
+
+	/**
+	 * Picks the literal to branch on when propagating with watched literals.
+	 */
+	private BranchingHeuristic heuristic;
+
+	/**
+	 * Set from another thread to stop the search.
+	 */
+	private volatile boolean cancelled = false;
+
+	/**
+	 * Counts what the search does, or null if nothing is counted.
+	 */
+	private SolverStatistics statistics = null;
+
+	/**
+	 * Limits the search, or null if it runs until it finishes or is cancelled.
+	 */
+	private SolveBudget budget = null;
+
+	/**
+	 * No. of times this solver checked its budget, kept across searches so that the clock is read as often however
+	 * short the searches are, e.g. those of the cubes of parallel.
+	 */
+	private long noOfChecks = 0;
+
+	/**
+	 * No. of decisions and conflicts of the reference search so far, checked against the budget.
+	 */
+	private long referenceDecisions = 0;
+	private long referenceConflicts = 0;
+
+	/**
+	 * No. of bindings and of those implied by unit clauses in the reference search, counted on from the statistics.
+	 */
+	private long referencePropagations = 0;
+	private long referenceUnitBindings = 0;
 	
 	public DPLL(int noOfLiterals) {
+		this(noOfLiterals, PropagationMode.WATCHED);
+	}
+
+	public DPLL(int noOfLiterals, PropagationMode propagationMode) {
+		this(noOfLiterals, propagationMode, new StaticOrderHeuristic());
+	}
+
+	public DPLL(int noOfLiterals, PropagationMode propagationMode, BranchingHeuristic heuristic) {
 		this.noOfLiterals = noOfLiterals;
+		this.propagationMode = propagationMode;
+		this.heuristic = heuristic;
+	}
+
+	/**
+	 * Counts what the search does in a set of statistics from now on. The reference search counts every binding it
+	 * makes, including decisions, as a propagation.
+	 * @param statistics null to stop counting.
+	 */
+	public void setStatistics(SolverStatistics statistics) {
+		this.statistics = statistics;
+	}
+
+	/**
+	 * Limits the search by a budget from now on. A search stopped by its budget returns false
+	 * and is then cancelled.
+	 * @param budget null for no limit.
+	 */
+	public void setBudget(SolveBudget budget) {
+		this.budget = budget;
+	}
+
+	/**
+	 * Stops the search, which then returns false. May be called from any thread.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * Returns whether the search was cancelled or stopped by its budget. A false result of a cancelled search says nothing about the problem.
+	 * @return boolean
+	 */
+	public boolean isCancelled() {
+		return cancelled;
 	}
 
 	/**
 	 * Applies the DPLL algorithm on a set of clauses and bindings generated.
 	 * @param clauses
+	 * @param bindings UNBOUND, TRUE or FALSE for every variable. Bound variables are kept and the satisfying
+	 * valuation, if any, is written back.
+	 * @return boolean whether a satisfiable valuation is possible or not.
+	 */
+	public boolean solve(ClauseArena clauses, byte[] bindings) {
+		if(propagationMode == PropagationMode.REFERENCE) {
+			//The reference procedure works on boxed copies of the clauses and bindings.
+			Map<Integer, Boolean> referenceBindings = new HashMap<Integer, Boolean>();
+			for(int x = 1; x <= noOfLiterals; x++) {
+				if(bindings[x] != WatchedLiteralPropagator.UNBOUND)
+					referenceBindings.put(x, bindings[x] == WatchedLiteralPropagator.TRUE);
+			}
+			referenceDecisions = 0;
+			referenceConflicts = 0;
+			referencePropagations = statistics != null ? statistics.getPropagations() : 0;
+			referenceUnitBindings = statistics != null ? statistics.getUnitBindings() : 0;
+			boolean satisfiable = solveReference(clauses.toLists(), referenceBindings, 0);
+			if(statistics != null)
+				statistics.setPropagations(referencePropagations, referenceUnitBindings);
+			if(!satisfiable)
+				return false;
+			for(Integer x : referenceBindings.keySet())
+				bindings[x] = referenceBindings.get(x) ? WatchedLiteralPropagator.TRUE : WatchedLiteralPropagator.FALSE;
+			return true;
+		}
+
+		WatchedLiteralPropagator propagator = new WatchedLiteralPropagator(noOfLiterals, clauses);
+		propagator.setBranchingHeuristic(heuristic);
+		for(int x = 1; x <= noOfLiterals; x++) {
+			if(bindings[x] != WatchedLiteralPropagator.UNBOUND)
+				propagator.assign(bindings[x] == WatchedLiteralPropagator.TRUE ? x : -x);
+		}
+		if(solve(propagator)) {
+			propagator.getBindings(bindings);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Applies the DPLL algorithm using two watched literals for propagation.
+	 * The clauses are shared by the whole search and every branch is undone from the trail on backtracking,
+	 * so nothing is copied per branch. The search is a loop over an explicit stack of decisions rather than a
+	 * recursion, so its depth is bounded by the no. of literals and not by the size of the thread stack.
+	 * Bindings made before the call, e.g. the literals of a cube, are kept and only decisions made by the search
+	 * are undone.
+	 * @param propagator
+	 * @return boolean whether a satisfiable valuation is possible or not.
+	 */
+	boolean solve(WatchedLiteralPropagator propagator) {
+		if(statistics == null)
+			return search(propagator, 0, 0);
+		//Bindings propagated before this search, so that the statistics count on from where they were.
+		long propagationOffset = statistics.getPropagations() - propagator.getNoOfPropagations();
+		long unitOffset = statistics.getUnitBindings() - propagator.getNoOfUnitBindings();
+		boolean satisfiable = search(propagator, propagationOffset, unitOffset);
+		statistics.setPropagations(propagationOffset + propagator.getNoOfPropagations(), unitOffset + propagator.getNoOfUnitBindings());
+		return satisfiable;
+	}
+
+	/**
+	 * Runs the search of solve.
+	 * @param propagator
+	 * @param propagationOffset added to the no. of bindings propagated by the propagator to give the no. counted by the
+	 * statistics.
+	 * @param unitOffset added to the no. of bindings implied by unit clauses in the propagator to give the no. counted
+	 * by the statistics.
+	 * @return boolean whether a satisfiable valuation is possible or not.
+	 */
+	private boolean search(WatchedLiteralPropagator propagator, long propagationOffset, long unitOffset) {
+		int baseLevel = propagator.getDecisionLevel();
+		//Literal bound by every decision on the stack and whether it is already the second value tried.
+		int[] decisions = new int[noOfLiterals + 1];
+		boolean[] flipped = new boolean[noOfLiterals + 1];
+		int depth = 0;
+		long noOfDecisions = 0;
+		long noOfConflicts = 0;
+		while(!cancelled) {
+			//Check for easy cases.
+			boolean conflict = false;
+			do {
+				if(propagator.hasConflict()) {
+					conflict = true;
+					break;
+				}
+			} while (resolveEasyCases(propagator));
+
+			if(conflict) {
+				noOfConflicts++;
+				if(statistics != null)
+					statistics.recordConflict(propagationOffset + propagator.getNoOfPropagations(),
+							unitOffset + propagator.getNoOfUnitBindings());
+				if(budget != null && budget.isExhausted(noOfDecisions, noOfConflicts, ++noOfChecks)) {
+					cancelled = true;
+					break;
+				}
+				bumpConflict(propagator);
+				//Drop the decisions for which both values have been tried.
+				while(depth > 0 && flipped[depth - 1])
+					depth--;
+				//Return false if neither true nor false can be bound to the first decision.
+				if(depth == 0) {
+					propagator.backtrack(baseLevel);
+					return false;
+				}
+				//Undo the bindings made since the last decision and bind its variable the other way.
+				propagator.backtrack(baseLevel + depth - 1);
+				if(statistics != null)
+					statistics.recordBacktrack();
+				propagator.newDecisionLevel();
+				decisions[depth - 1] = -decisions[depth - 1];
+				flipped[depth - 1] = true;
+				propagator.assign(decisions[depth - 1]);
+				continue;
+			}
+
+			//Pick an unbound literal that can be binded. All clauses are satisfied once every literal is bound.
+			int i = heuristic.pickBranchLiteral(propagator);
+			if(i == 0)
+				return true;
+			noOfDecisions++;
+			if(budget != null && budget.isExhausted(noOfDecisions, noOfConflicts, ++noOfChecks)) {
+				cancelled = true;
+				break;
+			}
+			//Bind it on a new decision level.
+			decisions[depth] = i;
+			flipped[depth] = false;
+			depth++;
+			if(statistics != null)
+				statistics.recordDecision(depth, propagationOffset + propagator.getNoOfPropagations(),
+						unitOffset + propagator.getNoOfUnitBindings());
+			propagator.newDecisionLevel();
+			propagator.assign(i);
+		}
+		return false;
+	}
+
+	/**
+	 * Bumps the variables of the clause that caused the last conflict in the branching heuristic.
+	 * @param propagator
+	 */
+	private void bumpConflict(WatchedLiteralPropagator propagator) {
+		int size = propagator.getConflictSize();
+		if(size == 0)
+			return;
+		for(int j = 0; j < size; j++)
+			heuristic.bump(Math.abs(propagator.getConflictLiteral(j)));
+		heuristic.decay();
+	}
+
+	/**
+	 * Applies the original DPLL algorithm which copies the clauses and bindings at every branch.
+	 * @param clauses
 	 * @param bindings
+	 * @param depth no. of decisions made before this one.
 	 * @return boolean whether a satisfiable valuation is possible or not.
 	 */
-	public boolean solve(List<List<Integer>> clauses, Map<Integer, Boolean> bindings) {
+	private boolean solveReference(List<List<Integer>> clauses, Map<Integer, Boolean> bindings, int depth) {
 		//Check for easy cases.
 		do {
 			if(clauses.size() == 0)
 				return true;
 			for(List<Integer> clause : clauses) {
-				if(clause.size()==0)
+				if(clause.size()==0) {
+					referenceConflicts++;
+					if(statistics != null)
+						statistics.recordConflict(referencePropagations, referenceUnitBindings);
+					isReferenceStopped();
 					return false;
+				}
 			}			
 		} while (resolveEasyCases(clauses, bindings));
 
+		referenceDecisions++;
+		if(isReferenceStopped())
+			return false;
+		if(statistics != null)
+			statistics.recordDecision(depth + 1, referencePropagations, referenceUnitBindings);
+
 		//Create a copy of the clauses and their bindings.
 		List<List<Integer>> clausesCopy = new ArrayList<List<Integer>>();
 		for(int j = 0; j < clauses.size(); j++) {
@@ -56,11 +308,15 @@ public class DPLL {
 			}
 		}
 		//Bind it with true and check if a satisfying valuation is found
-		if(solve(clausesCopy,bindingsCopy)) {
+		if(solveReference(clausesCopy,bindingsCopy, depth + 1)) {
 			bindings.putAll(bindingsCopy);
 			return true;
 		}
 
+		if(cancelled)
+			return false;
+		if(statistics != null)
+			statistics.recordBacktrack();
 		//If not try binding the same variable with false by creating another copy of clauses and bindings.
 		clausesCopy = new ArrayList<List<Integer>>();
 		for(int j = 0; j < clauses.size(); j++) {
@@ -72,7 +328,7 @@ public class DPLL {
 		bindingsCopy.putAll(bindings);
 		propagate(clausesCopy,bindingsCopy,Math.abs(i),false);
 		//Check if this new binding gives a satisfying valuation.
-		if(solve(clausesCopy,bindingsCopy)) {
+		if(solveReference(clausesCopy,bindingsCopy, depth + 1)) {
 			bindings.putAll(bindingsCopy);
 			return true;
 		}
@@ -80,6 +336,16 @@ public class DPLL {
 		return false;
 	}
 
+	/**
+	 * Checks whether the reference search was cancelled, cancelling it once its budget is exhausted.
+	 * @return boolean whether the search must stop.
+	 */
+	private boolean isReferenceStopped() {
+		if(budget != null && budget.isExhausted(referenceDecisions, referenceConflicts, ++noOfChecks))
+			cancelled = true;
+		return cancelled;
+	}
+
 	/**
 	 * Resolves the easy cases in the dpll algorithm corresponding to the singleton clause and pure literal.
 	 * @param clauses
@@ -92,6 +358,7 @@ public class DPLL {
 		for(int i = 0; i < clauses.size(); i++) {
 			if(clauses.get(i).size()==1) {
 				easyCaseFound = true;
+				referenceUnitBindings++;
 				if(clauses.get(i).get(0) < 0)
 					i = Math.max(0, i - propagate(clauses, bindings, Math.abs(clauses.get(i).get(0).intValue()), false));
 				else
@@ -121,6 +388,8 @@ public class DPLL {
 				}
 			}
 			if(isPureLiteral && literalFoundFlag) {
+				if(statistics != null)
+					statistics.recordPureLiterals(1);
 				if(possiblePureLiteral < 0)
 					propagate(clauses, bindings, Math.abs(possiblePureLiteral), false);
 				else
@@ -131,6 +400,21 @@ public class DPLL {
 		return easyCaseFound;
 	}
 
+	/**
+	 * Resolves the easy cases using the watched literal propagator. Singleton clauses are already bound as part of
+	 * propagation so only pure literals are left to find.
+	 * @param propagator
+	 * @return boolean whether an easy case was found in this method run or not.
+	 */
+	private boolean resolveEasyCases(WatchedLiteralPropagator propagator) {
+		int[] pureLiterals = propagator.findPureLiterals();
+		for(int pureLiteral : pureLiterals)
+			propagator.assign(pureLiteral);
+		if(statistics != null)
+			statistics.recordPureLiterals(pureLiterals.length);
+		return pureLiterals.length > 0;
+	}
+
 	/**
 	 * Adds a new binding as specified. Propagates the changes made by the binding to the list of clauses.
 	 * @param clauses
@@ -141,6 +425,7 @@ public class DPLL {
 	 */
 	private int propagate(List<List<Integer>> clauses, Map<Integer, Boolean> bindings, int A, boolean V) {
 		bindings.put(A, V);
+		referencePropagations++;
 		int noOfClausesDeleted = 0;
 		for(int i = 0; i < clauses.size(); i++) {
 			for(int j = 0; j < clauses.get(i).size(); j++) {
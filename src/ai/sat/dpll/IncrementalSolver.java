@@ -0,0 +1,165 @@
+package ai.sat.dpll;
+
+import java.util.Arrays;
+
+/**
+ * Solves a problem repeatedly as clauses are added and under changing assumptions, e.g. the same maze with another
+ * start node or with one treasure less. The clauses, the learnt clauses and the branching activities are kept from
+ * one call to the next, so a follow-up query only searches the part of the problem that changed.
+ * Assumptions are literals that only hold for one call. When the problem is unsatisfiable under them, the
+ * assumptions responsible can be asked for.
+ * @author kps9907
+ *
+ */
+public class IncrementalSolver implements ClauseSink {
+	/**
+	 * No. of variables of the problem so far.
+	 */
+	private int noOfLiterals = 0;
+
+	/**
+	 * Propagator holding every clause added and learnt.
+	 */
+	private WatchedLiteralPropagator propagator;
+
+	/**
+	 * Branching heuristic kept across calls.
+	 */
+	private VSIDSHeuristic heuristic;
+
+	/**
+	 * Search run on every call.
+	 */
+	private CDCL cdcl;
+
+	/**
+	 * Result of the last call to solve.
+	 */
+	private boolean satisfiable = false;
+
+	/**
+	 * Starts with no clauses.
+	 */
+	public IncrementalSolver() {
+		this(new ClauseArena());
+	}
+
+	/**
+	 * Starts with a set of clauses.
+	 * @param clauses
+	 */
+	public IncrementalSolver(ClauseArena clauses) {
+		this.noOfLiterals = clauses.getNoOfLiterals();
+		this.propagator = new WatchedLiteralPropagator(noOfLiterals, clauses);
+		this.heuristic = new VSIDSHeuristic(noOfLiterals);
+		this.cdcl = new CDCL(noOfLiterals, heuristic);
+	}
+
+	/**
+	 * Adds a clause, which holds for every later call. Variables not seen before are added to the problem.
+	 * @param literals
+	 */
+	public void addClause(int... literals) {
+		int highest = 0;
+		for(int literal : literals) {
+			if(literal == 0)
+				throw new IllegalArgumentException("0 is not a literal");
+			highest = Math.max(highest, Math.abs(literal));
+		}
+		propagator.backtrack(0);
+		addVariables(highest);
+		propagator.addInputClause(literals);
+		satisfiable = false;
+	}
+
+	/**
+	 * Adds a clause given by the first literals of an array, which holds for every later call.
+	 * @param literals
+	 * @param length no. of literals to take from the start of the array.
+	 */
+	@Override
+	public void addClause(int[] literals, int length) {
+		addClause(Arrays.copyOf(literals, length));
+	}
+
+	/**
+	 * Searches for a satisfying valuation of the clauses added so far in which every assumption is true.
+	 * @param assumptions
+	 * @return boolean whether such a valuation exists or not.
+	 */
+	public boolean solve(int... assumptions) {
+		int highest = 0;
+		int[] distinct = new int[assumptions.length];
+		int noOfDistinct = 0;
+		for(int assumption : assumptions) {
+			if(assumption == 0)
+				throw new IllegalArgumentException("0 is not a literal");
+			highest = Math.max(highest, Math.abs(assumption));
+			boolean duplicate = false;
+			for(int i = 0; i < noOfDistinct && !duplicate; i++)
+				duplicate = distinct[i] == assumption;
+			if(!duplicate)
+				distinct[noOfDistinct++] = assumption;
+		}
+		propagator.backtrack(0);
+		addVariables(highest);
+		satisfiable = cdcl.solve(propagator, Arrays.copyOf(distinct, noOfDistinct));
+		return satisfiable;
+	}
+
+	/**
+	 * Returns the value of a variable in the valuation found by the last call to solve.
+	 * @param variable
+	 * @return byte TRUE or FALSE.
+	 * @throws IllegalStateException if the last call did not find a valuation or clauses were added since.
+	 */
+	public byte getValue(int variable) {
+		if(!satisfiable)
+			throw new IllegalStateException("No satisfying valuation");
+		return propagator.value(variable);
+	}
+
+	/**
+	 * Copies the valuation found by the last call to solve.
+	 * @param bindings receives TRUE or FALSE for every variable.
+	 * @throws IllegalStateException if the last call did not find a valuation or clauses were added since.
+	 */
+	public void getBindings(byte[] bindings) {
+		if(!satisfiable)
+			throw new IllegalStateException("No satisfying valuation");
+		propagator.getBindings(bindings);
+	}
+
+	/**
+	 * Returns a subset of the assumptions of the last call to solve which cannot all be true together.
+	 * Empty if the clauses are unsatisfiable whatever the assumptions.
+	 * @return int[]
+	 * @throws IllegalStateException if the last call found a valuation.
+	 */
+	public int[] getFailedAssumptions() {
+		if(satisfiable)
+			throw new IllegalStateException("The last call was satisfiable");
+		return cdcl.getFailedAssumptions();
+	}
+
+	/**
+	 * Returns the no. of variables of the problem so far.
+	 * @return int
+	 */
+	public int getNoOfLiterals() {
+		return noOfLiterals;
+	}
+
+	/**
+	 * Adds variables up to a given one to the propagator, the heuristic and the search.
+	 * @param highest
+	 */
+	private void addVariables(int highest) {
+		if(highest <= noOfLiterals)
+			return;
+		noOfLiterals = highest;
+		propagator.addVariables(noOfLiterals);
+		heuristic.addVariables(noOfLiterals);
+		cdcl.addVariables(noOfLiterals);
+	}
+}
@@ -0,0 +1,284 @@
+package ai.sat.dpll;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * Runs the DPLL search in parallel by splitting the search tree into cubes, i.e. the conjunctions of the decisions
+ * leading to its subtrees, and solving the cubes as tasks on a work stealing fork join pool.
+ * Up to the cutoff depth every task branches on one more variable and forks a task for each of its two values.
+ * Below it, a task solves its cube with the sequential DPLL search. Each thread of the pool keeps its own
+ * propagator, which is backtracked and loaded with the cube of every task it runs, so the clauses are never copied
+ * per task. The first task to find a satisfying valuation cancels all the others.
+ * @author kps9907
+ *
+ */
+public class ParallelDPLL {
+	/**
+	 * Propagator and sequential search owned by one thread of the pool.
+	 */
+	private class Worker {
+		private WatchedLiteralPropagator propagator;
+		private BranchingHeuristic heuristic;
+		private DPLL dpll;
+
+		private Worker() {
+			this.heuristic = heuristics.get();
+			this.propagator = new WatchedLiteralPropagator(noOfLiterals, clauses);
+			this.propagator.setBranchingHeuristic(heuristic);
+			for(int x = 1; x <= noOfLiterals; x++) {
+				if(initialBindings[x] != WatchedLiteralPropagator.UNBOUND)
+					propagator.assign(initialBindings[x] == WatchedLiteralPropagator.TRUE ? x : -x);
+			}
+			this.dpll = new DPLL(noOfLiterals, PropagationMode.WATCHED, heuristic);
+			this.dpll.setBudget(budget);
+			if(statistics != null)
+				this.dpll.setStatistics(statistics.newWorkerStatistics());
+			//Registered before checking so that either this check or the one finding the solution cancels it.
+			workers.add(this);
+			if(solved)
+				dpll.cancel();
+		}
+
+		/**
+		 * Undoes the previous cube and binds the literals of a new one, then resolves the easy cases.
+		 * @param cube
+		 * @return boolean false if a conflict was found.
+		 */
+		private boolean load(int[] cube) {
+			propagator.backtrack(0);
+			if(propagator.hasConflict())
+				return false;
+			propagator.newDecisionLevel();
+			for(int literal : cube) {
+				if(!propagator.assign(literal))
+					return false;
+			}
+			for(int[] pureLiterals = propagator.findPureLiterals(); pureLiterals.length > 0; pureLiterals = propagator.findPureLiterals()) {
+				for(int pureLiteral : pureLiterals) {
+					if(!propagator.assign(pureLiteral))
+						return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * Task solving the subtree below a cube.
+	 */
+	private class CubeTask extends RecursiveTask<byte[]> {
+		private static final long serialVersionUID = 1L;
+
+		private int[] cube;
+
+		private CubeTask(int[] cube) {
+			this.cube = cube;
+		}
+
+		/**
+		 * @return byte[] a satisfying valuation extending the cube or null if there is none or the task was cancelled.
+		 */
+		@Override
+		protected byte[] compute() {
+			if(solved || budget != null && budget.isExhausted())
+				return null;
+			Worker worker = workerOfThread.get();
+			if(!worker.load(cube))
+				return null;
+			if(cube.length >= cutoffDepth)
+				return solveSequentially(worker);
+
+			int literal = worker.heuristic.pickBranchLiteral(worker.propagator);
+			if(literal == 0)
+				return found(worker);
+			//Picking took the variable out of the heuristic, which is given it back since this thread may not run the
+			//tasks that bind it.
+			worker.heuristic.unbound(literal);
+
+			int[] first = Arrays.copyOf(cube, cube.length + 1);
+			first[cube.length] = literal;
+			int[] second = Arrays.copyOf(cube, cube.length + 1);
+			second[cube.length] = -literal;
+			CubeTask secondTask = new CubeTask(second);
+			secondTask.fork();
+			byte[] result = new CubeTask(first).compute();
+			if(result != null) {
+				secondTask.cancel(false);
+				return result;
+			}
+			return secondTask.join();
+		}
+
+		/**
+		 * Solves the loaded cube with the sequential DPLL search.
+		 * @param worker
+		 * @return byte[] a satisfying valuation or null.
+		 */
+		private byte[] solveSequentially(Worker worker) {
+			if(!worker.dpll.solve(worker.propagator))
+				return null;
+			return found(worker);
+		}
+
+		/**
+		 * Records the valuation of the worker as the solution and cancels every other search.
+		 * @param worker
+		 * @return byte[] the valuation.
+		 */
+		private byte[] found(Worker worker) {
+			byte[] bindings = new byte[noOfLiterals + 1];
+			worker.propagator.getBindings(bindings);
+			solved = true;
+			for(Worker other : workers)
+				other.dpll.cancel();
+			return bindings;
+		}
+	}
+
+	/**
+	 * No. of literals generated by the given problem.
+	 */
+	private int noOfLiterals = 0;
+
+	/**
+	 * Creates a branching heuristic for every thread.
+	 */
+	private Supplier<BranchingHeuristic> heuristics;
+
+	/**
+	 * No. of threads of the pool.
+	 */
+	private int parallelism;
+
+	/**
+	 * No. of decisions in a cube below which its subtree is solved sequentially.
+	 */
+	private int cutoffDepth;
+
+	/**
+	 * Clauses being solved. Read by every worker, never modified.
+	 */
+	private ClauseArena clauses;
+
+	/**
+	 * Bindings given to solve, bound by every worker before the cubes.
+	 */
+	private byte[] initialBindings;
+
+	/**
+	 * Worker of every thread of the pool, created on first use.
+	 */
+	private ThreadLocal<Worker> workerOfThread;
+
+	/**
+	 * Every worker created, to cancel their searches.
+	 */
+	private Queue<Worker> workers;
+
+	/**
+	 * Set once a satisfying valuation is found or the search is interrupted, so that the remaining tasks stop.
+	 */
+	private volatile boolean solved = false;
+
+	/**
+	 * Limits the sequential search of every cube, or null for no limit.
+	 */
+	private SolveBudget budget = null;
+
+	/**
+	 * Statistics to which the search of every thread adds its own, or null when not counting.
+	 */
+	private SolverStatistics statistics = null;
+
+	/**
+	 * Uses one thread per available processor and a cutoff depth giving about 16 cubes per thread.
+	 * @param noOfLiterals
+	 * @param heuristics
+	 */
+	public ParallelDPLL(int noOfLiterals, Supplier<BranchingHeuristic> heuristics) {
+		this(noOfLiterals, heuristics, Runtime.getRuntime().availableProcessors(), -1);
+	}
+
+	/**
+	 * @param noOfLiterals
+	 * @param heuristics creates a branching heuristic for every thread.
+	 * @param parallelism no. of threads.
+	 * @param cutoffDepth no. of decisions in a cube below which it is solved sequentially. A negative value picks
+	 * a depth giving about 16 cubes per thread.
+	 */
+	public ParallelDPLL(int noOfLiterals, Supplier<BranchingHeuristic> heuristics, int parallelism, int cutoffDepth) {
+		this.noOfLiterals = noOfLiterals;
+		this.heuristics = heuristics;
+		this.parallelism = Math.max(parallelism, 1);
+		this.cutoffDepth = cutoffDepth >= 0 ? cutoffDepth : 32 - Integer.numberOfLeadingZeros(this.parallelism - 1) + 4;
+	}
+
+	/**
+	 * Limits the search by a budget. Once it is exhausted the remaining cubes are skipped. The decision and conflict
+	 * limits apply to the search of each cube.
+	 * @param budget null for no limit.
+	 */
+	public void setBudget(SolveBudget budget) {
+		this.budget = budget;
+	}
+
+	/**
+	 * Counts the search of every thread in statistics of its own, added to the given ones. The propagations binding
+	 * the cubes are not counted.
+	 * @param statistics null to stop counting.
+	 */
+	public void setStatistics(SolverStatistics statistics) {
+		this.statistics = statistics;
+	}
+
+	/**
+	 * Applies the DPLL algorithm in parallel on a set of clauses and bindings generated.
+	 * @param clauses
+	 * @param bindings UNBOUND, TRUE or FALSE for every variable. Bound variables are kept and the satisfying
+	 * valuation, if any, is written back.
+	 * @return boolean whether a satisfiable valuation is possible or not. False if the budget is exhausted first or
+	 * the calling thread is interrupted, which then exhausts the budget.
+	 * @throws IllegalStateException if the calling thread is interrupted without a budget.
+	 */
+	public boolean solve(ClauseArena clauses, byte[] bindings) {
+		this.clauses = clauses;
+		this.initialBindings = bindings.clone();
+		this.workerOfThread = ThreadLocal.withInitial(Worker::new);
+		this.workers = new ConcurrentLinkedQueue<Worker>();
+		this.solved = false;
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			//Waits with get rather than invoke, which would clear the interrupt status of this thread and go on.
+			ForkJoinTask<byte[]> task = pool.submit(new CubeTask(new int[0]));
+			byte[] result = task.get();
+			if(result == null)
+				return false;
+			System.arraycopy(result, 0, bindings, 0, bindings.length);
+			return true;
+		} catch (InterruptedException e) {
+			solved = true;
+			for(Worker worker : workers)
+				worker.dpll.cancel();
+			Thread.currentThread().interrupt();
+			if(budget == null)
+				throw new IllegalStateException("Interrupted while waiting for the parallel search", e);
+			budget.interrupt();
+			return false;
+		} catch (ExecutionException e) {
+			if(e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			if(e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+}
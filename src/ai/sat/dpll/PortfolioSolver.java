@@ -0,0 +1,167 @@
+package ai.sat.dpll;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs several differently configured CDCL solvers on the same problem in parallel, one per thread.
+ * The solvers differ in the initial phase of the variables and in the random seed used to order the variables
+ * before the first conflicts. The first solver to finish gives the result and the others are cancelled.
+ * Optionally, the solvers share their short learnt clauses through a lock free clause exchange.
+ * @author kps9907
+ *
+ */
+public class PortfolioSolver {
+	/**
+	 * No. of clauses kept in the clause exchange.
+	 */
+	private static final int EXCHANGE_CAPACITY = 1 << 14;
+
+	/**
+	 * Longest learnt clause shared between the solvers.
+	 */
+	private static final int MAX_SHARED_SIZE = 8;
+
+	/**
+	 * No. of literals generated by the given problem.
+	 */
+	private int noOfLiterals = 0;
+
+	/**
+	 * No. of solvers run in parallel.
+	 */
+	private int noOfWorkers;
+
+	/**
+	 * Whether the solvers share their short learnt clauses.
+	 */
+	private boolean shareClauses;
+
+	/**
+	 * Limits every solver, or null for no limit.
+	 */
+	private SolveBudget budget = null;
+
+	/**
+	 * Statistics to which every solver adds its own, or null when not counting.
+	 */
+	private SolverStatistics statistics = null;
+
+	/**
+	 * Runs one solver per available processor without sharing clauses.
+	 * @param noOfLiterals
+	 */
+	public PortfolioSolver(int noOfLiterals) {
+		this(noOfLiterals, Runtime.getRuntime().availableProcessors(), false);
+	}
+
+	public PortfolioSolver(int noOfLiterals, int noOfWorkers, boolean shareClauses) {
+		this.noOfLiterals = noOfLiterals;
+		this.noOfWorkers = Math.max(noOfWorkers, 1);
+		this.shareClauses = shareClauses;
+	}
+
+	/**
+	 * Limits the solvers by a budget, shared so that all of them stop once it is exhausted.
+	 * @param budget null for no limit.
+	 */
+	public void setBudget(SolveBudget budget) {
+		this.budget = budget;
+	}
+
+	/**
+	 * Counts what every solver does in statistics of its own, added to the given ones.
+	 * @param statistics null to stop counting.
+	 */
+	public void setStatistics(SolverStatistics statistics) {
+		this.statistics = statistics;
+	}
+
+	/**
+	 * Runs the solvers on a set of clauses and bindings generated.
+	 * @param clauses read by every solver, never modified.
+	 * @param bindings UNBOUND, TRUE or FALSE for every variable. Bound variables are kept and the satisfying
+	 * valuation, if any, is written back.
+	 * @return boolean whether a satisfiable valuation is possible or not. False if the budget is exhausted first or
+	 * the calling thread is interrupted, which then exhausts the budget.
+	 * @throws IllegalStateException if every solver failed, or if the calling thread is interrupted without a budget.
+	 */
+	public boolean solve(ClauseArena clauses, byte[] bindings) {
+		ExecutorService executor = Executors.newFixedThreadPool(noOfWorkers, runnable -> {
+			Thread thread = new Thread(runnable, "portfolio-worker");
+			thread.setDaemon(true);
+			return thread;
+		});
+		CompletionService<Integer> completionService = new ExecutorCompletionService<Integer>(executor);
+		ClauseExchange exchange = shareClauses ? new ClauseExchange(EXCHANGE_CAPACITY, MAX_SHARED_SIZE) : null;
+		List<CDCL> solvers = new ArrayList<CDCL>();
+		List<byte[]> workerBindings = new ArrayList<byte[]>();
+		for(int i = 0; i < noOfWorkers; i++) {
+			CDCL solver = new CDCL(noOfLiterals, createHeuristic(i));
+			if(exchange != null)
+				solver.setClauseExchange(exchange, i);
+			solver.setBudget(budget);
+			if(statistics != null)
+				solver.setStatistics(statistics.newWorkerStatistics());
+			byte[] copy = bindings.clone();
+			solvers.add(solver);
+			workerBindings.add(copy);
+			int worker = i;
+			completionService.submit(() -> solver.solve(clauses, copy) ? worker : -1 - worker);
+		}
+
+		try {
+			//Take the first solver which finishes normally. Solvers failing with an error are skipped.
+			for(int i = 0; i < noOfWorkers; i++) {
+				int result;
+				try {
+					result = completionService.take().get();
+				} catch (ExecutionException e) {
+					e.printStackTrace();
+					continue;
+				}
+				if(result >= 0) {
+					System.arraycopy(workerBindings.get(result), 0, bindings, 0, bindings.length);
+					return true;
+				}
+				return false;
+			}
+			throw new IllegalStateException("Every portfolio worker failed");
+		} catch (InterruptedException e) {
+			//Waiting cleared the interrupt status the solvers check, so it is passed on through the budget instead.
+			Thread.currentThread().interrupt();
+			if(budget == null)
+				throw new IllegalStateException("Interrupted while waiting for the portfolio workers", e);
+			budget.interrupt();
+			return false;
+		} finally {
+			for(CDCL solver : solvers)
+				solver.cancel();
+			executor.shutdown();
+			try {
+				executor.awaitTermination(1, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Configures the branching heuristic of a worker. Worker 0 is the plain CDCL configuration. The others alternate
+	 * the initial phase and from worker 2 on shuffle the initial branching order with a seed of their own.
+	 * @param worker
+	 * @return BranchingHeuristic
+	 */
+	private BranchingHeuristic createHeuristic(int worker) {
+		boolean initialPhase = worker % 2 == 1;
+		Random random = worker >= 2 ? new Random(worker) : null;
+		return new VSIDSHeuristic(noOfLiterals, initialPhase, random);
+	}
+}
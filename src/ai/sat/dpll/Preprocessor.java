@@ -0,0 +1,558 @@
+package ai.sat.dpll;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Simplifies a set of clauses before it is solved, in the style of SatELite.
+ * Unit clauses are propagated, clauses subsumed by another clause are removed, clauses are strengthened by
+ * self-subsuming resolution, i.e. a literal is dropped from a clause when another clause subsumes it except for the
+ * negation of that literal, and variables are eliminated by replacing the clauses containing them with their
+ * resolvents as long as this does not increase the no. of clauses.
+ * The clauses removed by elimination are kept on a reconstruction stack, from which extendModel completes a
+ * satisfying valuation of the simplified clauses into one of the original clauses.
+ * Given a budget, the simplification stops early once it is exhausted, between two steps which each leave the
+ * clauses equivalent to the input, so the clauses simplified so far are returned.
+ * @author kps9907
+ *
+ */
+public class Preprocessor {
+	/**
+	 * Result of subsumes when the first clause neither subsumes nor strengthens the second.
+	 */
+	private static final int NOT_SUBSUMED = Integer.MIN_VALUE;
+
+	/**
+	 * Variables occurring more often than this with both signs are not eliminated.
+	 */
+	private static final int MAX_OCCURRENCES = 16;
+
+	/**
+	 * Resolvents longer than this prevent the elimination of their variable.
+	 */
+	private static final int MAX_RESOLVENT_SIZE = 20;
+
+	/**
+	 * No. of passes over the variables looking for variables to eliminate.
+	 */
+	private static final int MAX_PASSES = 3;
+
+	/**
+	 * No. of variables of the problem.
+	 */
+	private int noOfLiterals;
+
+	/**
+	 * Literals of every clause by clause id, or null for clauses removed.
+	 */
+	private List<int[]> clauses = new ArrayList<int[]>();
+
+	/**
+	 * Bit signature of every clause by clause id. A clause can only subsume another if its signature has no bit
+	 * the other lacks.
+	 */
+	private long[] signatures = new long[64];
+
+	/**
+	 * For every variable, ids of the clauses it occurs in with either sign.
+	 */
+	private int[][] occurrences;
+
+	/**
+	 * No. of clause ids used in each occurrence list.
+	 */
+	private int[] occurrenceCount;
+
+	/**
+	 * Values of the variables fixed by unit clauses. One of UNBOUND, TRUE or FALSE.
+	 */
+	private byte[] values;
+
+	/**
+	 * Marks the variables eliminated.
+	 */
+	private boolean[] eliminated;
+
+	/**
+	 * Clauses removed by eliminating a variable, with the literal of the eliminated variable first, in the order
+	 * they were removed. A clause of a single literal sets the default value of its variable.
+	 */
+	private List<int[]> reconstructionStack = new ArrayList<int[]>();
+
+	/**
+	 * Unit clauses found but not yet propagated.
+	 */
+	private Deque<Integer> unitQueue = new ArrayDeque<Integer>();
+
+	/**
+	 * Ids of the clauses added or strengthened, to check for subsumption.
+	 */
+	private Deque<Integer> subsumptionQueue = new ArrayDeque<Integer>();
+
+	/**
+	 * Marks literals while merging the clauses of a resolvent.
+	 */
+	private int[] literalStamps;
+
+	/**
+	 * Stamp used for the resolvent being merged.
+	 */
+	private int currentStamp = 0;
+
+	/**
+	 * Whether an empty clause was derived.
+	 */
+	private boolean unsatisfiable = false;
+
+	/**
+	 * Stops the simplification once exhausted, or null for no limit.
+	 */
+	private SolveBudget budget = null;
+
+	/**
+	 * No. of times the budget was checked between eliminations, spacing the readings of the clock.
+	 */
+	private long noOfChecks = 0;
+
+	public Preprocessor(int noOfLiterals) {
+		this.noOfLiterals = noOfLiterals;
+		this.occurrences = new int[noOfLiterals + 1][];
+		this.occurrenceCount = new int[noOfLiterals + 1];
+		this.values = new byte[noOfLiterals + 1];
+		this.eliminated = new boolean[noOfLiterals + 1];
+		this.literalStamps = new int[2 * noOfLiterals + 2];
+		for(int i = 0; i <= noOfLiterals; i++)
+			occurrences[i] = new int[4];
+	}
+
+	/**
+	 * Limits the simplification by a budget, already started.
+	 * @param budget null for no limit.
+	 */
+	public void setBudget(SolveBudget budget) {
+		this.budget = budget;
+	}
+
+	/**
+	 * Simplifies a set of clauses.
+	 * @param input not modified.
+	 * @return ClauseArena the simplified clauses, over the same variables. A single empty clause if the clauses
+	 * were found unsatisfiable.
+	 */
+	public ClauseArena preprocess(ClauseArena input) {
+		int[] clause = new int[16];
+		for(int i = 0; i < input.getNoOfClauses() && !unsatisfiable; i++) {
+			if(input.getSize(i) > clause.length)
+				clause = new int[input.getSize(i)];
+			for(int j = 0; j < input.getSize(i); j++)
+				clause[j] = input.getLiteral(i, j);
+			addClause(clause, input.getSize(i));
+		}
+		propagateUnits();
+		if(!isStopped())
+			subsume();
+		for(int pass = 0; pass < MAX_PASSES && !unsatisfiable && !isStopped(); pass++) {
+			if(!eliminateVariables())
+				break;
+		}
+
+		ClauseArena output = new ClauseArena();
+		if(unsatisfiable) {
+			output.startClause();
+			output.endClause(0);
+		}
+		else {
+			for(int[] literals : clauses) {
+				if(literals != null)
+					output.addClause(literals, literals.length, 0);
+			}
+		}
+		output.setNoOfLiterals(noOfLiterals);
+		return output;
+	}
+
+	/**
+	 * Completes a satisfying valuation of the simplified clauses into one of the original clauses. Variables fixed
+	 * by unit clauses get their value, unbound variables are set to true and the eliminated variables are set from
+	 * the reconstruction stack, latest elimination first.
+	 * @param bindings UNBOUND, TRUE or FALSE for every variable, completed in place.
+	 */
+	public void extendModel(byte[] bindings) {
+		for(int x = 1; x <= noOfLiterals; x++) {
+			if(values[x] != WatchedLiteralPropagator.UNBOUND)
+				bindings[x] = values[x];
+			else if(bindings[x] == WatchedLiteralPropagator.UNBOUND && !eliminated[x])
+				bindings[x] = WatchedLiteralPropagator.TRUE;
+		}
+		for(int i = reconstructionStack.size() - 1; i >= 0; i--) {
+			int[] clause = reconstructionStack.get(i);
+			boolean satisfied = false;
+			for(int j = 1; j < clause.length && !satisfied; j++)
+				satisfied = bindings[Math.abs(clause[j])] == (clause[j] > 0 ? WatchedLiteralPropagator.TRUE : WatchedLiteralPropagator.FALSE);
+			if(!satisfied)
+				bindings[Math.abs(clause[0])] = clause[0] > 0 ? WatchedLiteralPropagator.TRUE : WatchedLiteralPropagator.FALSE;
+		}
+	}
+
+	/**
+	 * Returns the no. of variables eliminated.
+	 * @return int
+	 */
+	public int getNoOfEliminatedVariables() {
+		int noOfEliminated = 0;
+		for(int x = 1; x <= noOfLiterals; x++) {
+			if(eliminated[x])
+				noOfEliminated++;
+		}
+		return noOfEliminated;
+	}
+
+	/**
+	 * Adds a clause after dropping duplicate literals and literals false under the fixed values. Tautologies and
+	 * clauses satisfied by the fixed values are ignored, and unit clauses are queued to be propagated.
+	 * @param literals
+	 * @param length no. of literals to take from the start of the array.
+	 */
+	private void addClause(int[] literals, int length) {
+		currentStamp++;
+		int[] clause = new int[length];
+		int size = 0;
+		for(int j = 0; j < length; j++) {
+			int literal = literals[j];
+			if(value(literal) == WatchedLiteralPropagator.TRUE || literalStamps[index(-literal)] == currentStamp)
+				return;
+			if(value(literal) == WatchedLiteralPropagator.FALSE || literalStamps[index(literal)] == currentStamp)
+				continue;
+			literalStamps[index(literal)] = currentStamp;
+			clause[size++] = literal;
+		}
+		if(size == 0) {
+			unsatisfiable = true;
+			return;
+		}
+		if(size == 1) {
+			unitQueue.add(clause[0]);
+			return;
+		}
+		clause = Arrays.copyOf(clause, size);
+		int id = clauses.size();
+		clauses.add(clause);
+		if(id == signatures.length)
+			signatures = Arrays.copyOf(signatures, 2 * signatures.length);
+		signatures[id] = signature(clause);
+		for(int literal : clause)
+			addOccurrence(Math.abs(literal), id);
+		subsumptionQueue.add(id);
+	}
+
+	/**
+	 * Removes a clause from the occurrence lists.
+	 * @param id
+	 */
+	private void removeClause(int id) {
+		for(int literal : clauses.get(id))
+			removeOccurrence(Math.abs(literal), id);
+		clauses.set(id, null);
+	}
+
+	/**
+	 * Drops a literal from a clause. A clause left with a single literal is removed and its literal queued as a unit.
+	 * @param id
+	 * @param literal
+	 */
+	private void strengthen(int id, int literal) {
+		int[] clause = clauses.get(id);
+		int[] strengthened = new int[clause.length - 1];
+		int size = 0;
+		for(int other : clause) {
+			if(other != literal)
+				strengthened[size++] = other;
+		}
+		removeOccurrence(Math.abs(literal), id);
+		if(strengthened.length == 1) {
+			removeClause(id);
+			unitQueue.add(strengthened[0]);
+			return;
+		}
+		clauses.set(id, strengthened);
+		signatures[id] = signature(strengthened);
+		subsumptionQueue.add(id);
+	}
+
+	/**
+	 * Fixes the literals of the queued unit clauses, removing the clauses they satisfy and dropping their negations.
+	 */
+	private void propagateUnits() {
+		while(!unitQueue.isEmpty() && !unsatisfiable) {
+			int unit = unitQueue.poll();
+			if(value(unit) == WatchedLiteralPropagator.TRUE)
+				continue;
+			if(value(unit) == WatchedLiteralPropagator.FALSE) {
+				unsatisfiable = true;
+				return;
+			}
+			int variable = Math.abs(unit);
+			values[variable] = unit > 0 ? WatchedLiteralPropagator.TRUE : WatchedLiteralPropagator.FALSE;
+			int[] ids = Arrays.copyOf(occurrences[variable], occurrenceCount[variable]);
+			for(int id : ids) {
+				int[] clause = clauses.get(id);
+				if(clause == null)
+					continue;
+				if(contains(clause, unit))
+					removeClause(id);
+				else
+					strengthen(id, -unit);
+			}
+		}
+	}
+
+	/**
+	 * Checks every queued clause against the clauses sharing its least frequent variable, removing the clauses it
+	 * subsumes and strengthening the ones it subsumes but for one negated literal.
+	 */
+	private void subsume() {
+		while(!subsumptionQueue.isEmpty() && !unsatisfiable) {
+			int id = subsumptionQueue.poll();
+			int[] clause = clauses.get(id);
+			if(clause == null)
+				continue;
+			int best = Math.abs(clause[0]);
+			for(int literal : clause) {
+				if(occurrenceCount[Math.abs(literal)] < occurrenceCount[best])
+					best = Math.abs(literal);
+			}
+			int[] ids = Arrays.copyOf(occurrences[best], occurrenceCount[best]);
+			for(int other : ids) {
+				int[] otherClause = clauses.get(other);
+				if(other == id || otherClause == null)
+					continue;
+				int result = subsumes(clause, signatures[id], otherClause, signatures[other]);
+				if(result == 0)
+					removeClause(other);
+				else if(result != NOT_SUBSUMED)
+					strengthen(other, -result);
+				//The clause itself may have been strengthened meanwhile. It is queued again in that case.
+				if(clauses.get(id) != clause)
+					break;
+			}
+			propagateUnits();
+		}
+	}
+
+	/**
+	 * Checks whether a clause subsumes another, or would if one of its literals was negated.
+	 * @param clause
+	 * @param signature signature of the clause.
+	 * @param other
+	 * @param otherSignature signature of the other clause.
+	 * @return int 0 if the clause subsumes the other, a literal of the clause whose negation can be dropped from
+	 * the other, or NOT_SUBSUMED.
+	 */
+	private int subsumes(int[] clause, long signature, int[] other, long otherSignature) {
+		if(clause.length > other.length || (signature & ~otherSignature) != 0)
+			return NOT_SUBSUMED;
+		int result = 0;
+		for(int literal : clause) {
+			if(contains(other, literal))
+				continue;
+			if(result == 0 && contains(other, -literal))
+				result = literal;
+			else
+				return NOT_SUBSUMED;
+		}
+		return result;
+	}
+
+	/**
+	 * Checks the budget between two passes.
+	 * @return boolean whether the simplification must stop.
+	 */
+	private boolean isStopped() {
+		return budget != null && budget.isExhaustedNow();
+	}
+
+	/**
+	 * Eliminates every variable whose resolvents are no more numerous than the clauses they replace, least frequent
+	 * variables first.
+	 * @return boolean whether any variable was eliminated.
+	 */
+	private boolean eliminateVariables() {
+		List<Integer> candidates = new ArrayList<Integer>();
+		for(int x = 1; x <= noOfLiterals; x++) {
+			if(!eliminated[x] && values[x] == WatchedLiteralPropagator.UNBOUND && occurrenceCount[x] > 0)
+				candidates.add(x);
+		}
+		candidates.sort((a, b) -> occurrenceCount[a] - occurrenceCount[b]);
+		boolean anyEliminated = false;
+		for(int variable : candidates) {
+			if(unsatisfiable || budget != null && budget.isExhausted(0, 0, ++noOfChecks))
+				break;
+			if(values[variable] == WatchedLiteralPropagator.UNBOUND && occurrenceCount[variable] > 0 && eliminate(variable))
+				anyEliminated = true;
+		}
+		return anyEliminated;
+	}
+
+	/**
+	 * Replaces the clauses containing a variable by their resolvents on it, unless there would be more resolvents
+	 * than clauses or a resolvent would be too long.
+	 * @param variable
+	 * @return boolean whether the variable was eliminated.
+	 */
+	private boolean eliminate(int variable) {
+		List<int[]> positive = new ArrayList<int[]>();
+		List<int[]> negative = new ArrayList<int[]>();
+		for(int i = 0; i < occurrenceCount[variable]; i++) {
+			int[] clause = clauses.get(occurrences[variable][i]);
+			if(contains(clause, variable))
+				positive.add(clause);
+			else
+				negative.add(clause);
+		}
+		if(positive.size() > MAX_OCCURRENCES && negative.size() > MAX_OCCURRENCES)
+			return false;
+
+		List<int[]> resolvents = new ArrayList<int[]>();
+		for(int[] p : positive) {
+			for(int[] n : negative) {
+				int[] resolvent = resolve(p, n, variable);
+				if(resolvent == null)
+					continue;
+				if(resolvent.length > MAX_RESOLVENT_SIZE || resolvents.size() == positive.size() + negative.size())
+					return false;
+				resolvents.add(resolvent);
+			}
+		}
+
+		//Keep the clauses of the less frequent sign, preceded by the default value of the variable.
+		boolean keepPositive = positive.size() <= negative.size();
+		for(int[] clause : keepPositive ? positive : negative)
+			reconstructionStack.add(withPivotFirst(clause, keepPositive ? variable : -variable));
+		reconstructionStack.add(new int[] {keepPositive ? -variable : variable});
+
+		int[] ids = Arrays.copyOf(occurrences[variable], occurrenceCount[variable]);
+		for(int id : ids)
+			removeClause(id);
+		eliminated[variable] = true;
+		for(int[] resolvent : resolvents)
+			addClause(resolvent, resolvent.length);
+		propagateUnits();
+		subsume();
+		return true;
+	}
+
+	/**
+	 * Resolves two clauses on a variable.
+	 * @param positive clause containing the variable.
+	 * @param negative clause containing its negation.
+	 * @param variable
+	 * @return int[] the resolvent or null if it is a tautology.
+	 */
+	private int[] resolve(int[] positive, int[] negative, int variable) {
+		currentStamp++;
+		int[] resolvent = new int[positive.length + negative.length - 2];
+		int size = 0;
+		for(int[] clause : new int[][] {positive, negative}) {
+			for(int literal : clause) {
+				if(Math.abs(literal) == variable || literalStamps[index(literal)] == currentStamp)
+					continue;
+				if(literalStamps[index(-literal)] == currentStamp)
+					return null;
+				literalStamps[index(literal)] = currentStamp;
+				resolvent[size++] = literal;
+			}
+		}
+		return Arrays.copyOf(resolvent, size);
+	}
+
+	/**
+	 * Copies a clause with a given literal moved to its first position.
+	 * @param clause
+	 * @param pivot
+	 * @return int[]
+	 */
+	private static int[] withPivotFirst(int[] clause, int pivot) {
+		int[] copy = new int[clause.length];
+		copy[0] = pivot;
+		int size = 1;
+		for(int literal : clause) {
+			if(literal != pivot)
+				copy[size++] = literal;
+		}
+		return copy;
+	}
+
+	/**
+	 * Returns the value of a literal under the fixed values.
+	 * @param literal
+	 * @return byte UNBOUND, TRUE or FALSE.
+	 */
+	private byte value(int literal) {
+		byte value = values[Math.abs(literal)];
+		return literal > 0 ? value : (byte) -value;
+	}
+
+	/**
+	 * Adds a clause id to the occurrence list of a variable.
+	 * @param variable
+	 * @param id
+	 */
+	private void addOccurrence(int variable, int id) {
+		if(occurrenceCount[variable] == occurrences[variable].length)
+			occurrences[variable] = Arrays.copyOf(occurrences[variable], 2 * occurrences[variable].length);
+		occurrences[variable][occurrenceCount[variable]++] = id;
+	}
+
+	/**
+	 * Removes a clause id from the occurrence list of a variable.
+	 * @param variable
+	 * @param id
+	 */
+	private void removeOccurrence(int variable, int id) {
+		int[] list = occurrences[variable];
+		for(int i = 0; i < occurrenceCount[variable]; i++) {
+			if(list[i] == id) {
+				list[i] = list[--occurrenceCount[variable]];
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Returns whether a clause contains a literal.
+	 * @param clause
+	 * @param literal
+	 * @return boolean
+	 */
+	private static boolean contains(int[] clause, int literal) {
+		for(int other : clause) {
+			if(other == literal)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Computes the bit signature of a clause from its variables.
+	 * @param clause
+	 * @return long
+	 */
+	private static long signature(int[] clause) {
+		long signature = 0;
+		for(int literal : clause)
+			signature |= 1L << (Math.abs(literal) & 63);
+		return signature;
+	}
+
+	/**
+	 * Maps a literal to its index in the literal stamps.
+	 * @param literal
+	 * @return int
+	 */
+	private static int index(int literal) {
+		return literal > 0 ? 2 * literal : -2 * literal + 1;
+	}
+}
@@ -0,0 +1,19 @@
+package ai.sat.dpll;
+
+/**
+ * Selects how the dpll algorithm propagates a binding to the clauses.
+ * @author kps9907
+ *
+ */
+public enum PropagationMode {
+	/**
+	 * Original behaviour. Rescans every clause on each binding and removes satisfied clauses and false literals
+	 * from copies of the clause list. Kept as a reference to compare results against.
+	 */
+	REFERENCE,
+
+	/**
+	 * Two watched literals per clause. A binding only visits the clauses that watch the literal it falsifies.
+	 */
+	WATCHED
+}
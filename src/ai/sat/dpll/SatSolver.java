@@ -2,16 +2,10 @@ package ai.sat.dpll;
 
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Scanner;
-import java.util.stream.Collectors;
 
 /**
  * Fetches the input to be fed to the DPLL Algorithm.
@@ -20,76 +14,323 @@ import java.util.stream.Collectors;
  */
 public class SatSolver {
 	/**
-	 * Stores a list of clauses to be fed to the dpll algorithm.
+	 * Stores the clauses to be fed to the dpll algorithm.
 	 */
-	private List<List<Integer>> clauses = new ArrayList<List<Integer>>();
+	private ClauseArena clauses = new ClauseArena();
 
 	/**
 	 * Stored the key to map the atoms back to their string form to be relayed further to the back end.
 	 */
 	private List<String> remainder = new ArrayList<String>();
 
+	/**
+	 * Algorithm run by solve: dpll, cdcl, portfolio or parallel.
+	 */
+	private String solver = "dpll";
+
+	/**
+	 * Branching heuristic used by solve: static or vsids. Picked according to the algorithm when null.
+	 */
+	private String heuristic = null;
+
+	/**
+	 * How bindings are propagated by dpll.
+	 */
+	private PropagationMode propagationMode = PropagationMode.WATCHED;
+
+	/**
+	 * File the clauses are read from by main instead of dpll_input.txt, if any.
+	 */
+	private String input = null;
+
+	/**
+	 * File to which main also writes the clauses read in binary format, if any.
+	 */
+	private String binaryOutput = null;
+
+	/**
+	 * No. of solvers run by portfolio or no. of threads used by parallel.
+	 */
+	private int noOfWorkers = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Whether the portfolio solvers share their short learnt clauses.
+	 */
+	private boolean shareClauses = false;
+
+	/**
+	 * No. of decisions after which parallel solves a cube sequentially. Picked from the no. of threads when negative.
+	 */
+	private int cutoffDepth = -1;
+
+	/**
+	 * Whether the clauses are simplified before solving.
+	 */
+	private boolean preprocess = false;
+
+	/**
+	 * Counts what dpll and cdcl do and times the stages of main, or null if nothing is counted.
+	 */
+	private SolverStatistics statistics = null;
+
+	/**
+	 * Interval in milliseconds at which a progress line is printed while solving, or 0 for none.
+	 */
+	private long progressInterval = 0;
+
+	/**
+	 * Limits the time, decisions, conflicts and heap of solve, which can also be cancelled through it.
+	 */
+	private SolveBudget budget = new SolveBudget();
+
 	/**
 	 * Reads from file and stores the input clauses.
 	 */
 	public void getInput() {
-		File inputFile = new File(System.getProperty("user.dir") + "/src/io_files/dpll_input.txt");
-		Scanner scanner;
+		getInput(new File(System.getProperty("user.dir") + "/src/io_files/dpll_input.txt"));
+	}
+
+	/**
+	 * Reads the input clauses from a given file, in the front end format or in DIMACS CNF, optionally gzip or xz compressed.
+	 * @param inputFile
+	 */
+	public void getInput(File inputFile) {
 		try {
-			scanner = new Scanner(inputFile);
-			while(scanner.hasNextLine()) {
-				String x = scanner.nextLine();
-				if(x.equals("0")) {
-					remainder.add(x);
-					break;
-				}
-				List<Integer> literals = new ArrayList<Integer>();
-				literals.addAll(Arrays.asList(x.split("\\s+")).stream().map(Integer::valueOf).collect(Collectors.toList()));
-				clauses.add(literals);
+			new CnfReader(clauses, remainder).read(inputFile);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Writes the clauses and the key read in the binary format, e.g. to convert a text input once for repeated runs.
+	 * @param outputFile
+	 */
+	public void writeBinary(File outputFile) {
+		try {
+			BinaryCnf.write(outputFile, clauses, remainder.isEmpty() ? null : remainder.subList(1, remainder.size()));
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Reads the options selecting and configuring the algorithm from the command line arguments. Unknown arguments
+	 * are ignored.
+	 * @param args see main.
+	 */
+	public void parseArguments(String[] args) {
+		for(int i = 0; i < args.length; i++) {
+			if(args[i].equals("-solver") && i + 1 < args.length)
+				solver = args[++i].toLowerCase();
+			else if(args[i].equals("-heuristic") && i + 1 < args.length)
+				heuristic = args[++i].toLowerCase();
+			else if(args[i].equals("-propagation") && i + 1 < args.length)
+				propagationMode = PropagationMode.valueOf(args[++i].toUpperCase());
+			else if(args[i].equals("-input") && i + 1 < args.length)
+				input = args[++i];
+			else if(args[i].equals("-write-binary") && i + 1 < args.length)
+				binaryOutput = args[++i];
+			else if(args[i].equals("-workers") && i + 1 < args.length)
+				noOfWorkers = Integer.parseInt(args[++i]);
+			else if(args[i].equals("-cutoff") && i + 1 < args.length)
+				cutoffDepth = Integer.parseInt(args[++i]);
+			else if(args[i].equals("-preprocess"))
+				preprocess = true;
+			else if(args[i].equals("-share"))
+				shareClauses = true;
+			else if(args[i].equals("-stats"))
+				statistics = statistics == null ? new SolverStatistics() : statistics;
+			else if(args[i].equals("-progress") && i + 1 < args.length) {
+				progressInterval = (long) (Double.parseDouble(args[++i]) * 1000);
+				statistics = statistics == null ? new SolverStatistics() : statistics;
 			}
-			while(scanner.hasNextLine()) {
-				remainder.add(scanner.nextLine());
+			else if(args[i].equals("-timeout") && i + 1 < args.length)
+				budget.setTimeLimit((long) (Double.parseDouble(args[++i]) * 1000));
+			else if(args[i].equals("-max-decisions") && i + 1 < args.length)
+				budget.setMaxDecisions(Long.parseLong(args[++i]));
+			else if(args[i].equals("-max-conflicts") && i + 1 < args.length)
+				budget.setMaxConflicts(Long.parseLong(args[++i]));
+			else if(args[i].equals("-max-heap") && i + 1 < args.length)
+				budget.setHeapLimit(Long.parseLong(args[++i]) * 1024 * 1024);
+		}
+	}
+
+	/**
+	 * Runs the selected algorithm on a set of clauses.
+	 * @param clauses
+	 * @param bindings receives TRUE or FALSE for every variable if the clauses are satisfiable. Variables which need
+	 * no value are bound to TRUE.
+	 * @return boolean whether a satisfiable valuation is possible or not. False as well if the budget was exhausted
+	 * first, see solveWithinBudget.
+	 */
+	public boolean solve(ClauseArena clauses, byte[] bindings) {
+		return solveWithinBudget(clauses, bindings) == SolveResult.SATISFIABLE;
+	}
+
+	/**
+	 * Runs the selected algorithm on a set of clauses until it finishes, the budget is exhausted, cancel is called
+	 * or the calling thread is interrupted. The time is counted from the start of preprocessing, or of the search
+	 * without it, and a budget exhausted while preprocessing gives UNKNOWN without searching.
+	 * Once exhausted or cancelled, the budget stays so and later calls give UNKNOWN as well.
+	 * @param clauses
+	 * @param bindings receives TRUE or FALSE for every variable if the clauses are satisfiable. Variables which need
+	 * no value are bound to TRUE.
+	 * @return SolveResult UNKNOWN if the search stopped before it could tell.
+	 */
+	public SolveResult solveWithinBudget(ClauseArena clauses, byte[] bindings) {
+		int noOfLiterals = bindings.length - 1;
+		String heuristic = this.heuristic;
+		if(heuristic == null)
+			heuristic = solver.equals("cdcl") ? "vsids" : "static";
+		BranchingHeuristic branchingHeuristic = heuristic.equals("vsids") ? new VSIDSHeuristic(noOfLiterals) : new StaticOrderHeuristic();
+		budget.start();
+		Preprocessor preprocessor = null;
+		if(preprocess) {
+			preprocessor = new Preprocessor(noOfLiterals);
+			preprocessor.setBudget(budget);
+			clauses = preprocessor.preprocess(clauses);
+			if(budget.isExhausted())
+				return SolveResult.UNKNOWN;
+		}
+		if(statistics != null) {
+			statistics.startStage(SolverStage.SOLVE);
+			if(progressInterval > 0)
+				statistics.startProgress(System.err, progressInterval);
+		}
+		boolean satisfiable;
+		//Stops the progress line and the periodic search event even if a solver fails, e.g. in the solver daemon.
+		try {
+			if(solver.equals("parallel")) {
+				boolean vsids = heuristic.equals("vsids");
+				ParallelDPLL parallelDpll = new ParallelDPLL(noOfLiterals, () -> vsids ? new VSIDSHeuristic(noOfLiterals) : new StaticOrderHeuristic(),
+						noOfWorkers, cutoffDepth);
+				parallelDpll.setBudget(budget);
+				parallelDpll.setStatistics(statistics);
+				satisfiable = parallelDpll.solve(clauses, bindings);
 			}
-			scanner.close();
-		} catch (FileNotFoundException e) {
-			e.printStackTrace();
+			else if(solver.equals("portfolio")) {
+				PortfolioSolver portfolioSolver = new PortfolioSolver(noOfLiterals, noOfWorkers, shareClauses);
+				portfolioSolver.setBudget(budget);
+				portfolioSolver.setStatistics(statistics);
+				satisfiable = portfolioSolver.solve(clauses, bindings);
+			}
+			else if(solver.equals("cdcl")) {
+				CDCL cdcl = new CDCL(noOfLiterals, branchingHeuristic);
+				cdcl.setStatistics(statistics);
+				cdcl.setBudget(budget);
+				satisfiable = cdcl.solve(clauses, bindings);
+			}
+			else {
+				DPLL dpll = new DPLL(noOfLiterals, propagationMode, branchingHeuristic);
+				dpll.setStatistics(statistics);
+				dpll.setBudget(budget);
+				satisfiable = dpll.solve(clauses, bindings);
+			}
+		} finally {
+			if(statistics != null) {
+				statistics.stopProgress();
+				statistics.endStage(SolverStage.SOLVE, clauses.getNoOfClauses());
+			}
+		}
+		if(satisfiable) {
+			//Sets the variables removed by preprocessing so that the valuation satisfies the original clauses.
+			if(preprocessor != null)
+				preprocessor.extendModel(bindings);
+			//Adds a true binding to all the literals to which an assignment isn't needed.
+			for(int i = 1; i <= noOfLiterals; i++) {
+				if(bindings[i] == WatchedLiteralPropagator.UNBOUND)
+					bindings[i] = WatchedLiteralPropagator.TRUE;
+			}
+			return SolveResult.SATISFIABLE;
 		}
+		return budget.isExhausted() ? SolveResult.UNKNOWN : SolveResult.UNSATISFIABLE;
+	}
+
+	/**
+	 * Stops the search at its next check, which then gives UNKNOWN. May be called from any thread.
+	 */
+	public void cancel() {
+		budget.cancel();
+	}
+
+	/**
+	 * Returns the limit which stopped the last search, e.g. time limit, or null if it finished.
+	 * @return String
+	 */
+	public String getExhaustedBy() {
+		return budget.getExhaustedBy();
+	}
+
+	/**
+	 * Returns the statistics counted since the options were read, or null unless -stats or -progress was given.
+	 * @return SolverStatistics
+	 */
+	public SolverStatistics getStatistics() {
+		return statistics;
 	}
 
 	/**
 	 * Runs the dpll algorithm and writes the result to a file.
-	 * @param args
+	 * @param args -solver dpll|cdcl|portfolio|parallel selects the algorithm. Defaults to dpll. portfolio runs
+	 * differently configured cdcl solvers in parallel and takes the result of the first one to finish. parallel splits
+	 * the dpll search tree into cubes solved on a fork join pool.
+	 * -workers n sets the no. of solvers run by portfolio or the no. of threads used by parallel. Defaults to the no.
+	 * of available processors.
+	 * -cutoff n sets the no. of decisions after which parallel solves a cube sequentially.
+	 * -preprocess simplifies the clauses by subsumption, strengthening and variable elimination before solving.
+	 * -share makes the portfolio solvers share their short learnt clauses.
+	 * -propagation reference|watched selects how bindings are propagated by dpll. Defaults to watched.
+	 * -heuristic static|vsids selects how the next literal to branch on is picked. Defaults to static for dpll
+	 * and vsids for cdcl.
+	 * -input file reads the clauses from another file, e.g. a DIMACS CNF benchmark. Defaults to dpll_input.txt.
+	 * -write-binary file also writes the clauses and key read to a file in the binary format of BinaryCnf.
+	 * -stats prints the no. of decisions, propagations, conflicts, backtracks and pure literals of the search, summed
+	 * over the workers of parallel and portfolio, the largest no. of decisions on the stack and the time taken by
+	 * every stage to the standard error at the end.
+	 * -progress seconds also prints these counters while solving, every so many seconds.
+	 * -timeout seconds, -max-decisions n, -max-conflicts n and -max-heap megabytes stop the search once it took so
+	 * long, made so many decisions or conflicts, or the heap in use after a garbage collection grew so large. The
+	 * result is then unknown and written as UNKNOWN in place of the bindings. The time includes -preprocess.
+	 * The result is printed to the standard output as s SATISFIABLE, s UNSATISFIABLE or s UNKNOWN with the limit
+	 * which was reached.
 	 */
 	public static void main(String[] args) {
 		SatSolver satSolver = new SatSolver();
-		satSolver.getInput();
-		int noOfLiterals = 0;
-
-		//Counts the number of atoms/literals for the dpll algorithm.
-		for(int i = 0; i < satSolver.clauses.size(); i++) {
-			for(int j = 0; j < satSolver.clauses.get(i).size(); j++) {
-				if(Math.abs(Integer.valueOf(satSolver.clauses.get(i).get(j))) > noOfLiterals)
-					noOfLiterals = Math.abs(Integer.valueOf(satSolver.clauses.get(i).get(j)));
-			}
-		}
+		satSolver.parseArguments(args);
+		SolverStatistics statistics = satSolver.statistics;
+		if(statistics != null)
+			statistics.startStage(SolverStage.PARSE);
+		if(satSolver.input == null)
+			satSolver.getInput();
+		else
+			satSolver.getInput(new File(satSolver.input));
+		if(statistics != null)
+			statistics.endStage(SolverStage.PARSE, satSolver.clauses.getNoOfClauses());
+		if(satSolver.binaryOutput != null)
+			satSolver.writeBinary(new File(satSolver.binaryOutput));
+		//The number of atoms/literals for the dpll algorithm is counted while reading the clauses.
+		int noOfLiterals = satSolver.clauses.getNoOfLiterals();
 
-		DPLL dpllSatSolver = new DPLL(noOfLiterals);
-		Map<Integer, Boolean> bindings = new HashMap<Integer, Boolean>();
+		byte[] bindings = new byte[noOfLiterals + 1];
 		try {
 			File outputFile = new File(System.getProperty("user.dir") + "/src/io_files/dpll_output.txt");
 			BufferedWriter out;
 			out = new BufferedWriter(new FileWriter(outputFile));
-			if(dpllSatSolver.solve(satSolver.clauses, bindings)) {
-				//Adds a true binding to all the literals to which an assignment isn't needed.
-				for(int i = 1; i <= noOfLiterals; i++) {
-					if(bindings.get(i)==null)
-						bindings.put(i,true);
-				}
+			SolveResult result = satSolver.solveWithinBudget(satSolver.clauses, bindings);
+			if(statistics != null)
+				statistics.startStage(SolverStage.WRITE);
+			if(result == SolveResult.UNKNOWN) {
+				//Tells the back end that no valuation was found because the search was stopped.
+				out.write(SolveResult.UNKNOWN.name());
+				out.newLine();
+			}
+			if(result == SolveResult.SATISFIABLE) {
 				/**
 				 * Output the bindings obtained from a satisfying valuation of the dpll algorithm to file.
 				 */				
-				for(Integer x : bindings.keySet()) {
-					out.write(String.valueOf(x) + " " + (bindings.get(x) ? "T" : "F"));
+				for(int x = 1; x <= noOfLiterals; x++) {
+					out.write(String.valueOf(x) + " " + (bindings[x] == WatchedLiteralPropagator.TRUE ? "T" : "F"));
 					out.newLine();
 				}
 			}
@@ -100,8 +341,16 @@ public class SatSolver {
 				out.newLine();
 			}
 			out.close();
+			if(statistics != null)
+				statistics.endStage(SolverStage.WRITE, 0);
+			if(result == SolveResult.UNKNOWN)
+				System.out.println("s " + result + " (" + satSolver.getExhaustedBy() + ")");
+			else
+				System.out.println("s " + result);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
+		if(statistics != null)
+			System.err.print(statistics);
 	}
 }
@@ -0,0 +1,62 @@
+package ai.sat.dpll;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+
+/**
+ * Flight recorder event holding the counters of a search. It is emitted periodically while a search runs, every
+ * second unless the recording sets another period, and once over the whole search when it ends.
+ * @author kps9907
+ *
+ */
+@Name("ai.sat.Search")
+@Label("Solver Search")
+@Category("SAT Solver")
+@Description("Counters of a dpll or cdcl search")
+@Period("1 s")
+class SearchEvent extends jdk.jfr.Event {
+	/**
+	 * No. of decisions.
+	 */
+	@Label("Decisions")
+	long decisions;
+
+	/**
+	 * No. of bindings propagated.
+	 */
+	@Label("Propagations")
+	long propagations;
+
+	/**
+	 * No. of conflicts.
+	 */
+	@Label("Conflicts")
+	long conflicts;
+
+	/**
+	 * No. of backtracks or backjumps.
+	 */
+	@Label("Backtracks")
+	long backtracks;
+
+	/**
+	 * No. of bindings implied by unit clauses.
+	 */
+	@Label("Unit Bindings")
+	long unitBindings;
+
+	/**
+	 * No. of pure literals bound.
+	 */
+	@Label("Pure Literals")
+	long pureLiterals;
+
+	/**
+	 * Largest no. of decisions on the stack.
+	 */
+	@Label("Max Depth")
+	int maxDepth;
+}
@@ -0,0 +1,218 @@
+package ai.sat.dpll;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+
+/**
+ * Limits a search by wall clock time, no. of decisions, no. of conflicts and heap use, and lets it be stopped from
+ * outside by cancel or by interrupting the thread which started it. The search checks the budget at every decision
+ * and conflict. The counts, the cancellation and the interrupt status are looked at on every check, while the clock
+ * and the heap are only read every CLOCK_INTERVAL checks, so checking costs about as much as a few comparisons. The
+ * searches count their checks themselves, so that the budget shared by the workers of a parallel search is only
+ * written once exhausted.
+ * Once a limit is reached the budget stays exhausted, so every search sharing it stops, e.g. all the solvers of a
+ * portfolio. The decision and conflict limits apply to each search on its own.
+ * @author kps9907
+ *
+ */
+public class SolveBudget {
+	/**
+	 * No. of checks between two readings of the clock and the heap.
+	 */
+	private static final int CLOCK_INTERVAL = 1024;
+
+	/**
+	 * Longest time a search may take in milliseconds, or 0 for no limit.
+	 */
+	private long timeLimit = 0;
+
+	/**
+	 * Largest no. of decisions of a search.
+	 */
+	private long maxDecisions = Long.MAX_VALUE;
+
+	/**
+	 * Largest no. of conflicts of a search.
+	 */
+	private long maxConflicts = Long.MAX_VALUE;
+
+	/**
+	 * No. of bytes of the heap in use after a garbage collection above which the search stops.
+	 */
+	private long heapLimit = Long.MAX_VALUE;
+
+	/**
+	 * Time from System.nanoTime at which the search stops, valid if the time is limited.
+	 */
+	private volatile long deadline = 0;
+
+	/**
+	 * Thread which started the search, whose interrupt stops it.
+	 */
+	private volatile Thread owner;
+
+	/**
+	 * Set by cancel.
+	 */
+	private volatile boolean cancelled = false;
+
+	/**
+	 * Limit reached, or null while the budget lasts.
+	 */
+	private volatile String exhaustedBy = null;
+
+	/**
+	 * Sets the longest time a search may take.
+	 * @param timeLimit in milliseconds, 0 for no limit.
+	 */
+	public void setTimeLimit(long timeLimit) {
+		this.timeLimit = timeLimit;
+	}
+
+	/**
+	 * Sets the largest no. of decisions of a search.
+	 * @param maxDecisions
+	 */
+	public void setMaxDecisions(long maxDecisions) {
+		this.maxDecisions = maxDecisions;
+	}
+
+	/**
+	 * Sets the largest no. of conflicts of a search.
+	 * @param maxConflicts
+	 */
+	public void setMaxConflicts(long maxConflicts) {
+		this.maxConflicts = maxConflicts;
+	}
+
+	/**
+	 * Sets the no. of bytes of the heap in use after a garbage collection above which the search stops. It is a
+	 * soft limit: the search stops at the next check after the heap grew beyond it, e.g. with the learnt clauses.
+	 * For a pool not yet collected, e.g. the old generation before a full or mixed collection, its current use is
+	 * counted instead, garbage included.
+	 * @param heapLimit
+	 */
+	public void setHeapLimit(long heapLimit) {
+		this.heapLimit = heapLimit;
+	}
+
+	/**
+	 * Starts the clock and makes an interrupt of the current thread stop the search. Called before searching, the
+	 * time not being limited otherwise.
+	 */
+	public void start() {
+		owner = Thread.currentThread();
+		if(timeLimit > 0)
+			deadline = System.nanoTime() + timeLimit * 1000000;
+	}
+
+	/**
+	 * Stops every search using the budget at its next check. May be called from any thread.
+	 */
+	public void cancel() {
+		cancelled = true;
+	}
+
+	/**
+	 * Marks the budget as exhausted by an interrupt which the searches cannot see, e.g. one received by the thread
+	 * waiting for the workers of a parallel search, whose interrupt status is then cleared.
+	 */
+	void interrupt() {
+		exhaust("interrupted");
+	}
+
+	/**
+	 * Returns whether a search stopped because the budget was exhausted, cancelled or interrupted.
+	 * @return boolean
+	 */
+	public boolean isExhausted() {
+		return exhaustedBy != null;
+	}
+
+	/**
+	 * Returns the limit which stopped the search, e.g. time limit, or null while the budget lasts.
+	 * @return String
+	 */
+	public String getExhaustedBy() {
+		return exhaustedBy;
+	}
+
+	/**
+	 * Checks the budget for a search, before a decision is made and after a conflict occurred.
+	 * @param decisions no. of decisions of the search including the one about to be made.
+	 * @param conflicts no. of conflicts of the search so far.
+	 * @param checks no. of checks made by the search or the solver so far including this one, which spaces the
+	 * readings of the clock.
+	 * @return boolean whether the search must stop.
+	 */
+	public boolean isExhausted(long decisions, long conflicts, long checks) {
+		if(exhaustedBy != null)
+			return true;
+		if(decisions > maxDecisions)
+			return exhaust("decision limit");
+		if(conflicts >= maxConflicts)
+			return exhaust("conflict limit");
+		//Volatile reads, cheap enough for every check unlike the clock and the heap.
+		if(cancelled)
+			return exhaust("cancelled");
+		if(owner != null && owner.isInterrupted())
+			return exhaust("interrupted");
+		if(checks % CLOCK_INTERVAL != 0)
+			return false;
+		return isExhaustedNow();
+	}
+
+	/**
+	 * Checks the cancellation, the interrupt status, the clock and the heap at once, the last two rather than every
+	 * CLOCK_INTERVAL checks, e.g. between the passes of the preprocessor.
+	 * @return boolean whether the work must stop.
+	 */
+	boolean isExhaustedNow() {
+		if(exhaustedBy != null)
+			return true;
+		if(cancelled)
+			return exhaust("cancelled");
+		if(owner != null && owner.isInterrupted())
+			return exhaust("interrupted");
+		if(owner != null && timeLimit > 0 && System.nanoTime() - deadline >= 0)
+			return exhaust("time limit");
+		if(heapLimit < Long.MAX_VALUE && getHeapInUse() > heapLimit)
+			return exhaust("heap limit");
+		return false;
+	}
+
+	/**
+	 * Marks the budget as exhausted by a limit.
+	 * @param limit
+	 * @return boolean true.
+	 */
+	private boolean exhaust(String limit) {
+		if(exhaustedBy == null)
+			exhaustedBy = limit;
+		return true;
+	}
+
+	/**
+	 * Returns the no. of bytes of the heap in use after the last garbage collection of every heap pool, i.e. the
+	 * memory still in use and not the garbage since. The use after a collection of a pool is only recorded once the
+	 * pool was collected, which for the old generation may take a full or mixed collection while the young one is
+	 * collected often. Until then it reads 0 used of 0 committed bytes, so the current use of that pool is added
+	 * instead, garbage included.
+	 * @return long
+	 */
+	private static long getHeapInUse() {
+		long heapInUse = 0;
+		for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if(pool.getType() != MemoryType.HEAP)
+				continue;
+			MemoryUsage usage = pool.getCollectionUsage();
+			//A collection always leaves some memory committed to a pool.
+			if(usage == null || usage.getCommitted() == 0)
+				usage = pool.getUsage();
+			heapInUse += usage.getUsed();
+		}
+		return heapInUse;
+	}
+}
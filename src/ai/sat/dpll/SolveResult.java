@@ -0,0 +1,23 @@
+package ai.sat.dpll;
+
+/**
+ * Outcome of a search which may be stopped before it finishes.
+ * @author kps9907
+ *
+ */
+public enum SolveResult {
+	/**
+	 * A satisfying valuation was found.
+	 */
+	SATISFIABLE,
+
+	/**
+	 * The search finished without finding a satisfying valuation, so there is none.
+	 */
+	UNSATISFIABLE,
+
+	/**
+	 * The search was stopped by its budget, cancelled or interrupted before it finished.
+	 */
+	UNKNOWN
+}
@@ -0,0 +1,28 @@
+package ai.sat.dpll;
+
+/**
+ * Stages of a run timed by the solver statistics.
+ * @author kps9907
+ *
+ */
+public enum SolverStage {
+	/**
+	 * Reading the clauses from a file.
+	 */
+	PARSE,
+
+	/**
+	 * Generating the clauses of a maze.
+	 */
+	COMPILE,
+
+	/**
+	 * Searching for a satisfying valuation.
+	 */
+	SOLVE,
+
+	/**
+	 * Writing the valuation or the clauses to a file.
+	 */
+	WRITE
+}
@@ -0,0 +1,429 @@
+package ai.sat.dpll;
+
+import java.io.PrintStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import jdk.jfr.FlightRecorder;
+
+/**
+ * Counts what a dpll or cdcl search does and times the stages of a run: decisions, propagations, conflicts,
+ * backtracks, unit clauses and pure literals eliminated, the largest no. of decisions on the stack, and the time taken and clauses handled
+ * by every stage. A solver only counts when it is given statistics, and then only adds to plain fields, so the
+ * counting can stay in the search loops. The solvers run in parallel by portfolio and parallel each count in
+ * statistics of their own, created by newWorkerStatistics, whose counters are added to those of the run.
+ * The counters can be read while a search runs, e.g. by the progress line printed from another thread, in which case
+ * they may lag slightly behind. They are written and read with opaque accesses for this, which are as cheap as plain
+ * ones on common processors but are never torn and become visible to the other threads. While a search runs, its counters are also emitted as flight recorder events, which
+ * cost nothing unless a recording is started, e.g. with java -XX:StartFlightRecording.
+ * @author kps9907
+ *
+ */
+public class SolverStatistics {
+	private static final VarHandle DECISIONS;
+	private static final VarHandle PROPAGATIONS;
+	private static final VarHandle CONFLICTS;
+	private static final VarHandle BACKTRACKS;
+	private static final VarHandle UNIT_BINDINGS;
+	private static final VarHandle PURE_LITERALS;
+	private static final VarHandle MAX_DEPTH;
+
+	static {
+		try {
+			MethodHandles.Lookup lookup = MethodHandles.lookup();
+			DECISIONS = lookup.findVarHandle(SolverStatistics.class, "decisions", long.class);
+			PROPAGATIONS = lookup.findVarHandle(SolverStatistics.class, "propagations", long.class);
+			CONFLICTS = lookup.findVarHandle(SolverStatistics.class, "conflicts", long.class);
+			BACKTRACKS = lookup.findVarHandle(SolverStatistics.class, "backtracks", long.class);
+			UNIT_BINDINGS = lookup.findVarHandle(SolverStatistics.class, "unitBindings", long.class);
+			PURE_LITERALS = lookup.findVarHandle(SolverStatistics.class, "pureLiterals", long.class);
+			MAX_DEPTH = lookup.findVarHandle(SolverStatistics.class, "maxDepth", int.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	/**
+	 * No. of decisions.
+	 */
+	private long decisions = 0;
+
+	/**
+	 * No. of bindings propagated.
+	 */
+	private long propagations = 0;
+
+	/**
+	 * No. of conflicts.
+	 */
+	private long conflicts = 0;
+
+	/**
+	 * No. of backtracks, or backjumps for cdcl.
+	 */
+	private long backtracks = 0;
+
+	/**
+	 * No. of bindings implied by unit clauses.
+	 */
+	private long unitBindings = 0;
+
+	/**
+	 * No. of pure literals bound.
+	 */
+	private long pureLiterals = 0;
+
+	/**
+	 * Largest no. of decisions on the stack.
+	 */
+	private int maxDepth = 0;
+
+	/**
+	 * Time taken by every stage in nanoseconds, indexed by the ordinal of the stage.
+	 */
+	private long[] stageTimes = new long[SolverStage.values().length];
+
+	/**
+	 * No. of clauses handled by every stage.
+	 */
+	private long[] stageClauses = new long[SolverStage.values().length];
+
+	/**
+	 * Flight recorder event of every stage started and not yet ended.
+	 */
+	private StageEvent[] stageEvents = new StageEvent[SolverStage.values().length];
+
+	/**
+	 * Time at which every stage started and not yet ended, from System.nanoTime.
+	 */
+	private long[] stageStarts = new long[SolverStage.values().length];
+
+	/**
+	 * Flight recorder event spanning the search, while it runs.
+	 */
+	private SearchEvent searchEvent;
+
+	/**
+	 * Emits the periodic flight recorder events of the search, while it runs.
+	 */
+	private Runnable periodicHook;
+
+	/**
+	 * Prints the progress line, if started.
+	 */
+	private ScheduledExecutorService progressTimer;
+
+	/**
+	 * Statistics of the solvers run in parallel, whose counters are added to these.
+	 */
+	private List<SolverStatistics> workers = new CopyOnWriteArrayList<SolverStatistics>();
+
+	/**
+	 * Creates the statistics counted by one of the solvers run in parallel, e.g. a portfolio solver or a thread of
+	 * parallel. Its counters are added to these from then on.
+	 * @return SolverStatistics
+	 */
+	public SolverStatistics newWorkerStatistics() {
+		SolverStatistics worker = new SolverStatistics();
+		workers.add(worker);
+		return worker;
+	}
+
+	/**
+	 * Records a decision.
+	 * @param depth no. of decisions on the stack including this one.
+	 * @param propagations total no. of bindings propagated so far.
+	 * @param unitBindings total no. of bindings implied by unit clauses so far.
+	 */
+	void recordDecision(int depth, long propagations, long unitBindings) {
+		//Only the thread of the search writes, so it reads its own writes plainly.
+		DECISIONS.setOpaque(this, decisions + 1);
+		if(depth > maxDepth)
+			MAX_DEPTH.setOpaque(this, depth);
+		PROPAGATIONS.setOpaque(this, propagations);
+		UNIT_BINDINGS.setOpaque(this, unitBindings);
+	}
+
+	/**
+	 * Records a conflict.
+	 * @param propagations total no. of bindings propagated so far.
+	 * @param unitBindings total no. of bindings implied by unit clauses so far.
+	 */
+	void recordConflict(long propagations, long unitBindings) {
+		CONFLICTS.setOpaque(this, conflicts + 1);
+		PROPAGATIONS.setOpaque(this, propagations);
+		UNIT_BINDINGS.setOpaque(this, unitBindings);
+	}
+
+	/**
+	 * Records a backtrack or backjump.
+	 */
+	void recordBacktrack() {
+		BACKTRACKS.setOpaque(this, backtracks + 1);
+	}
+
+	/**
+	 * Records pure literals bound.
+	 * @param noOfPureLiterals
+	 */
+	void recordPureLiterals(int noOfPureLiterals) {
+		PURE_LITERALS.setOpaque(this, pureLiterals + noOfPureLiterals);
+	}
+
+	/**
+	 * Sets the total no. of bindings propagated and of those implied by unit clauses so far.
+	 * @param propagations
+	 * @param unitBindings
+	 */
+	void setPropagations(long propagations, long unitBindings) {
+		PROPAGATIONS.setOpaque(this, propagations);
+		UNIT_BINDINGS.setOpaque(this, unitBindings);
+	}
+
+	/**
+	 * Starts timing a stage. Starting the solve stage also starts emitting the flight recorder events of the search.
+	 * @param stage
+	 */
+	public void startStage(SolverStage stage) {
+		StageEvent event = new StageEvent();
+		event.stage = stage.name().toLowerCase();
+		event.begin();
+		stageEvents[stage.ordinal()] = event;
+		if(stage == SolverStage.SOLVE) {
+			searchEvent = new SearchEvent();
+			searchEvent.begin();
+			periodicHook = () -> commit(new SearchEvent());
+			FlightRecorder.addPeriodicEvent(SearchEvent.class, periodicHook);
+		}
+		stageStarts[stage.ordinal()] = System.nanoTime();
+	}
+
+	/**
+	 * Stops timing a stage and adds the time since it started to it.
+	 * @param stage
+	 * @param noOfClauses no. of clauses read, generated, solved or written by the stage.
+	 */
+	public void endStage(SolverStage stage, long noOfClauses) {
+		stageTimes[stage.ordinal()] += System.nanoTime() - stageStarts[stage.ordinal()];
+		stageClauses[stage.ordinal()] += noOfClauses;
+		StageEvent event = stageEvents[stage.ordinal()];
+		stageEvents[stage.ordinal()] = null;
+		if(event != null && event.shouldCommit()) {
+			event.noOfClauses = noOfClauses;
+			event.commit();
+		}
+		if(stage == SolverStage.SOLVE && searchEvent != null) {
+			FlightRecorder.removePeriodicEvent(periodicHook);
+			commit(searchEvent);
+			searchEvent = null;
+		}
+	}
+
+	/**
+	 * Prints a progress line at a fixed interval from a daemon thread until stopProgress is called.
+	 * @param out
+	 * @param intervalMillis
+	 */
+	public void startProgress(PrintStream out, long intervalMillis) {
+		stopProgress();
+		long start = System.nanoTime();
+		progressTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "solver-progress");
+			thread.setDaemon(true);
+			return thread;
+		});
+		progressTimer.scheduleAtFixedRate(() -> out.println(getProgressLine(System.nanoTime() - start)),
+				intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Stops printing the progress line.
+	 */
+	public void stopProgress() {
+		if(progressTimer != null) {
+			progressTimer.shutdownNow();
+			progressTimer = null;
+		}
+	}
+
+	/**
+	 * Returns the counters in one line, e.g. to follow a long search.
+	 * @param elapsedTime time since the start of the run in nanoseconds.
+	 * @return String
+	 */
+	public String getProgressLine(long elapsedTime) {
+		double seconds = elapsedTime / 1e9;
+		long propagations = getPropagations();
+		return String.format("c %8.1fs decisions %d conflicts %d propagations %d (%.0f/s) backtracks %d units %d pure %d max depth %d",
+				seconds, getDecisions(), getConflicts(), propagations, seconds > 0 ? propagations / seconds : 0.0,
+				getBacktracks(), getUnitBindings(), getPureLiterals(), getMaxDepth());
+	}
+
+	/**
+	 * Returns the no. of decisions.
+	 * @return long
+	 */
+	public long getDecisions() {
+		long decisions = (long) DECISIONS.getOpaque(this);
+		for(SolverStatistics worker : workers)
+			decisions += worker.getDecisions();
+		return decisions;
+	}
+
+	/**
+	 * Returns the no. of bindings propagated.
+	 * @return long
+	 */
+	public long getPropagations() {
+		long propagations = (long) PROPAGATIONS.getOpaque(this);
+		for(SolverStatistics worker : workers)
+			propagations += worker.getPropagations();
+		return propagations;
+	}
+
+	/**
+	 * Returns the no. of conflicts.
+	 * @return long
+	 */
+	public long getConflicts() {
+		long conflicts = (long) CONFLICTS.getOpaque(this);
+		for(SolverStatistics worker : workers)
+			conflicts += worker.getConflicts();
+		return conflicts;
+	}
+
+	/**
+	 * Returns the no. of backtracks, or backjumps for cdcl.
+	 * @return long
+	 */
+	public long getBacktracks() {
+		long backtracks = (long) BACKTRACKS.getOpaque(this);
+		for(SolverStatistics worker : workers)
+			backtracks += worker.getBacktracks();
+		return backtracks;
+	}
+
+	/**
+	 * Returns the no. of bindings implied by unit clauses.
+	 * @return long
+	 */
+	public long getUnitBindings() {
+		long unitBindings = (long) UNIT_BINDINGS.getOpaque(this);
+		for(SolverStatistics worker : workers)
+			unitBindings += worker.getUnitBindings();
+		return unitBindings;
+	}
+
+	/**
+	 * Returns the no. of pure literals bound.
+	 * @return long
+	 */
+	public long getPureLiterals() {
+		long pureLiterals = (long) PURE_LITERALS.getOpaque(this);
+		for(SolverStatistics worker : workers)
+			pureLiterals += worker.getPureLiterals();
+		return pureLiterals;
+	}
+
+	/**
+	 * Returns the largest no. of decisions on the stack.
+	 * @return int
+	 */
+	public int getMaxDepth() {
+		int maxDepth = (int) MAX_DEPTH.getOpaque(this);
+		for(SolverStatistics worker : workers)
+			maxDepth = Math.max(maxDepth, worker.getMaxDepth());
+		return maxDepth;
+	}
+
+	/**
+	 * Returns the time taken by a stage in nanoseconds.
+	 * @param stage
+	 * @return long
+	 */
+	public long getStageTime(SolverStage stage) {
+		return stageTimes[stage.ordinal()];
+	}
+
+	/**
+	 * Returns the no. of clauses handled by a stage.
+	 * @param stage
+	 * @return long
+	 */
+	public long getStageClauses(SolverStage stage) {
+		return stageClauses[stage.ordinal()];
+	}
+
+	/**
+	 * Returns the no. of clauses handled by a stage per second. For the solve stage this is the no. of clauses given
+	 * over the time taken by the search, which says little; see getPropagationsPerSecond instead.
+	 * @param stage
+	 * @return double 0 if the stage did not run.
+	 */
+	public double getClausesPerSecond(SolverStage stage) {
+		long time = stageTimes[stage.ordinal()];
+		return time > 0 ? stageClauses[stage.ordinal()] * 1e9 / time : 0;
+	}
+
+	/**
+	 * Returns the no. of bindings propagated per second of the solve stage.
+	 * @return double 0 if the solve stage did not run.
+	 */
+	public double getPropagationsPerSecond() {
+		long time = stageTimes[SolverStage.SOLVE.ordinal()];
+		return time > 0 ? getPropagations() * 1e9 / time : 0;
+	}
+
+	/**
+	 * Returns the counters and the stages which ran, one per line, as comments in the DIMACS style.
+	 * @return String
+	 */
+	@Override
+	public String toString() {
+		StringBuilder summary = new StringBuilder();
+		//The counters are left out when no search ran, e.g. for the front end.
+		if(stageTimes[SolverStage.SOLVE.ordinal()] > 0 || getPropagations() > 0) {
+			summary.append(String.format("c decisions %d%n", getDecisions()));
+			summary.append(String.format("c propagations %d%n", getPropagations()));
+			summary.append(String.format("c conflicts %d%n", getConflicts()));
+			summary.append(String.format("c backtracks %d%n", getBacktracks()));
+			summary.append(String.format("c unit bindings %d%n", getUnitBindings()));
+			summary.append(String.format("c pure literals %d%n", getPureLiterals()));
+			summary.append(String.format("c max depth %d%n", getMaxDepth()));
+		}
+		for(SolverStage stage : SolverStage.values()) {
+			if(stageTimes[stage.ordinal()] == 0)
+				continue;
+			summary.append(String.format("c %s %.3f ms", stage.name().toLowerCase(), stageTimes[stage.ordinal()] / 1e6));
+			//The search works on the clauses given rather than through them, so its rate is that of the propagations.
+			if(stage == SolverStage.SOLVE)
+				summary.append(String.format(" %d clauses (%.0f propagations/s)", stageClauses[stage.ordinal()], getPropagationsPerSecond()));
+			else if(stageClauses[stage.ordinal()] > 0)
+				summary.append(String.format(" %d clauses (%.0f clauses/s)", stageClauses[stage.ordinal()], getClausesPerSecond(stage)));
+			summary.append(String.format("%n"));
+		}
+		return summary.toString();
+	}
+
+	/**
+	 * Fills a flight recorder event with the counters and commits it, if it is recorded.
+	 * @param event
+	 */
+	private void commit(SearchEvent event) {
+		if(!event.shouldCommit())
+			return;
+		event.decisions = getDecisions();
+		event.propagations = getPropagations();
+		event.conflicts = getConflicts();
+		event.backtracks = getBacktracks();
+		event.unitBindings = getUnitBindings();
+		event.pureLiterals = getPureLiterals();
+		event.maxDepth = getMaxDepth();
+		event.commit();
+	}
+}
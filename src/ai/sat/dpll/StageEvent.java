@@ -0,0 +1,29 @@
+package ai.sat.dpll;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event spanning a stage of a run, e.g. parsing or solving.
+ * @author kps9907
+ *
+ */
+@Name("ai.sat.Stage")
+@Label("Solver Stage")
+@Category("SAT Solver")
+@Description("A stage of a run and the no. of clauses it handled")
+class StageEvent extends jdk.jfr.Event {
+	/**
+	 * Name of the stage.
+	 */
+	@Label("Stage")
+	String stage;
+
+	/**
+	 * No. of clauses read, generated, solved or written.
+	 */
+	@Label("Clauses")
+	long noOfClauses;
+}
@@ -0,0 +1,26 @@
+package ai.sat.dpll;
+
+/**
+ * Branches on the lowest numbered unbound variable and always binds it to true first.
+ * This is the order the dpll algorithm originally used.
+ * @author kps9907
+ *
+ */
+public class StaticOrderHeuristic implements BranchingHeuristic {
+	@Override
+	public int pickBranchLiteral(WatchedLiteralPropagator propagator) {
+		return propagator.nextUnbound();
+	}
+
+	@Override
+	public void bump(int variable) {
+	}
+
+	@Override
+	public void decay() {
+	}
+
+	@Override
+	public void unbound(int literal) {
+	}
+}
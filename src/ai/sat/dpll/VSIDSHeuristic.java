@@ -0,0 +1,198 @@
+package ai.sat.dpll;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Variable state independent decaying sum heuristic, in its exponential form (EVSIDS).
+ * Every variable taking part in a conflict has its activity increased by an increment which grows after each conflict,
+ * so recent conflicts weigh more than older ones. The unbound variable with the highest activity is picked from a binary
+ * max heap and bound to the value it had when it was last unbound (phase saving).
+ * @author kps9907
+ *
+ */
+public class VSIDSHeuristic implements BranchingHeuristic {
+	/**
+	 * Factor by which past activities decay after each conflict.
+	 */
+	private static final double DECAY = 0.95;
+
+	/**
+	 * Activity above which all activities are scaled down to avoid overflowing.
+	 */
+	private static final double RESCALE_LIMIT = 1e100;
+
+	/**
+	 * Activity of every variable.
+	 */
+	private double[] activity;
+
+	/**
+	 * Amount added to the activity of a variable when it is bumped.
+	 */
+	private double increment = 1;
+
+	/**
+	 * Value to bind every variable to when it is picked. True for a positive literal.
+	 */
+	private boolean[] phases;
+
+	/**
+	 * Binary max heap of variables ordered by activity.
+	 */
+	private int[] heap;
+
+	/**
+	 * No. of variables in the heap.
+	 */
+	private int heapSize = 0;
+
+	/**
+	 * Position of every variable in the heap or -1 if it is not in the heap.
+	 */
+	private int[] positions;
+
+	/**
+	 * Creates the heuristic with every variable in the heap and every phase set to false.
+	 * @param noOfLiterals
+	 */
+	public VSIDSHeuristic(int noOfLiterals) {
+		this(noOfLiterals, false, null);
+	}
+
+	/**
+	 * Creates the heuristic with every variable in the heap, e.g. to run several differently configured solvers
+	 * on the same problem.
+	 * @param noOfLiterals
+	 * @param initialPhase value every variable is bound to until it is first unbound.
+	 * @param random if not null, gives every variable a small random initial activity, below a single bump,
+	 * so that the branching order differs until conflicts take over. Null keeps the order of the variables.
+	 */
+	public VSIDSHeuristic(int noOfLiterals, boolean initialPhase, Random random) {
+		this.activity = new double[noOfLiterals + 1];
+		this.phases = new boolean[noOfLiterals + 1];
+		this.heap = new int[noOfLiterals];
+		this.positions = new int[noOfLiterals + 1];
+		positions[0] = -1;
+		Arrays.fill(phases, initialPhase);
+		for(int i = 1; i <= noOfLiterals; i++) {
+			if(random != null)
+				activity[i] = random.nextDouble() * 1e-3;
+			heap[heapSize] = i;
+			positions[i] = heapSize++;
+			siftUp(heapSize - 1);
+		}
+	}
+
+	/**
+	 * Raises the no. of variables. The new variables are put in the heap with no activity and a false phase.
+	 * @param noOfLiterals
+	 */
+	public void addVariables(int noOfLiterals) {
+		int oldNoOfLiterals = activity.length - 1;
+		if(noOfLiterals <= oldNoOfLiterals)
+			return;
+		activity = Arrays.copyOf(activity, noOfLiterals + 1);
+		phases = Arrays.copyOf(phases, noOfLiterals + 1);
+		heap = Arrays.copyOf(heap, noOfLiterals);
+		positions = Arrays.copyOf(positions, noOfLiterals + 1);
+		for(int i = oldNoOfLiterals + 1; i <= noOfLiterals; i++) {
+			heap[heapSize] = i;
+			positions[i] = heapSize++;
+			siftUp(heapSize - 1);
+		}
+	}
+
+	@Override
+	public int pickBranchLiteral(WatchedLiteralPropagator propagator) {
+		//Bound variables are dropped from the heap and put back once unbound.
+		while(heapSize > 0) {
+			int variable = removeMax();
+			if(propagator.value(variable) == WatchedLiteralPropagator.UNBOUND)
+				return phases[variable] ? variable : -variable;
+		}
+		return 0;
+	}
+
+	@Override
+	public void bump(int variable) {
+		activity[variable] += increment;
+		if(activity[variable] > RESCALE_LIMIT) {
+			for(int i = 1; i < activity.length; i++)
+				activity[i] /= RESCALE_LIMIT;
+			increment /= RESCALE_LIMIT;
+		}
+		if(positions[variable] >= 0)
+			siftUp(positions[variable]);
+	}
+
+	@Override
+	public void decay() {
+		increment /= DECAY;
+	}
+
+	@Override
+	public void unbound(int literal) {
+		int variable = Math.abs(literal);
+		phases[variable] = literal > 0;
+		if(positions[variable] < 0) {
+			heap[heapSize] = variable;
+			positions[variable] = heapSize++;
+			siftUp(heapSize - 1);
+		}
+	}
+
+	/**
+	 * Removes the variable with the highest activity from the heap.
+	 * @return int the variable removed.
+	 */
+	private int removeMax() {
+		int variable = heap[0];
+		positions[variable] = -1;
+		heapSize--;
+		if(heapSize > 0) {
+			heap[0] = heap[heapSize];
+			positions[heap[0]] = 0;
+			siftDown(0);
+		}
+		return variable;
+	}
+
+	/**
+	 * Moves the variable at a position of the heap up until its parent is at least as active.
+	 * @param position
+	 */
+	private void siftUp(int position) {
+		int variable = heap[position];
+		while(position > 0) {
+			int parent = (position - 1) / 2;
+			if(activity[heap[parent]] >= activity[variable])
+				break;
+			heap[position] = heap[parent];
+			positions[heap[position]] = position;
+			position = parent;
+		}
+		heap[position] = variable;
+		positions[variable] = position;
+	}
+
+	/**
+	 * Moves the variable at a position of the heap down until both its children are at most as active.
+	 * @param position
+	 */
+	private void siftDown(int position) {
+		int variable = heap[position];
+		while(2 * position + 1 < heapSize) {
+			int child = 2 * position + 1;
+			if(child + 1 < heapSize && activity[heap[child + 1]] > activity[heap[child]])
+				child++;
+			if(activity[heap[child]] <= activity[variable])
+				break;
+			heap[position] = heap[child];
+			positions[heap[position]] = position;
+			position = child;
+		}
+		heap[position] = variable;
+		positions[variable] = position;
+	}
+}
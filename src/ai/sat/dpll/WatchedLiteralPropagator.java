@@ -0,0 +1,921 @@
+package ai.sat.dpll;
+
+import java.util.Arrays;
+
+/**
+ * Unit propagation engine based on two watched literals per clause.
+ * The first two literals of every clause are its watched literals. A clause is only visited when one of its
+ * watched literals becomes false, at which point a new non false literal is searched to watch instead.
+ * If none is found the clause is either unit, and its other watched literal is bound, or conflicting.
+ * Clauses are never modified or removed during the search so no copies have to be made to backtrack.
+ * Clauses with more than two literals are kept in a flat clause arena and referred to by their position in it.
+ * Binary clauses are not stored as clauses at all. Each one is kept as two implications between literals
+ * which are followed directly when a literal is bound.
+ * @author kps9907
+ *
+ */
+public class WatchedLiteralPropagator {
+	/**
+	 * Value of an unbound variable.
+	 */
+	public static final byte UNBOUND = 0;
+
+	/**
+	 * Value of a variable bound to true.
+	 */
+	public static final byte TRUE = 1;
+
+	/**
+	 * Value of a variable bound to false.
+	 */
+	public static final byte FALSE = -1;
+
+	/**
+	 * Reason of a variable implied by a binary clause.
+	 */
+	private static final int BINARY_REASON = -2;
+
+	/**
+	 * No. of variables in the problem.
+	 */
+	private int noOfLiterals;
+
+	/**
+	 * For every literal, the literals which a binary clause implies once it is bound to true.
+	 */
+	private int[][] implications;
+
+	/**
+	 * No. of literals used in each implication list.
+	 */
+	private int[] implicationCount;
+
+	/**
+	 * Clauses with at least three literals. Positions 0 and 1 of each clause hold its watched literals.
+	 * The input clauses come first and are followed by the learnt clauses, whose flags hold their literal block
+	 * distance, i.e. the no. of decision levels among their literals when they were learnt.
+	 */
+	private ClauseArena clauses;
+
+	/**
+	 * No. of clauses that come from the input. Every clause after them is learnt.
+	 */
+	private int noOfInputClauses = 0;
+
+	/**
+	 * Marks the literals already found in the input clause being read.
+	 */
+	private int[] literalStamps;
+
+	/**
+	 * Stamp used for the input clause being read.
+	 */
+	private int currentStamp = 0;
+
+	/**
+	 * For every literal, references of the clauses that currently watch it.
+	 */
+	private int[][] watches;
+
+	/**
+	 * No. of clause references used in each watch list.
+	 */
+	private int[] watchCount;
+
+	/**
+	 * Current binding of every variable. One of UNBOUND, TRUE or FALSE.
+	 */
+	private byte[] values;
+
+	/**
+	 * Decision level at which every bound variable was bound.
+	 */
+	private int[] levels;
+
+	/**
+	 * Reference of the clause which implied the binding of every variable, BINARY_REASON if a binary clause implied it,
+	 * or -1 for decisions and input unit clauses.
+	 */
+	private int[] reasons;
+
+	/**
+	 * For every variable implied by a binary clause, the other literal of that clause.
+	 */
+	private int[] binaryReasons;
+
+	/**
+	 * Literals of the binary clause found false by the last conflict, if any.
+	 */
+	private int[] binaryConflict = new int[2];
+
+
+	/**
+	 * Literals bound to true in the order they were bound. Literals past the propagation head are
+	 * bound but not yet propagated.
+	 */
+	private int[] trail;
+
+	/**
+	 * No. of literals on the trail.
+	 */
+	private int trailSize = 0;
+
+	/**
+	 * Position of the next literal on the trail to propagate.
+	 */
+	private int propagationHead = 0;
+
+	/**
+	 * No. of literals propagated since the propagator was created.
+	 */
+	private long noOfPropagations = 0;
+
+	/**
+	 * No. of literals propagated which were bound because every other literal of a clause was false, since the
+	 * propagator was created.
+	 */
+	private long noOfUnitBindings = 0;
+
+	/**
+	 * Trail size at the start of every decision level.
+	 */
+	private int[] trailLimits;
+
+	/**
+	 * Current decision level. Level 0 holds the bindings implied by the input alone.
+	 */
+	private int decisionLevel = 0;
+
+	/**
+	 * Whether an empty clause was derived.
+	 */
+	private boolean conflict = false;
+
+	/**
+	 * Reference of the clause found false by the last conflict, BINARY_REASON if it was a binary clause,
+	 * or -1 if the conflict was not caused by a clause.
+	 */
+	private int conflictClause = -1;
+
+	/**
+	 * Heuristic notified of every literal unbound on backtracking, if any.
+	 */
+	private BranchingHeuristic heuristic;
+
+	/**
+	 * For every literal, the no. of unsatisfied input clauses it occurs in. Only maintained once pure literals have
+	 * been asked for, null before.
+	 */
+	private int[] occurrences;
+
+	/**
+	 * For every literal, indices of the input clauses with at least three literals it occurs in.
+	 */
+	private int[][] occurrenceLists;
+
+	/**
+	 * No. of true literals in every input clause with at least three literals.
+	 */
+	private int[] trueCounts;
+
+	/**
+	 * Variables which may have become pure since pure literals were last asked for.
+	 */
+	private int[] pureCandidates;
+
+	/**
+	 * No. of variables in the list of pure candidates.
+	 */
+	private int noOfPureCandidates = 0;
+
+	/**
+	 * Marks the variables in the list of pure candidates.
+	 */
+	private boolean[] isPureCandidate;
+
+	/**
+	 * Builds the watch lists for the given clauses and binds the literals of the unit clauses.
+	 * Duplicate literals are dropped and clauses containing both a literal and its negation are ignored.
+	 * @param noOfLiterals
+	 * @param inputClauses
+	 */
+	public WatchedLiteralPropagator(int noOfLiterals, ClauseArena inputClauses) {
+		this.noOfLiterals = noOfLiterals;
+		this.values = new byte[noOfLiterals + 1];
+		this.levels = new int[noOfLiterals + 1];
+		this.reasons = new int[noOfLiterals + 1];
+		this.binaryReasons = new int[noOfLiterals + 1];
+		this.trail = new int[noOfLiterals + 1];
+		this.trailLimits = new int[noOfLiterals + 1];
+		this.watches = new int[2 * noOfLiterals + 2][];
+		this.watchCount = new int[2 * noOfLiterals + 2];
+		this.implications = new int[2 * noOfLiterals + 2][];
+		this.implicationCount = new int[2 * noOfLiterals + 2];
+		this.literalStamps = new int[2 * noOfLiterals + 2];
+		for(int i = 0; i < watches.length; i++) {
+			watches[i] = new int[4];
+			implications[i] = new int[4];
+		}
+
+		this.clauses = new ClauseArena(inputClauses.getArena().length, inputClauses.getNoOfClauses());
+		int[] units = new int[inputClauses.getNoOfClauses()];
+		int noOfUnits = 0;
+		int[] clause = new int[16];
+		for(int i = 0; i < inputClauses.getNoOfClauses(); i++) {
+			if(inputClauses.getSize(i) > clause.length)
+				clause = new int[inputClauses.getSize(i)];
+			int size = normalise(inputClauses, i, clause);
+			if(size < 0)
+				continue;
+			if(size == 0)
+				conflict = true;
+			else if(size == 1)
+				units[noOfUnits++] = clause[0];
+			else if(size == 2)
+				addBinaryClause(clause[0], clause[1]);
+			else
+				addClause(clause, size, 0);
+		}
+		noOfInputClauses = clauses.getNoOfClauses();
+		for(int i = 0; i < noOfUnits && !conflict; i++)
+			assign(units[i]);
+	}
+
+	/**
+	 * Copies an input clause without its duplicate literals.
+	 * @param inputClauses
+	 * @param clauseIndex
+	 * @param clause receives the literals of the clause.
+	 * @return int the no. of literals copied or -1 if the clause is a tautology.
+	 */
+	private int normalise(ClauseArena inputClauses, int clauseIndex, int[] clause) {
+		currentStamp++;
+		int size = 0;
+		for(int j = 0; j < inputClauses.getSize(clauseIndex); j++) {
+			int literal = inputClauses.getLiteral(clauseIndex, j);
+			if(literalStamps[index(-literal)] == currentStamp)
+				return -1;
+			if(literalStamps[index(literal)] == currentStamp)
+				continue;
+			literalStamps[index(literal)] = currentStamp;
+			clause[size++] = literal;
+		}
+		return size;
+	}
+
+	/**
+	 * Stores a clause and watches its first two literals.
+	 * @param clause
+	 * @param size
+	 * @param flags
+	 * @return int reference of the clause.
+	 */
+	private int addClause(int[] clause, int size, int flags) {
+		int reference = clauses.addClause(clause, size, flags);
+		watch(clause[0], reference);
+		watch(clause[1], reference);
+		return reference;
+	}
+
+	/**
+	 * Stores a binary clause as the implication of each literal by the negation of the other.
+	 * @param first
+	 * @param second
+	 */
+	private void addBinaryClause(int first, int second) {
+		imply(-first, second);
+		imply(-second, first);
+	}
+
+	/**
+	 * Adds a literal to the implication list of another literal.
+	 * @param literal
+	 * @param impliedLiteral
+	 */
+	private void imply(int literal, int impliedLiteral) {
+		int i = index(literal);
+		if(implicationCount[i] == implications[i].length)
+			implications[i] = Arrays.copyOf(implications[i], 2 * implications[i].length);
+		implications[i][implicationCount[i]++] = impliedLiteral;
+	}
+
+	/**
+	 * Maps a literal to its index in the watch lists.
+	 * @param literal
+	 * @return int index of the literal.
+	 */
+	private static int index(int literal) {
+		return literal > 0 ? 2 * literal : -2 * literal + 1;
+	}
+
+	/**
+	 * Adds a clause to the watch list of a literal.
+	 * @param literal
+	 * @param reference
+	 */
+	private void watch(int literal, int reference) {
+		int i = index(literal);
+		if(watchCount[i] == watches[i].length)
+			watches[i] = Arrays.copyOf(watches[i], 2 * watches[i].length);
+		watches[i][watchCount[i]++] = reference;
+	}
+
+	/**
+	 * Returns the value of a literal under the current bindings.
+	 * @param literal
+	 * @return byte UNBOUND, TRUE or FALSE.
+	 */
+	public byte value(int literal) {
+		byte value = values[Math.abs(literal)];
+		return literal > 0 ? value : (byte) -value;
+	}
+
+	/**
+	 * Binds a literal to true at the current decision level and propagates the unit clauses it produces.
+	 * @param literal
+	 * @return boolean false if a conflict was found.
+	 */
+	public boolean assign(int literal) {
+		if(conflict)
+			return false;
+		if(value(literal) == FALSE) {
+			conflict = true;
+			conflictClause = -1;
+			return false;
+		}
+		if(value(literal) == TRUE)
+			return true;
+		enqueue(literal, -1);
+		return propagate();
+	}
+
+	/**
+	 * Stores a learnt clause and binds its first literal, which must be its only unbound literal,
+	 * with the clause as reason. The second literal must be the one bound at the highest decision level among the rest.
+	 * A clause with a single literal is bound without being stored.
+	 * @param clause
+	 * @param lbd
+	 * @return boolean false if a conflict was found while propagating the binding.
+	 */
+	public boolean learn(int[] clause, int lbd) {
+		if(clause.length == 1)
+			return assign(clause[0]);
+		if(clause.length == 2) {
+			addBinaryClause(clause[0], clause[1]);
+			enqueue(clause[0], BINARY_REASON);
+			binaryReasons[Math.abs(clause[0])] = clause[1];
+		}
+		else
+			enqueue(clause[0], addClause(clause, clause.length, ClauseArena.LEARNT | lbd << 1));
+		return propagate();
+	}
+
+	/**
+	 * Stores a clause learnt from the same problem by another solver. Must be called at decision level 0.
+	 * It is kept as a learnt clause and may be deleted later.
+	 * @param clause not modified.
+	 * @param lbd literal block distance the clause is kept with.
+	 * @return boolean false if a conflict was found.
+	 */
+	public boolean importClause(int[] clause, int lbd) {
+		return storeClause(clause, ClauseArena.LEARNT | lbd << 1);
+	}
+
+	/**
+	 * Adds a clause to the problem after the propagator was created, e.g. to solve it again with one more constraint.
+	 * Must be called at decision level 0. Unlike learnt clauses it is never deleted.
+	 * @param clause not modified. Its variables must not exceed the no. of variables of the propagator.
+	 * @return boolean false if a conflict was found.
+	 */
+	public boolean addInputClause(int[] clause) {
+		return storeClause(clause, 0);
+	}
+
+	/**
+	 * Stores a clause at decision level 0. Literals false at level 0 are dropped and clauses already satisfied
+	 * at level 0 are ignored, since level 0 bindings are never undone.
+	 * @param clause not modified.
+	 * @param flags
+	 * @return boolean false if a conflict was found.
+	 */
+	private boolean storeClause(int[] clause, int flags) {
+		if(conflict)
+			return false;
+		currentStamp++;
+		int[] literals = new int[clause.length];
+		int size = 0;
+		for(int literal : clause) {
+			if(value(literal) == TRUE || literalStamps[index(-literal)] == currentStamp)
+				return true;
+			if(value(literal) == FALSE || literalStamps[index(literal)] == currentStamp)
+				continue;
+			literalStamps[index(literal)] = currentStamp;
+			literals[size++] = literal;
+		}
+		if(size == 0) {
+			conflict = true;
+			conflictClause = -1;
+			return false;
+		}
+		if(size == 1)
+			return assign(literals[0]);
+		if(size == 2)
+			addBinaryClause(literals[0], literals[1]);
+		else
+			addClause(literals, size, flags);
+		//Pure literal counts are rebuilt on the next request to take an added input clause into account.
+		if(flags == 0)
+			occurrences = null;
+		return true;
+	}
+
+	/**
+	 * Raises the no. of variables, e.g. before adding clauses over new variables. The new variables are unbound.
+	 * @param noOfLiterals
+	 */
+	public void addVariables(int noOfLiterals) {
+		if(noOfLiterals <= this.noOfLiterals)
+			return;
+		int oldNoOfIndices = watches.length;
+		this.noOfLiterals = noOfLiterals;
+		values = Arrays.copyOf(values, noOfLiterals + 1);
+		levels = Arrays.copyOf(levels, noOfLiterals + 1);
+		reasons = Arrays.copyOf(reasons, noOfLiterals + 1);
+		binaryReasons = Arrays.copyOf(binaryReasons, noOfLiterals + 1);
+		trail = Arrays.copyOf(trail, noOfLiterals + 1);
+		trailLimits = Arrays.copyOf(trailLimits, noOfLiterals + 1);
+		watches = Arrays.copyOf(watches, 2 * noOfLiterals + 2);
+		watchCount = Arrays.copyOf(watchCount, 2 * noOfLiterals + 2);
+		implications = Arrays.copyOf(implications, 2 * noOfLiterals + 2);
+		implicationCount = Arrays.copyOf(implicationCount, 2 * noOfLiterals + 2);
+		literalStamps = Arrays.copyOf(literalStamps, 2 * noOfLiterals + 2);
+		for(int i = oldNoOfIndices; i < watches.length; i++) {
+			watches[i] = new int[4];
+			implications[i] = new int[4];
+		}
+		//Pure literal counts are rebuilt on the next request.
+		occurrences = null;
+	}
+
+	/**
+	 * Binds a literal and puts it on the trail to be propagated.
+	 * @param literal
+	 * @param reason reference of the clause implying the binding, BINARY_REASON or -1.
+	 */
+	private void enqueue(int literal, int reason) {
+		values[Math.abs(literal)] = literal > 0 ? TRUE : FALSE;
+		levels[Math.abs(literal)] = decisionLevel;
+		reasons[Math.abs(literal)] = reason;
+		trail[trailSize++] = literal;
+		if(occurrences != null)
+			satisfyOccurrences(literal);
+	}
+
+	/**
+	 * Opens a new decision level. Bindings made from now on are undone when backtracking below it.
+	 */
+	public void newDecisionLevel() {
+		trailLimits[decisionLevel++] = trailSize;
+	}
+
+	/**
+	 * Returns the current decision level.
+	 * @return int
+	 */
+	public int getDecisionLevel() {
+		return decisionLevel;
+	}
+
+	/**
+	 * Unbinds every literal bound above the given decision level and clears the conflict.
+	 * Watches stay valid since literals are unbound in the reverse order of their binding.
+	 * @param level
+	 */
+	public void backtrack(int level) {
+		if(decisionLevel <= level)
+			return;
+		for(int i = trailSize - 1; i >= trailLimits[level]; i--) {
+			values[Math.abs(trail[i])] = UNBOUND;
+			if(heuristic != null)
+				heuristic.unbound(trail[i]);
+			if(occurrences != null)
+				restoreOccurrences(trail[i]);
+		}
+		trailSize = trailLimits[level];
+		propagationHead = trailSize;
+		decisionLevel = level;
+		conflict = false;
+	}
+
+	/**
+	 * Returns the no. of literals propagated since the propagator was created.
+	 * @return long
+	 */
+	public long getNoOfPropagations() {
+		return noOfPropagations;
+	}
+
+	/**
+	 * Returns the no. of literals propagated which were bound because every other literal of a clause was false, i.e.
+	 * the unit clauses eliminated, since the propagator was created. Unit clauses of the input are bound by the
+	 * constructor and not counted, nor are bindings undone by a conflict before they were propagated.
+	 * @return long
+	 */
+	public long getNoOfUnitBindings() {
+		return noOfUnitBindings;
+	}
+
+	/**
+	 * Sets the heuristic to notify of every literal unbound on backtracking.
+	 * @param heuristic
+	 */
+	public void setBranchingHeuristic(BranchingHeuristic heuristic) {
+		this.heuristic = heuristic;
+	}
+
+	/**
+	 * Propagates every literal on the trail past the propagation head. Its binary implications are bound first,
+	 * then the clauses that watch its negation are visited.
+	 * @return boolean false if a conflict was found.
+	 */
+	private boolean propagate() {
+		while(propagationHead < trailSize) {
+			int trueLiteral = trail[propagationHead++];
+			noOfPropagations++;
+			if(reasons[Math.abs(trueLiteral)] != -1)
+				noOfUnitBindings++;
+			int trueIndex = index(trueLiteral);
+			int[] impliedLiterals = implications[trueIndex];
+			for(int i = 0; i < implicationCount[trueIndex]; i++) {
+				int impliedLiteral = impliedLiterals[i];
+				byte value = value(impliedLiteral);
+				if(value == TRUE)
+					continue;
+				if(value == FALSE) {
+					conflict = true;
+					conflictClause = BINARY_REASON;
+					binaryConflict[0] = impliedLiteral;
+					binaryConflict[1] = -trueLiteral;
+					return false;
+				}
+				enqueue(impliedLiteral, BINARY_REASON);
+				binaryReasons[Math.abs(impliedLiteral)] = -trueLiteral;
+			}
+
+			int falseLiteral = -trueLiteral;
+			int falseIndex = index(falseLiteral);
+			int[] watchList = watches[falseIndex];
+			int[] arena = clauses.getArena();
+			int kept = 0;
+			int i = 0;
+			for(; i < watchCount[falseIndex]; i++) {
+				int reference = watchList[i];
+				//Keep the false literal at position 1.
+				if(arena[reference] == falseLiteral) {
+					arena[reference] = arena[reference + 1];
+					arena[reference + 1] = falseLiteral;
+				}
+				if(value(arena[reference]) == TRUE) {
+					watchList[kept++] = reference;
+					continue;
+				}
+				//Look for a new literal to watch.
+				boolean moved = false;
+				int end = reference + arena[reference + ClauseArena.SIZE];
+				for(int k = reference + 2; k < end; k++) {
+					if(value(arena[k]) != FALSE) {
+						arena[reference + 1] = arena[k];
+						arena[k] = falseLiteral;
+						watch(arena[reference + 1], reference);
+						moved = true;
+						break;
+					}
+				}
+				if(moved)
+					continue;
+				watchList[kept++] = reference;
+				if(value(arena[reference]) == FALSE) {
+					//Conflict, keep the remaining watches and stop.
+					for(i = i + 1; i < watchCount[falseIndex]; i++)
+						watchList[kept++] = watchList[i];
+					watchCount[falseIndex] = kept;
+					conflict = true;
+					conflictClause = reference;
+					return false;
+				}
+				enqueue(arena[reference], reference);
+			}
+			watchCount[falseIndex] = kept;
+		}
+		return true;
+	}
+
+	/**
+	 * Finds the variables that only appear with one sign among the unbound literals of the unsatisfied clauses.
+	 * The first call counts the occurrences of every literal in the unsatisfied input clauses. The counts are then
+	 * updated as clauses become satisfied or are restored, and only the variables whose counts changed are checked.
+	 * @return int[] the pure literals found.
+	 */
+	public int[] findPureLiterals() {
+		if(occurrences == null)
+			countOccurrences();
+		int[] pureLiterals = new int[noOfPureCandidates];
+		int noOfPureLiterals = 0;
+		for(int i = 0; i < noOfPureCandidates; i++) {
+			int variable = pureCandidates[i];
+			isPureCandidate[variable] = false;
+			if(values[variable] != UNBOUND)
+				continue;
+			if(occurrences[index(variable)] > 0 && occurrences[index(-variable)] == 0)
+				pureLiterals[noOfPureLiterals++] = variable;
+			else if(occurrences[index(-variable)] > 0 && occurrences[index(variable)] == 0)
+				pureLiterals[noOfPureLiterals++] = -variable;
+		}
+		noOfPureCandidates = 0;
+		return Arrays.copyOf(pureLiterals, noOfPureLiterals);
+	}
+
+	/**
+	 * Counts the occurrences of every literal in the unsatisfied input clauses and makes every variable a pure candidate.
+	 * Clauses added with addInputClause count as input clauses, learnt clauses do not since they follow from the others.
+	 */
+	private void countOccurrences() {
+		int noOfClauses = clauses.getNoOfClauses();
+		occurrences = new int[2 * noOfLiterals + 2];
+		trueCounts = new int[noOfClauses];
+		int[] noOfOccurrenceLists = new int[2 * noOfLiterals + 2];
+		for(int j = 0; j < noOfClauses; j++) {
+			if((clauses.getFlags(j) & ClauseArena.LEARNT) != 0)
+				continue;
+			for(int k = 0; k < clauses.getSize(j); k++) {
+				int literal = clauses.getLiteral(j, k);
+				noOfOccurrenceLists[index(literal)]++;
+				if(value(literal) == TRUE)
+					trueCounts[j]++;
+			}
+		}
+		occurrenceLists = new int[2 * noOfLiterals + 2][];
+		for(int i = 0; i < occurrenceLists.length; i++) {
+			occurrenceLists[i] = new int[noOfOccurrenceLists[i]];
+			noOfOccurrenceLists[i] = 0;
+		}
+		for(int j = 0; j < noOfClauses; j++) {
+			if((clauses.getFlags(j) & ClauseArena.LEARNT) != 0)
+				continue;
+			for(int k = 0; k < clauses.getSize(j); k++) {
+				int literal = clauses.getLiteral(j, k);
+				occurrenceLists[index(literal)][noOfOccurrenceLists[index(literal)]++] = j;
+				if(trueCounts[j] == 0)
+					occurrences[index(literal)]++;
+			}
+		}
+		//A binary clause -x y is stored as y implied by x and as -x implied by -y. Count it from one side only.
+		for(int x = -noOfLiterals; x <= noOfLiterals; x++) {
+			if(x == 0)
+				continue;
+			for(int j = 0; j < implicationCount[index(x)]; j++) {
+				int y = implications[index(x)][j];
+				if(index(-x) < index(y) && value(-x) != TRUE && value(y) != TRUE) {
+					occurrences[index(-x)]++;
+					occurrences[index(y)]++;
+				}
+			}
+		}
+		pureCandidates = new int[noOfLiterals];
+		isPureCandidate = new boolean[noOfLiterals + 1];
+		for(int i = 1; i <= noOfLiterals; i++)
+			addPureCandidate(i);
+	}
+
+	/**
+	 * Removes the clauses satisfied by binding a literal from the occurrence counts.
+	 * @param literal the literal bound to true.
+	 */
+	private void satisfyOccurrences(int literal) {
+		//Binary clauses literal y are stored as y implied by -literal.
+		int i = index(-literal);
+		for(int j = 0; j < implicationCount[i]; j++) {
+			int y = implications[i][j];
+			if(value(y) != TRUE) {
+				removeOccurrence(literal);
+				removeOccurrence(y);
+			}
+		}
+		int[] arena = clauses.getArena();
+		int[] occurrenceList = occurrenceLists[index(literal)];
+		for(int j = 0; j < occurrenceList.length; j++) {
+			if(trueCounts[occurrenceList[j]]++ > 0)
+				continue;
+			int reference = clauses.getReference(occurrenceList[j]);
+			for(int k = reference; k < reference + arena[reference + ClauseArena.SIZE]; k++)
+				removeOccurrence(arena[k]);
+		}
+	}
+
+	/**
+	 * Adds the clauses no longer satisfied after unbinding a literal back to the occurrence counts.
+	 * Literals are unbound in the reverse order of their binding, so this undoes satisfyOccurrences exactly.
+	 * @param literal the literal that was bound to true.
+	 */
+	private void restoreOccurrences(int literal) {
+		int i = index(-literal);
+		for(int j = 0; j < implicationCount[i]; j++) {
+			int y = implications[i][j];
+			if(value(y) != TRUE) {
+				occurrences[index(literal)]++;
+				occurrences[index(y)]++;
+			}
+		}
+		int[] arena = clauses.getArena();
+		int[] occurrenceList = occurrenceLists[index(literal)];
+		for(int j = 0; j < occurrenceList.length; j++) {
+			if(--trueCounts[occurrenceList[j]] > 0)
+				continue;
+			int reference = clauses.getReference(occurrenceList[j]);
+			for(int k = reference; k < reference + arena[reference + ClauseArena.SIZE]; k++)
+				occurrences[index(arena[k])]++;
+		}
+		//The variable may have become pure while it was bound.
+		addPureCandidate(Math.abs(literal));
+	}
+
+	/**
+	 * Decrements the occurrence count of a literal and makes its variable a pure candidate once the count reaches 0.
+	 * @param literal
+	 */
+	private void removeOccurrence(int literal) {
+		if(--occurrences[index(literal)] == 0)
+			addPureCandidate(Math.abs(literal));
+	}
+
+	/**
+	 * Adds a variable to the list of pure candidates unless it is already in it.
+	 * @param variable
+	 */
+	private void addPureCandidate(int variable) {
+		if(isPureCandidate[variable])
+			return;
+		isPureCandidate[variable] = true;
+		pureCandidates[noOfPureCandidates++] = variable;
+	}
+
+	/**
+	 * Returns the lowest numbered unbound variable.
+	 * @return int the variable or 0 if all variables are bound.
+	 */
+	public int nextUnbound() {
+		for(int i = 1; i <= noOfLiterals; i++) {
+			if(values[i] == UNBOUND)
+				return i;
+		}
+		return 0;
+	}
+
+	/**
+	 * Returns whether an empty clause was derived.
+	 * @return boolean
+	 */
+	public boolean hasConflict() {
+		return conflict;
+	}
+
+	/**
+	 * Returns the no. of literals of the clause found false by the last conflict.
+	 * @return int the no. of literals or 0 if the conflict was not caused by a clause.
+	 */
+	public int getConflictSize() {
+		if(conflictClause == BINARY_REASON)
+			return 2;
+		return conflictClause >= 0 ? clauses.getArena()[conflictClause + ClauseArena.SIZE] : 0;
+	}
+
+	/**
+	 * Returns a literal of the clause found false by the last conflict.
+	 * @param position
+	 * @return int
+	 */
+	public int getConflictLiteral(int position) {
+		if(conflictClause == BINARY_REASON)
+			return binaryConflict[position];
+		return clauses.getArena()[conflictClause + position];
+	}
+
+	/**
+	 * Returns the no. of bound literals.
+	 * @return int
+	 */
+	public int getTrailSize() {
+		return trailSize;
+	}
+
+	/**
+	 * Returns the literal bound at a position on the trail.
+	 * @param position
+	 * @return int
+	 */
+	public int getTrailLiteral(int position) {
+		return trail[position];
+	}
+
+	/**
+	 * Returns the decision level at which a variable was bound.
+	 * @param variable
+	 * @return int
+	 */
+	public int getLevel(int variable) {
+		return levels[variable];
+	}
+
+	/**
+	 * Returns the no. of literals of the clause which implied the binding of a variable.
+	 * @param variable
+	 * @return int the no. of literals or 0 for decisions and input unit clauses.
+	 */
+	public int getReasonSize(int variable) {
+		if(reasons[variable] == BINARY_REASON)
+			return 2;
+		return reasons[variable] >= 0 ? clauses.getArena()[reasons[variable] + ClauseArena.SIZE] : 0;
+	}
+
+	/**
+	 * Returns a literal of the clause which implied the binding of a variable. Its first literal is the implied one.
+	 * @param variable
+	 * @param position
+	 * @return int
+	 */
+	public int getReasonLiteral(int variable, int position) {
+		if(reasons[variable] == BINARY_REASON) {
+			if(position == 0)
+				return values[variable] == TRUE ? variable : -variable;
+			return binaryReasons[variable];
+		}
+		return clauses.getArena()[reasons[variable] + position];
+	}
+
+	/**
+	 * Returns the no. of clauses stored after the input clauses. These are the learnt clauses and the clauses added
+	 * with addInputClause, whose literal block distance is 0 and which are never deleted.
+	 * @return int
+	 */
+	public int getNoOfLearntClauses() {
+		return clauses.getNoOfClauses() - noOfInputClauses;
+	}
+
+	/**
+	 * Deletes learnt clauses which are not reasons for a current binding.
+	 * The remaining clauses are compacted in the arena and every watch list is rebuilt.
+	 * @param deleted flags indexed by learnt clause no., i.e. clause index minus the no. of input clauses.
+	 */
+	public void deleteLearntClauses(boolean[] deleted) {
+		int noOfClauses = clauses.getNoOfClauses();
+		int[] oldReferences = new int[noOfClauses];
+		boolean[] deletedClauses = new boolean[noOfClauses];
+		for(int i = 0; i < noOfClauses; i++) {
+			oldReferences[i] = clauses.getReference(i);
+			deletedClauses[i] = i >= noOfInputClauses && deleted[i - noOfInputClauses]
+					&& (clauses.getFlags(i) & ClauseArena.LEARNT) != 0 && !isLocked(oldReferences[i]);
+		}
+		int[] newReferences = clauses.compact(deletedClauses);
+		//Occurrence lists refer to clause indices, which compacting changes.
+		occurrences = null;
+		for(int i = 0; i < trailSize; i++) {
+			int variable = Math.abs(trail[i]);
+			if(reasons[variable] >= 0)
+				reasons[variable] = newReferences[Arrays.binarySearch(oldReferences, reasons[variable])];
+		}
+		Arrays.fill(watchCount, 0);
+		int[] arena = clauses.getArena();
+		for(int i = 0; i < clauses.getNoOfClauses(); i++) {
+			int reference = clauses.getReference(i);
+			watch(arena[reference], reference);
+			watch(arena[reference + 1], reference);
+		}
+	}
+
+	/**
+	 * Returns the literal block distance of a learnt clause.
+	 * @param learntClause learnt clause no., i.e. clause index minus the no. of input clauses.
+	 * @return int
+	 */
+	public int getLbd(int learntClause) {
+		return clauses.getFlags(noOfInputClauses + learntClause) >>> 1;
+	}
+
+	/**
+	 * Returns whether a clause is the reason for a current binding and so cannot be deleted.
+	 * @param reference
+	 * @return boolean
+	 */
+	private boolean isLocked(int reference) {
+		int literal = clauses.getArena()[reference];
+		return value(literal) == TRUE && reasons[Math.abs(literal)] == reference;
+	}
+
+	/**
+	 * Copies the current bindings.
+	 * @param bindings receives UNBOUND, TRUE or FALSE for every variable.
+	 */
+	public void getBindings(byte[] bindings) {
+		System.arraycopy(values, 0, bindings, 0, values.length);
+	}
+}
@@ -0,0 +1,213 @@
+package ai.sat.frontend;
+
+import java.util.Arrays;
+
+import ai.sat.dpll.ClauseSink;
+
+/**
+ * Writes the clauses stating that at most one of a set of atoms is true with one of the encodings of
+ * AtMostOneEncoding. Apart from pairwise, the encodings introduce auxiliary atoms which are numbered consecutively
+ * from a first auxiliary atom given by the caller. Their number only depends on the no. of atoms, so that the caller
+ * can reserve them beforehand. An encoder holds no state and may be shared between threads.
+ * @author kps9907
+ *
+ */
+public class AtMostOneEncoder {
+	/**
+	 * No. of atoms up to which every encoding falls back to pairwise, which is then as small.
+	 */
+	private static final int PAIRWISE_LIMIT = 4;
+
+	/**
+	 * Size of the groups of the commander encoding.
+	 */
+	private static final int GROUP_SIZE = 3;
+
+	/**
+	 * Encoding used.
+	 */
+	private AtMostOneEncoding encoding;
+
+	public AtMostOneEncoder(AtMostOneEncoding encoding) {
+		this.encoding = encoding;
+	}
+
+	/**
+	 * Returns the no. of auxiliary atoms used to encode the constraint over a no. of atoms.
+	 * @param noOfAtoms
+	 * @return int
+	 */
+	public int getNoOfAuxiliaryAtoms(int noOfAtoms) {
+		int[] atoms = new int[noOfAtoms];
+		Arrays.fill(atoms, 1);
+		return encode(atoms, 0, null);
+	}
+
+	/**
+	 * Generates the clauses stating that at most one of a set of atoms is true.
+	 * @param atoms
+	 * @param firstAuxiliary integer form of the first auxiliary atom.
+	 * @param sink receives the clauses generated. Only the auxiliary atoms are counted when null.
+	 * @return int no. of auxiliary atoms used.
+	 */
+	public int encode(int[] atoms, int firstAuxiliary, ClauseSink sink) {
+		//Buffer of the binary clauses passed to the sink, one per call so that the encoder can be shared.
+		int[] clause = new int[2];
+		int nextAuxiliary;
+		switch(encoding) {
+		case SEQUENTIAL:
+			nextAuxiliary = encodeSequential(atoms, firstAuxiliary, clause, sink);
+			break;
+		case COMMANDER:
+			nextAuxiliary = encodeCommander(atoms, firstAuxiliary, clause, sink);
+			break;
+		case PRODUCT:
+			nextAuxiliary = encodeProduct(atoms, firstAuxiliary, clause, sink);
+			break;
+		case BIMANDER:
+			nextAuxiliary = encodeBimander(atoms, firstAuxiliary, clause, sink);
+			break;
+		default:
+			nextAuxiliary = encodePairwise(atoms, 0, atoms.length, firstAuxiliary, clause, sink);
+		}
+		return nextAuxiliary - firstAuxiliary;
+	}
+
+	/**
+	 * Forbids every pair of atoms of a range from being true together.
+	 * @param atoms
+	 * @param from
+	 * @param to
+	 * @param nextAuxiliary
+	 * @param clause
+	 * @param sink
+	 * @return int the next free auxiliary atom, unchanged.
+	 */
+	private int encodePairwise(int[] atoms, int from, int to, int nextAuxiliary, int[] clause, ClauseSink sink) {
+		for(int j = from; j < to - 1; j++) {
+			for(int k = j + 1; k < to; k++)
+				addClause(clause, sink, -atoms[j], -atoms[k]);
+		}
+		return nextAuxiliary;
+	}
+
+	/**
+	 * Sequential counter: auxiliary atom s(i) is true if one of the atoms up to i is. An atom forbids the previous
+	 * counter and sets its own.
+	 * @param atoms
+	 * @param nextAuxiliary
+	 * @param clause
+	 * @param sink
+	 * @return int the next free auxiliary atom.
+	 */
+	private int encodeSequential(int[] atoms, int nextAuxiliary, int[] clause, ClauseSink sink) {
+		int n = atoms.length;
+		if(n <= PAIRWISE_LIMIT)
+			return encodePairwise(atoms, 0, n, nextAuxiliary, clause, sink);
+		int counter = nextAuxiliary;
+		addClause(clause, sink, -atoms[0], counter);
+		for(int i = 1; i < n - 1; i++) {
+			addClause(clause, sink, -atoms[i], counter + i);
+			addClause(clause, sink, -(counter + i - 1), counter + i);
+			addClause(clause, sink, -atoms[i], -(counter + i - 1));
+		}
+		addClause(clause, sink, -atoms[n - 1], -(counter + n - 2));
+		return nextAuxiliary + n - 1;
+	}
+
+	/**
+	 * Commander encoding: pairwise within every group, every member implies the commander of its group and at most
+	 * one commander is true.
+	 * @param atoms
+	 * @param nextAuxiliary
+	 * @param clause
+	 * @param sink
+	 * @return int the next free auxiliary atom.
+	 */
+	private int encodeCommander(int[] atoms, int nextAuxiliary, int[] clause, ClauseSink sink) {
+		int n = atoms.length;
+		if(n <= PAIRWISE_LIMIT)
+			return encodePairwise(atoms, 0, n, nextAuxiliary, clause, sink);
+		int[] commanders = new int[(n + GROUP_SIZE - 1) / GROUP_SIZE];
+		for(int g = 0; g < commanders.length; g++) {
+			int from = g * GROUP_SIZE;
+			int to = Math.min(from + GROUP_SIZE, n);
+			commanders[g] = nextAuxiliary++;
+			encodePairwise(atoms, from, to, nextAuxiliary, clause, sink);
+			for(int i = from; i < to; i++)
+				addClause(clause, sink, -atoms[i], commanders[g]);
+		}
+		return encodeCommander(commanders, nextAuxiliary, clause, sink);
+	}
+
+	/**
+	 * 2-product encoding: atom i lies at row i / q and column i % q of a grid with p rows and q columns. It implies its
+	 * row and column atoms, and at most one row and one column atom are true.
+	 * @param atoms
+	 * @param nextAuxiliary
+	 * @param clause
+	 * @param sink
+	 * @return int the next free auxiliary atom.
+	 */
+	private int encodeProduct(int[] atoms, int nextAuxiliary, int[] clause, ClauseSink sink) {
+		int n = atoms.length;
+		if(n <= PAIRWISE_LIMIT)
+			return encodePairwise(atoms, 0, n, nextAuxiliary, clause, sink);
+		int p = (int) Math.ceil(Math.sqrt(n));
+		int q = (n + p - 1) / p;
+		int[] rows = new int[p];
+		int[] columns = new int[q];
+		for(int r = 0; r < p; r++)
+			rows[r] = nextAuxiliary++;
+		for(int c = 0; c < q; c++)
+			columns[c] = nextAuxiliary++;
+		for(int i = 0; i < n; i++) {
+			addClause(clause, sink, -atoms[i], rows[i / q]);
+			addClause(clause, sink, -atoms[i], columns[i % q]);
+		}
+		nextAuxiliary = encodeProduct(rows, nextAuxiliary, clause, sink);
+		return encodeProduct(columns, nextAuxiliary, clause, sink);
+	}
+
+	/**
+	 * Bimander encoding: pairwise within every pair of atoms, and every atom implies the binary number of its pair
+	 * over the auxiliary atoms, so that atoms of two different pairs imply contradicting bits.
+	 * @param atoms
+	 * @param nextAuxiliary
+	 * @param clause
+	 * @param sink
+	 * @return int the next free auxiliary atom.
+	 */
+	private int encodeBimander(int[] atoms, int nextAuxiliary, int[] clause, ClauseSink sink) {
+		int n = atoms.length;
+		if(n <= PAIRWISE_LIMIT)
+			return encodePairwise(atoms, 0, n, nextAuxiliary, clause, sink);
+		int noOfGroups = (n + 1) / 2;
+		int noOfBits = 32 - Integer.numberOfLeadingZeros(noOfGroups - 1);
+		for(int g = 0; g < noOfGroups; g++) {
+			int from = 2 * g;
+			int to = Math.min(from + 2, n);
+			encodePairwise(atoms, from, to, nextAuxiliary, clause, sink);
+			for(int i = from; i < to; i++) {
+				for(int b = 0; b < noOfBits; b++)
+					addClause(clause, sink, -atoms[i], (g >> b & 1) == 1 ? nextAuxiliary + b : -(nextAuxiliary + b));
+			}
+		}
+		return nextAuxiliary + noOfBits;
+	}
+
+	/**
+	 * Passes a binary clause to the sink.
+	 * @param clause buffer holding the clause.
+	 * @param sink ignored when null.
+	 * @param first
+	 * @param second
+	 */
+	private void addClause(int[] clause, ClauseSink sink, int first, int second) {
+		if(sink != null) {
+			clause[0] = first;
+			clause[1] = second;
+			sink.addClause(clause, 2);
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package ai.sat.frontend;
+
+/**
+ * Selects how the constraint that at most one of a set of atoms is true, e.g. that the player is at one place at a
+ * time, is written as clauses.
+ * @author kps9907
+ *
+ */
+public enum AtMostOneEncoding {
+	/**
+	 * Original behaviour. One binary clause per pair of atoms, n(n-1)/2 clauses and no auxiliary atoms.
+	 */
+	PAIRWISE,
+
+	/**
+	 * Sequential counter. An auxiliary atom per position tells that one of the atoms up to it is true.
+	 * About 3n clauses and n auxiliary atoms.
+	 */
+	SEQUENTIAL,
+
+	/**
+	 * Commander encoding. The atoms are split into groups of three, each with a commander atom implied by its
+	 * members, and at most one commander is true, recursively. About 3n clauses and n/2 auxiliary atoms.
+	 */
+	COMMANDER,
+
+	/**
+	 * 2-product encoding. The atoms are laid out in a grid of about sqrt(n) rows and columns, each atom implies its
+	 * row and its column and at most one row and one column are true, recursively. About 2n clauses and 2sqrt(n)
+	 * auxiliary atoms.
+	 */
+	PRODUCT,
+
+	/**
+	 * Bimander encoding. The atoms are split into pairs and every pair is given a binary number over log2(n/2)
+	 * auxiliary atoms which its members imply. About n log2(n/2) clauses.
+	 */
+	BIMANDER
+}
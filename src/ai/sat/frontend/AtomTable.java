@@ -0,0 +1,175 @@
+package ai.sat.frontend;
+
+/**
+ * Numbers the atoms of the adventure maze problem arithmetically from the id of a node or treasure and a step,
+ * so that no string is built or hashed to find the integer form of an atom.
+ * The 'AT' atoms of a step are numbered consecutively in the order of the node ids and so are the 'HAS' atoms in the
+ * order of the treasure ids and the auxiliary atoms of the at-one-place-at-a-time constraint of the step. Where the
+ * atoms of the next step start is given by a stride.
+ * A table built from a reachability analysis numbers only the atoms which may be true instead, looking them up in
+ * arrays, and gives 0 for the others.
+ * @author kps9907
+ *
+ */
+public class AtomTable {
+	/**
+	 * Integer form of the 'AT' atom of node 0 at step 0.
+	 */
+	private int atBase;
+
+	/**
+	 * Distance between the 'AT' atoms of a node at two consecutive steps.
+	 */
+	private int atStride;
+
+	/**
+	 * Integer form of the 'HAS' atom of treasure 0 at step 0.
+	 */
+	private int hasBase;
+
+	/**
+	 * Distance between the 'HAS' atoms of a treasure at two consecutive steps.
+	 */
+	private int hasStride;
+
+	/**
+	 * Integer form of the first auxiliary atom of step 0.
+	 */
+	private int auxiliaryBase;
+
+	/**
+	 * Distance between the first auxiliary atoms of two consecutive steps.
+	 */
+	private int auxiliaryStride;
+
+	/**
+	 * Integer form of the 'AT' atoms indexed by step and node id, 0 for those never true. Null when the atoms are
+	 * numbered arithmetically.
+	 */
+	private int[][] atAtoms;
+
+	/**
+	 * Integer form of the 'HAS' atoms indexed by step and treasure id, 0 for those never true. Null when the atoms
+	 * are numbered arithmetically.
+	 */
+	private int[][] hasAtoms;
+
+	/**
+	 * Integer form of the first auxiliary atom of every step. Null when the atoms are numbered arithmetically.
+	 */
+	private int[] auxiliaryAtoms;
+
+	/**
+	 * No. of atoms numbered, 0 if the numbering has no end.
+	 */
+	private int noOfAtoms = 0;
+
+	/**
+	 * Numbers all the 'AT' atoms first, step after step, followed by all the 'HAS' atoms and all the auxiliary atoms,
+	 * as written by the SAT compiler.
+	 * @param noOfNodes
+	 * @param noOfTreasures
+	 * @param maxSteps
+	 * @param noOfAuxiliaryAtoms no. of auxiliary atoms per step.
+	 */
+	public AtomTable(int noOfNodes, int noOfTreasures, int maxSteps, int noOfAuxiliaryAtoms) {
+		this(1, noOfNodes, 1 + (maxSteps + 1) * noOfNodes, noOfTreasures, 1 + (maxSteps + 1) * (noOfNodes + noOfTreasures),
+				noOfAuxiliaryAtoms);
+		this.noOfAtoms = (maxSteps + 1) * (noOfNodes + noOfTreasures + noOfAuxiliaryAtoms);
+	}
+
+	/**
+	 * Numbers only the atoms which may be true according to a reachability analysis: the 'AT' atoms first, step
+	 * after step, followed by the 'HAS' atoms and the auxiliary atoms of every step. The auxiliary atoms of a step
+	 * are those needed to encode the at-one-place-at-a-time constraint over its possible nodes.
+	 * @param reachability
+	 * @param noOfNodes
+	 * @param noOfTreasures
+	 * @param maxSteps
+	 * @param encoder encoder of the at-one-place-at-a-time constraint.
+	 */
+	public AtomTable(ReachabilityAnalysis reachability, int noOfNodes, int noOfTreasures, int maxSteps, AtMostOneEncoder encoder) {
+		atAtoms = new int[maxSteps + 1][noOfNodes];
+		hasAtoms = new int[maxSteps + 1][noOfTreasures];
+		auxiliaryAtoms = new int[maxSteps + 1];
+		int[] noOfPossibleNodes = new int[maxSteps + 1];
+		for(int i = 0; i <= maxSteps; i++) {
+			for(int n = 0; n < noOfNodes; n++) {
+				if(reachability.isAtPossible(i, n)) {
+					atAtoms[i][n] = ++noOfAtoms;
+					noOfPossibleNodes[i]++;
+				}
+			}
+		}
+		for(int i = 0; i <= maxSteps; i++) {
+			for(int t = 0; t < noOfTreasures; t++) {
+				if(reachability.isHasPossible(i, t))
+					hasAtoms[i][t] = ++noOfAtoms;
+			}
+		}
+		for(int i = 0; i <= maxSteps; i++) {
+			auxiliaryAtoms[i] = noOfAtoms + 1;
+			noOfAtoms += encoder.getNoOfAuxiliaryAtoms(noOfPossibleNodes[i]);
+		}
+	}
+
+	/**
+	 * @param atBase integer form of the 'AT' atom of node 0 at step 0.
+	 * @param atStride distance between the 'AT' atoms of a node at two consecutive steps.
+	 * @param hasBase integer form of the 'HAS' atom of treasure 0 at step 0.
+	 * @param hasStride distance between the 'HAS' atoms of a treasure at two consecutive steps.
+	 * @param auxiliaryBase integer form of the first auxiliary atom of step 0.
+	 * @param auxiliaryStride distance between the first auxiliary atoms of two consecutive steps.
+	 */
+	public AtomTable(int atBase, int atStride, int hasBase, int hasStride, int auxiliaryBase, int auxiliaryStride) {
+		this.atBase = atBase;
+		this.atStride = atStride;
+		this.hasBase = hasBase;
+		this.hasStride = hasStride;
+		this.auxiliaryBase = auxiliaryBase;
+		this.auxiliaryStride = auxiliaryStride;
+	}
+
+	/**
+	 * Returns the integer form of the atom stating that the player is at a node at a step.
+	 * @param step
+	 * @param nodeId
+	 * @return int 0 if the atom is never true.
+	 */
+	public int getAtAtom(int step, int nodeId) {
+		if(atAtoms != null)
+			return atAtoms[step][nodeId];
+		return atBase + step * atStride + nodeId;
+	}
+
+	/**
+	 * Returns the integer form of the atom stating that the player has a treasure at a step.
+	 * @param step
+	 * @param treasureId
+	 * @return int 0 if the atom is never true.
+	 */
+	public int getHasAtom(int step, int treasureId) {
+		if(hasAtoms != null)
+			return hasAtoms[step][treasureId];
+		return hasBase + step * hasStride + treasureId;
+	}
+
+	/**
+	 * Returns the integer form of the first auxiliary atom of a step. The others follow it.
+	 * @param step
+	 * @return int
+	 */
+	public int getAuxiliaryAtom(int step) {
+		if(auxiliaryAtoms != null)
+			return auxiliaryAtoms[step];
+		return auxiliaryBase + step * auxiliaryStride;
+	}
+
+	/**
+	 * Returns the no. of atoms numbered, or 0 for a table numbering the atoms of as many steps as asked.
+	 * @return int
+	 */
+	public int getNoOfAtoms() {
+		return noOfAtoms;
+	}
+}
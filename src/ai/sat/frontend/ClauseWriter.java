@@ -0,0 +1,102 @@
+package ai.sat.frontend;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+import ai.sat.dpll.ClauseSink;
+
+/**
+ * Writes clauses to a file in the text format read by the sat solver as they are generated, one clause per line,
+ * followed by the key used by the backend. Only a buffer of the file is held in memory.
+ * @author kps9907
+ *
+ */
+public class ClauseWriter implements ClauseSink {
+	/**
+	 * Size of the buffer of the file.
+	 */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Output file.
+	 */
+	private BufferedWriter out;
+
+	/**
+	 * Digits of the literal being written, filled from the end.
+	 */
+	private char[] digits = new char[11];
+
+	/**
+	 * Opens the output file.
+	 * @param outputFile
+	 * @throws IOException
+	 */
+	public ClauseWriter(File outputFile) throws IOException {
+		this.out = new BufferedWriter(new FileWriter(outputFile), BUFFER_SIZE);
+	}
+
+	/**
+	 * Writes a clause as a line of literals separated by spaces.
+	 * @param literals
+	 * @param length
+	 * @throws UncheckedIOException if the file cannot be written.
+	 */
+	@Override
+	public void addClause(int[] literals, int length) {
+		try {
+			for(int i = 0; i < length; i++) {
+				if(i > 0)
+					out.write(' ');
+				writeLiteral(literals[i]);
+			}
+			out.newLine();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Writes out a 0 to separate the clauses from the key, then the key used to map the integer form of the atoms back
+	 * to their respective string forms.
+	 * @param atomKey
+	 * @throws IOException
+	 */
+	public void writeKey(Map<Integer, String> atomKey) throws IOException {
+		out.write("0");
+		out.newLine();
+		for(int x : atomKey.keySet()) {
+			out.write(x + " " + atomKey.get(x));
+			out.newLine();
+		}
+	}
+
+	/**
+	 * Flushes and closes the output file.
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		out.close();
+	}
+
+	/**
+	 * Writes the decimal form of a literal without creating a string.
+	 * @param literal
+	 * @throws IOException
+	 */
+	private void writeLiteral(int literal) throws IOException {
+		long value = Math.abs((long) literal);
+		int start = digits.length;
+		do {
+			digits[--start] = (char) ('0' + value % 10);
+			value /= 10;
+		} while(value > 0);
+		if(literal < 0)
+			digits[--start] = '-';
+		out.write(digits, start, digits.length - start);
+	}
+}
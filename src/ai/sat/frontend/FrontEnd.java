@@ -1,4 +1,6 @@
 package ai.sat.frontend;
+import ai.sat.dpll.SolverStage;
+import ai.sat.dpll.SolverStatistics;
 import ai.sat.maze.Maze;
 
 /**
@@ -9,14 +11,71 @@ import ai.sat.maze.Maze;
 public class FrontEnd {
 	/**
 	 * Creates a new adventure maze object and feeds it into a SAT Compiler to generate clauses.
-	 * @param args
+	 * @param args -format text|binary selects how the clauses are written. text writes dpll_input.txt and binary
+	 * writes dpll_input.bin. Defaults to text.
+	 * -auto ignores the max number of steps of the input and finds the smallest one for which the maze can be solved,
+	 * then generates the clauses for it. -limit n sets the largest number of steps tried. If there is none within the
+	 * limit, NO SOLUTION is printed and no clauses are written.
+	 * -amo pairwise|sequential|commander|product|bimander selects how the constraint that the player is at one place at
+	 * a time is encoded. Defaults to pairwise, whose no. of clauses grows with the square of the no. of nodes.
+	 * -threads n sets the no. of threads generating the clauses. Defaults to the no. of available processors. The
+	 * output is the same whatever the no. of threads.
+	 * -prune leaves out the atoms which are false in every solution, i.e. the nodes which cannot be reached at a
+	 * step or from which the treasures left cannot be reached in time, and the clauses they decide.
+	 * -stats prints the time taken to generate and write the clauses and their no. to the standard error.
 	 */
 	public static void main(String[] args) {
 		Maze maze = new Maze();
 		maze.getInput();
 		//maze.print();
+		boolean binaryOutput = false;
+		boolean autoHorizon = false;
+		int limit = -1;
+		AtMostOneEncoding atMostOneEncoding = AtMostOneEncoding.PAIRWISE;
+		int noOfThreads = Runtime.getRuntime().availableProcessors();
+		boolean prune = false;
+		boolean printStatistics = false;
+		for(int i = 0; i < args.length; i++) {
+			if(args[i].equals("-format") && i + 1 < args.length)
+				binaryOutput = args[++i].equalsIgnoreCase("binary");
+			else if(args[i].equals("-auto"))
+				autoHorizon = true;
+			else if(args[i].equals("-limit") && i + 1 < args.length)
+				limit = Integer.parseInt(args[++i]);
+			else if(args[i].equals("-amo") && i + 1 < args.length)
+				atMostOneEncoding = AtMostOneEncoding.valueOf(args[++i].toUpperCase());
+			else if(args[i].equals("-threads") && i + 1 < args.length)
+				noOfThreads = Integer.parseInt(args[++i]);
+			else if(args[i].equals("-prune"))
+				prune = true;
+			else if(args[i].equals("-stats"))
+				printStatistics = true;
+		}
+		if(autoHorizon) {
+			HorizonSearch horizonSearch = new HorizonSearch(maze, atMostOneEncoding);
+			int horizon = horizonSearch.findShortestHorizon(limit >= 0 ? limit : horizonSearch.getDefaultLimit());
+			//Nothing is written, the clauses for the max number of steps of the input being a different problem.
+			if(horizon < 0) {
+				System.out.println("NO SOLUTION");
+				return;
+			}
+			System.out.println("Shortest horizon: " + horizon + " steps");
+			maze.setMaxSteps(horizon);
+		}
 		SATCompiler satCompiler = new SATCompiler(maze);
+		satCompiler.setBinaryOutput(binaryOutput);
+		satCompiler.setAtMostOneEncoding(atMostOneEncoding);
+		satCompiler.setNoOfThreads(noOfThreads);
+		satCompiler.setPrune(prune);
+		SolverStatistics statistics = printStatistics ? new SolverStatistics() : null;
+		//The clauses are written while they are generated, so writing is timed as part of compiling.
+		if(statistics != null)
+			statistics.startStage(SolverStage.COMPILE);
 		satCompiler.generateAtoms();
 		satCompiler.generateClauses();
+		if(statistics != null) {
+			statistics.endStage(SolverStage.COMPILE, satCompiler.getNoOfClauses());
+			System.err.print(statistics);
+		}
 	}
 }
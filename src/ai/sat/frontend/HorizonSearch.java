@@ -0,0 +1,163 @@
+package ai.sat.frontend;
+import java.util.ArrayList;
+import java.util.List;
+
+import ai.sat.dpll.IncrementalSolver;
+import ai.sat.maze.Maze;
+import ai.sat.maze.Node;
+
+/**
+ * Finds the smallest number of steps within which an adventure maze can be solved.
+ * The encoding is unrolled one step at a time into a single incremental solver: every step adds the 'AT' and 'HAS'
+ * atoms of that step and the clauses linking it to the previous step, and the goal of having all treasures at the
+ * last step is only assumed for the call that tries it. The earlier steps and everything learnt about them are
+ * reused by the next try. The horizons are tried in increasing order rather than by binary search since a maze
+ * solvable in K steps is not always solvable in K + 1, the player having to move at every step. The solver is only
+ * called from the step at which the farthest treasure can first be reached, and while the nodes reachable in exactly
+ * that many moves, advanced along with the steps, are not all gone.
+ * @author kps9907
+ *
+ */
+public class HorizonSearch {
+	/**
+	 * Numbers the atoms step after step, the 'AT' atoms of a step followed by its 'HAS' atoms and its auxiliary atoms,
+	 * so that a step can be added without knowing the horizon.
+	 */
+	private AtomTable atoms;
+
+	/**
+	 * Encodes the constraint that the player is at one place at a time.
+	 */
+	private AtMostOneEncoder atMostOneEncoder;
+
+	/**
+	 * Solver holding the clauses of the steps unrolled so far.
+	 */
+	private IncrementalSolver solver = new IncrementalSolver();
+
+	/**
+	 * Maze for which the horizon is searched.
+	 */
+	private Maze maze;
+
+	public HorizonSearch(Maze maze) {
+		this(maze, AtMostOneEncoding.PAIRWISE);
+	}
+
+	public HorizonSearch(Maze maze, AtMostOneEncoding atMostOneEncoding) {
+		this.maze = maze;
+		this.atMostOneEncoder = new AtMostOneEncoder(atMostOneEncoding);
+		int noOfNodes = maze.getNodeList().size();
+		int noOfTreasures = maze.getTreasureList().size();
+		int atomsPerStep = noOfNodes + noOfTreasures + atMostOneEncoder.getNoOfAuxiliaryAtoms(noOfNodes);
+		this.atoms = new AtomTable(1, atomsPerStep, 1 + noOfNodes, atomsPerStep, 1 + noOfNodes + noOfTreasures, atomsPerStep);
+	}
+
+	/**
+	 * Unrolls the maze one step at a time until all treasures can be held at the last step.
+	 * @param limit largest no. of steps tried.
+	 * @return int the smallest no. of steps of a solution or -1 if there is none within the limit.
+	 */
+	public int findShortestHorizon(int limit) {
+		List<Node> nodeList = maze.getNodeList();
+		int[][] neighbours = ReachabilityAnalysis.getNeighbours(nodeList);
+		List<Node> start = new ArrayList<Node>();
+		for(Node node : nodeList) {
+			if(node.getName().equals("START"))
+				start.add(node);
+		}
+		//No. of moves from START to every node, the treasures all being held at the earliest once the farthest is reached.
+		int[] distances = ReachabilityAnalysis.getDistancesTo(start, neighbours);
+		int firstStep = 0;
+		for(String treasure : maze.getTreasureList()) {
+			int distance = ReachabilityAnalysis.NEVER;
+			for(Node node : maze.getTreasureMap().get(treasure))
+				distance = Math.min(distance, distances[node.getId()]);
+			if(distance == ReachabilityAnalysis.NEVER)
+				return -1;
+			firstStep = Math.max(firstStep, distance);
+		}
+
+		//Nodes reachable from START in exactly the current no. of moves.
+		boolean[] possibleAt = new boolean[nodeList.size()];
+		for(Node node : start)
+			possibleAt[node.getId()] = true;
+		//Stops after the limit itself rather than past it, so that a limit of Integer.MAX_VALUE does not overflow the step.
+		for(int step = 0; step <= limit; step++) {
+			if(step > 0) {
+				possibleAt = advance(possibleAt, neighbours);
+				if(possibleAt == null)
+					return -1;
+			}
+			addStep(step);
+			if(step >= firstStep && solver.solve(getGoal(step)))
+				return step;
+			if(step == limit)
+				break;
+		}
+		return -1;
+	}
+
+	/**
+	 * Moves from the nodes reachable in some no. of moves to those reachable in one more.
+	 * @param possibleAt
+	 * @param neighbours
+	 * @return boolean[] or null if no node is reachable, the player being stuck whatever the walk.
+	 */
+	private static boolean[] advance(boolean[] possibleAt, int[][] neighbours) {
+		boolean[] next = new boolean[possibleAt.length];
+		boolean anyReached = false;
+		for(int n = 0; n < possibleAt.length; n++) {
+			if(possibleAt[n]) {
+				for(int m : neighbours[n]) {
+					next[m] = true;
+					anyReached = true;
+				}
+			}
+		}
+		return anyReached ? next : null;
+	}
+
+	/**
+	 * Returns a no. of steps beyond which searching is pointless. A shortest solution never visits the same node with
+	 * the same treasures twice, as the steps between the two visits could be left out. The treasures held only ever
+	 * grow, so they change at most once per treasure and the player is at most at every node once in between. This
+	 * gives at most no. of nodes * (no. of treasures + 1) visits.
+	 * @return int
+	 */
+	public int getDefaultLimit() {
+		long noOfVisits = (long) maze.getNodeList().size() * (maze.getTreasureList().size() + 1);
+		return (int) Math.min(noOfVisits - 1, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Generates the atoms of a step and the clauses constraining it and linking it to the previous step.
+	 * @param step
+	 */
+	private void addStep(int step) {
+		PropositionalConstraints propConstraints = new PropositionalConstraints();
+		propConstraints.addAtOnePlaceAtATimeClauses(solver, atoms, step, step, maze.getNodeList(), atMostOneEncoder);
+		propConstraints.addHasTreasureAtNodeClauses(solver, atoms, step, step, maze.getNodeList(), maze.getTreasureList());
+		if(step == 0) {
+			propConstraints.addStartClause(solver, atoms, maze.getNodeList());
+			propConstraints.addNoTreasureAtStartClauses(solver, atoms, maze.getTreasureList());
+		}
+		else {
+			propConstraints.addMoveOnEdgesClauses(solver, atoms, step - 1, step, maze.getNodeList());
+			propConstraints.addOnceGotTreasureHasTreasureClauses(solver, atoms, step - 1, step, maze.getTreasureList());
+			propConstraints.addGotTreasureClauses(solver, maze.getTreasureMap(), atoms, step - 1, step, maze.getTreasureList());
+		}
+	}
+
+	/**
+	 * Returns the literals stating that every treasure is held at a step.
+	 * @param step
+	 * @return int[]
+	 */
+	private int[] getGoal(int step) {
+		int[] goal = new int[maze.getTreasureList().size()];
+		for(int i = 0; i < goal.length; i++)
+			goal[i] = atoms.getHasAtom(step, i);
+		return goal;
+	}
+}
@@ -1,164 +1,300 @@
 package ai.sat.frontend;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import ai.sat.dpll.ClauseSink;
 import ai.sat.maze.Node;
 
 /**
  * Defines and generates a set of propositional clauses for the adventure maze problem.
+ * The clauses are passed to a clause sink as they are generated, in the integer form of their atoms. The node list
+ * given to a generator may be any part of the nodes of the maze, the atoms being numbered from the node ids, so
+ * that the clauses of a large maze can be generated in parts. A generator holds no state and may be called from
+ * several threads at once.
+ * An atom table may give 0 for an atom which is never true. Such an atom is left out of the clauses, and a clause
+ * it would satisfy is not generated at all.
  * @author kps9907
  *
  */
 public class PropositionalConstraints {
 	/**
 	 * Generates the propositional clauses for the constraint that the player can only be at one place at a time.
-	 * @param atAtomMap
+	 * @param sink receives the clauses generated.
+	 * @param atoms
 	 * @param maxSteps
 	 * @param nodeList
-	 * @return List<String> list of clauses generated.
 	 */
-	public List<String> getAtOnePlaceAtATimeClauses(Map<String, Integer> atAtomMap, int maxSteps, List<Node> nodeList) {
-		List<String> atOnePlaceAtAtTimeClauses = new ArrayList<String>();
-		for(int i = 0; i <= maxSteps; i++) {
-			for(int j = 0; j < nodeList.size() - 1; j++) {
-				for(int k = j + 1; k < nodeList.size(); k++) {
-					atOnePlaceAtAtTimeClauses.add("-" + String.valueOf(atAtomMap.get(nodeList.get(j).getName() + " " + String.valueOf(i))) + " -" + 
-							atAtomMap.get(nodeList.get(k).getName() + " " + String.valueOf(i)));
-				}
+	public void addAtOnePlaceAtATimeClauses(ClauseSink sink, AtomTable atoms, int maxSteps, List<Node> nodeList) {
+		addAtOnePlaceAtATimeClauses(sink, atoms, 0, maxSteps, nodeList);
+	}
+
+	/**
+	 * Generates the propositional clauses for the constraint that the player can only be at one place at a time,
+	 * for the steps of a range only.
+	 * @param sink receives the clauses generated.
+	 * @param atoms
+	 * @param firstStep
+	 * @param lastStep
+	 * @param nodeList
+	 */
+	public void addAtOnePlaceAtATimeClauses(ClauseSink sink, AtomTable atoms, int firstStep, int lastStep, List<Node> nodeList) {
+		addAtOnePlaceAtATimeClauses(sink, atoms, firstStep, lastStep, nodeList, new AtMostOneEncoder(AtMostOneEncoding.PAIRWISE));
+	}
+
+	/**
+	 * Generates the propositional clauses for the constraint that the player can only be at one place at a time
+	 * with a given encoding, for the steps of a range only. The auxiliary atoms of every step are taken from the
+	 * atom table.
+	 * @param sink receives the clauses generated.
+	 * @param atoms
+	 * @param firstStep
+	 * @param lastStep
+	 * @param nodeList
+	 * @param encoder
+	 */
+	public void addAtOnePlaceAtATimeClauses(ClauseSink sink, AtomTable atoms, int firstStep, int lastStep, List<Node> nodeList, AtMostOneEncoder encoder) {
+		int[] stepAtoms = new int[nodeList.size()];
+		for(int i = firstStep; i <= lastStep; i++) {
+			int noOfStepAtoms = 0;
+			for(int j = 0; j < nodeList.size(); j++) {
+				int atom = atoms.getAtAtom(i, nodeList.get(j).getId());
+				if(atom != 0)
+					stepAtoms[noOfStepAtoms++] = atom;
 			}
+			encoder.encode(noOfStepAtoms == stepAtoms.length ? stepAtoms : Arrays.copyOf(stepAtoms, noOfStepAtoms),
+					atoms.getAuxiliaryAtom(i), sink);
 		}
-		return atOnePlaceAtAtTimeClauses;
 	}
 
 	/**
 	 * Generates the propositional clauses for the constraint that the player can only move along edges.
-	 * @param atAtomMap 
+	 * @param sink receives the clauses generated.
+	 * @param atoms
 	 * @param nodeList
 	 * @param maxSteps
-	 * @return List<String> list of clauses generated.
 	 */
-	public List<String> getMoveOnEdgesClauses(Map<String, Integer> atAtomMap, int maxSteps, List<Node> nodeList) {
-		List<String> moveOnEdgesClauses = new ArrayList<String>();
+	public void addMoveOnEdgesClauses(ClauseSink sink, AtomTable atoms, int maxSteps, List<Node> nodeList) {
+		addMoveOnEdgesClauses(sink, atoms, 0, maxSteps, nodeList);
+	}
+
+	/**
+	 * Generates the propositional clauses for the constraint that the player can only move along edges,
+	 * for the moves between the steps of a range only.
+	 * @param sink receives the clauses generated.
+	 * @param atoms
+	 * @param firstStep
+	 * @param lastStep
+	 * @param nodeList
+	 */
+	public void addMoveOnEdgesClauses(ClauseSink sink, AtomTable atoms, int firstStep, int lastStep, List<Node> nodeList) {
+		int maxNeighbours = 0;
+		for(Node node : nodeList)
+			maxNeighbours = Math.max(maxNeighbours, node.getNeighbourNodes().size());
+		int[] clause = new int[maxNeighbours + 1];
 		for(int i = 0; i < nodeList.size(); i++) {
-			for(int j = 0; j < maxSteps; j++) {
-				String neighbourAtoms = "";
-				List<Node> neighbours = nodeList.get(i).getNeighbourNodes();
+			List<Node> neighbours = nodeList.get(i).getNeighbourNodes();
+			int nodeId = nodeList.get(i).getId();
+			for(int j = firstStep; j < lastStep; j++) {
+				clause[0] = -atoms.getAtAtom(j, nodeId);
+				if(clause[0] == 0)
+					continue;
+				int length = 1;
 				for(int k = 0; k < neighbours.size(); k++) {
-					neighbourAtoms = neighbourAtoms.concat(" ").concat(String.valueOf(atAtomMap.get(neighbours.get(k).getName() + " " + String.valueOf(j+1))));
+					clause[length] = atoms.getAtAtom(j + 1, neighbours.get(k).getId());
+					if(clause[length] != 0)
+						length++;
 				}
-				moveOnEdgesClauses.add("-" + String.valueOf(atAtomMap.get(nodeList.get(i).getName() + " " + String.valueOf(j))) + 
-						neighbourAtoms);
+				sink.addClause(clause, length);
 			}
 		}
-		return moveOnEdgesClauses;
 	}
 
 	/**
 	 * Generates the propositional clauses for the constraint that if a player is at node N at time I and treasure T is located at N
 	 * then player has treasure T at time I.
-	 * @param nodeList
-	 * @param atAtomMap
-	 * @param hasAtomMap
+	 * @param sink receives the clauses generated.
+	 * @param atoms
 	 * @param maxSteps
-	 * @return List<String> list of clauses generated.
+	 * @param nodeList
+	 * @param treasureList
+	 */
+	public void addHasTreasureAtNodeClauses(ClauseSink sink, AtomTable atoms, int maxSteps, List<Node> nodeList, List<String> treasureList){
+		addHasTreasureAtNodeClauses(sink, atoms, 0, maxSteps, nodeList, treasureList);
+	}
+
+	/**
+	 * Generates the propositional clauses for the constraint that if a player is at node N at time I and treasure T is located at N
+	 * then player has treasure T at time I, for the steps of a range only.
+	 * @param sink receives the clauses generated.
+	 * @param atoms
+	 * @param firstStep
+	 * @param lastStep
+	 * @param nodeList
+	 * @param treasureList
 	 */
-	public List<String> getHasTreasureAtNodeClauses(Map<String, Integer> atAtomMap, Map<String, Integer> hasAtomMap, int maxSteps, List<Node> nodeList){
-		List<String> hasTreasureAtNodeClauses = new ArrayList<String>();
+	public void addHasTreasureAtNodeClauses(ClauseSink sink, AtomTable atoms, int firstStep, int lastStep, List<Node> nodeList, List<String> treasureList){
+		int[][] treasureIds = getTreasureIds(nodeList, treasureList);
+		int[] clause = new int[2];
 		for(int i = 0; i < nodeList.size(); i++) {
-			for(int j = 0; j <= maxSteps; j++) {
-				List<String> treasureList = nodeList.get(i).getTreasureList();
-				for(int k = 0; k < treasureList.size(); k++) {
-					hasTreasureAtNodeClauses.add("-" + String.valueOf(atAtomMap.get(nodeList.get(i).getName() + " " + String.valueOf(j))) + 
-							" " + String.valueOf(hasAtomMap.get(treasureList.get(k) + " " + String.valueOf(j))));
+			int nodeId = nodeList.get(i).getId();
+			for(int j = firstStep; j <= lastStep; j++) {
+				for(int k = 0; k < treasureIds[i].length; k++) {
+					clause[0] = -atoms.getAtAtom(j, nodeId);
+					clause[1] = atoms.getHasAtom(j, treasureIds[i][k]);
+					if(clause[0] != 0)
+						sink.addClause(clause, clause[1] != 0 ? 2 : 1);
 				}
 			}
 		}
-		return hasTreasureAtNodeClauses;
 	}
 
 	/**
 	 * Generates the propositional clauses for the constraint that if a player has treasure T at time I-1, then he has treasure T at time I...K.
-	 * @param hasAtomMap
+	 * @param sink receives the clauses generated.
+	 * @param atoms
 	 * @param maxSteps
 	 * @param treasureList
-	 * @return List<String> list of clauses generated.
 	 */
-	public List<String> getOnceGotTreasureHasTreasureClauses(Map<String, Integer> hasAtomMap, int maxSteps, List<String> treasureList){
-		List<String> onceGotTreasureHasTreasureClauses = new ArrayList<String>();
-		for(int i = 0; i < maxSteps; i++) {
+	public void addOnceGotTreasureHasTreasureClauses(ClauseSink sink, AtomTable atoms, int maxSteps, List<String> treasureList){
+		addOnceGotTreasureHasTreasureClauses(sink, atoms, 0, maxSteps, treasureList);
+	}
+
+	/**
+	 * Generates the propositional clauses for the constraint that if a player has treasure T at time I-1, then he has treasure T at time I,
+	 * for the moves between the steps of a range only.
+	 * @param sink receives the clauses generated.
+	 * @param atoms
+	 * @param firstStep
+	 * @param lastStep
+	 * @param treasureList
+	 */
+	public void addOnceGotTreasureHasTreasureClauses(ClauseSink sink, AtomTable atoms, int firstStep, int lastStep, List<String> treasureList){
+		int[] clause = new int[2];
+		for(int i = firstStep; i < lastStep; i++) {
 			for(int j = 0; j < treasureList.size(); j++) {
-				onceGotTreasureHasTreasureClauses.add("-" + hasAtomMap.get(treasureList.get(j) + " " + String.valueOf(i)) + " " + 
-						hasAtomMap.get(treasureList.get(j) + " " + String.valueOf(i + 1)));
+				clause[0] = -atoms.getHasAtom(i, j);
+				clause[1] = atoms.getHasAtom(i + 1, j);
+				if(clause[0] != 0)
+					sink.addClause(clause, clause[1] != 0 ? 2 : 1);
 			}
 		}
-		return onceGotTreasureHasTreasureClauses;
 	}
 
 	/**
 	 * Generates the propositional clauses for the constraint that if a player does not have the treasure T at time I-1 and has it at time I,
 	 * then he is at one of the nodes that has treasure T at time I.
+	 * @param sink receives the clauses generated.
 	 * @param treasureMap
-	 * @param hasAtomMap
-	 * @param atAtomMap
+	 * @param atoms
 	 * @param maxSteps
 	 * @param treasureList
-	 * @return List<String> list of clauses generated.
 	 */
-	public List<String> getGotTreasureClauses(Map<String, List<Node>> treasureMap, Map<String, Integer> hasAtomMap, Map<String, Integer> atAtomMap, int maxSteps, List<String> treasureList){
-		List<String> gotTreasureClauses = new ArrayList<String>();
-		
-		for(int i = 0; i < maxSteps; i++) {
+	public void addGotTreasureClauses(ClauseSink sink, Map<String, List<Node>> treasureMap, AtomTable atoms, int maxSteps, List<String> treasureList){
+		addGotTreasureClauses(sink, treasureMap, atoms, 0, maxSteps, treasureList);
+	}
+
+	/**
+	 * Generates the propositional clauses for the constraint that if a player does not have the treasure T at time I-1 and has it at time I,
+	 * then he is at one of the nodes that has treasure T at time I, for the moves between the steps of a range only.
+	 * @param sink receives the clauses generated.
+	 * @param treasureMap
+	 * @param atoms
+	 * @param firstStep
+	 * @param lastStep
+	 * @param treasureList
+	 */
+	public void addGotTreasureClauses(ClauseSink sink, Map<String, List<Node>> treasureMap, AtomTable atoms, int firstStep, int lastStep, List<String> treasureList){
+		int maxTreasureNodes = 0;
+		for(String treasure : treasureList)
+			maxTreasureNodes = Math.max(maxTreasureNodes, treasureMap.get(treasure).size());
+		int[] clause = new int[maxTreasureNodes + 2];
+		for(int i = firstStep; i < lastStep; i++) {
 			for(int j =0; j < treasureList.size(); j++) {
-				String treasureNodeAtoms = "";
-				for(int k = 0; k < treasureMap.get(treasureList.get(j)).size(); k++) {
-					treasureNodeAtoms = treasureNodeAtoms.concat(" ")
-							.concat(String.valueOf(atAtomMap.get(treasureMap.get(treasureList.get(j)).get(k).getName() + " " + String.valueOf(i+1))));
+				List<Node> treasureNodes = treasureMap.get(treasureList.get(j));
+				int gotAtom = atoms.getHasAtom(i + 1, j);
+				if(gotAtom == 0)
+					continue;
+				int length = 0;
+				clause[length] = atoms.getHasAtom(i, j);
+				if(clause[length] != 0)
+					length++;
+				clause[length++] = -gotAtom;
+				for(int k = 0; k < treasureNodes.size(); k++) {
+					clause[length] = atoms.getAtAtom(i + 1, treasureNodes.get(k).getId());
+					if(clause[length] != 0)
+						length++;
 				}
-				gotTreasureClauses.add(hasAtomMap.get(treasureList.get(j) + " " + String.valueOf(i)) + 
-						" -" + hasAtomMap.get(treasureList.get(j) + " " + String.valueOf(i+1)) + treasureNodeAtoms);
+				sink.addClause(clause, length);
 			}
 		}
-		return gotTreasureClauses;
 	}
 
 	/**
 	 * Generates the propositional clauses for the constraint that a player is at START node at time 0.
-	 * @param atAtomMap
-	 * @return List<String> list of clauses generated.
+	 * @param sink receives the clauses generated.
+	 * @param atoms
+	 * @param nodeList
 	 */
-	public List<String> getStartClause(Map<String, Integer> atAtomMap){
-		List<String> startClause = new ArrayList<String>();
-		startClause.add(String.valueOf(atAtomMap.get("START 0")));
-		return startClause;
+	public void addStartClause(ClauseSink sink, AtomTable atoms, List<Node> nodeList){
+		for(Node node : nodeList) {
+			if(node.getName().equals("START")) {
+				sink.addClause(new int[] {atoms.getAtAtom(0, node.getId())}, 1);
+				return;
+			}
+		}
+		throw new IllegalArgumentException("The maze has no START node");
 	}
 
 	/**
 	 * Generates the propositional clauses for the constraint that a player has no treasures at time 0.
-	 * @param atAtomMap
+	 * @param sink receives the clauses generated.
+	 * @param atoms
 	 * @param treasureList
-	 * @return List<String> list of clauses generated.
 	 */
-	public List<String> getNoTreasureAtStartClauses(Map<String, Integer> hasAtomMap, List<String> treasureList){
-		List<String> noTreasureAtStartClauses = new ArrayList<String>();
+	public void addNoTreasureAtStartClauses(ClauseSink sink, AtomTable atoms, List<String> treasureList){
+		int[] clause = new int[1];
 		for(int i = 0; i < treasureList.size(); i++) {
-			noTreasureAtStartClauses.add("-" + String.valueOf(hasAtomMap.get(treasureList.get(i) + " 0")));
-		}		
-		return noTreasureAtStartClauses;
+			clause[0] = -atoms.getHasAtom(0, i);
+			if(clause[0] != 0)
+				sink.addClause(clause, 1);
+		}
 	}
 
 	/**
 	 * Generates the propositional clauses for the constraint that a player has all the treasures at time K.
-	 * @param hasAtomMap
+	 * @param sink receives the clauses generated.
+	 * @param atoms
 	 * @param treasureList
 	 * @param maxSteps
-	 * @return List<String> list of clauses generated.
 	 */
-	public List<String> getHasAllTreasuresClauses(Map<String, Integer> hasAtomMap, int maxSteps, List<String> treasureList){
-		List<String> hasAllTreasureClauses = new ArrayList<String>();
+	public void addHasAllTreasuresClauses(ClauseSink sink, AtomTable atoms, int maxSteps, List<String> treasureList){
+		int[] clause = new int[1];
 		for(int i = 0; i < treasureList.size(); i++) {
-			hasAllTreasureClauses.add(String.valueOf(hasAtomMap.get(treasureList.get(i) + " " + String.valueOf(maxSteps))));
-		}		
-		return hasAllTreasureClauses;
+			clause[0] = atoms.getHasAtom(maxSteps, i);
+			sink.addClause(clause, 1);
+		}
+	}
+
+	/**
+	 * Looks up the ids of the treasures at every node once, so that the clause generators only do arithmetic.
+	 * @param nodeList
+	 * @param treasureList
+	 * @return int[][] the positions in the treasure list of the treasures at every node, indexed by the position
+	 * of the node in the node list.
+	 */
+	private int[][] getTreasureIds(List<Node> nodeList, List<String> treasureList) {
+		Map<String, Integer> treasureIdMap = new HashMap<String, Integer>();
+		for(int i = 0; i < treasureList.size(); i++)
+			treasureIdMap.put(treasureList.get(i), i);
+		int[][] treasureIds = new int[nodeList.size()][];
+		for(int i = 0; i < nodeList.size(); i++) {
+			List<String> nodeTreasures = nodeList.get(i).getTreasureList();
+			treasureIds[i] = new int[nodeTreasures.size()];
+			for(int j = 0; j < nodeTreasures.size(); j++)
+				treasureIds[i][j] = treasureIdMap.get(nodeTreasures.get(j));
+		}
+		return treasureIds;
 	}
 }
@@ -0,0 +1,218 @@
+package ai.sat.frontend;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+import ai.sat.maze.Maze;
+import ai.sat.maze.Node;
+
+/**
+ * Finds the 'AT' and 'HAS' atoms of an adventure maze problem which are false in every solution, by breadth first
+ * searches over the maze graph, so that they are never generated.
+ * The player can be at a node at step I only if
+ * - the node can be reached from START in exactly I moves,
+ * - there is a walk of the remaining steps from the node, the player having to move at every step, and
+ * - every treasure which cannot have been picked up by step I can still be reached from the node in the remaining steps.
+ * The player can have a treasure at step I only if one of its nodes can be reached by step I.
+ * @author kps9907
+ *
+ */
+public class ReachabilityAnalysis {
+	/**
+	 * Step at which a treasure is never picked up.
+	 */
+	static final int NEVER = Integer.MAX_VALUE;
+
+	/**
+	 * Whether the player can be at a node at a step, indexed by step and node id.
+	 */
+	private boolean[][] possibleAt;
+
+	/**
+	 * Whether the player can have a treasure at a step, indexed by step and position in the treasure list.
+	 */
+	private boolean[][] possibleHas;
+
+	/**
+	 * Whether a solution may exist at all: START is possible at step 0 and every treasure can be picked up in time.
+	 */
+	private boolean solvable;
+
+	public ReachabilityAnalysis(Maze maze) {
+		List<Node> nodeList = maze.getNodeList();
+		List<String> treasureList = maze.getTreasureList();
+		int maxSteps = maze.getMaxSteps();
+		int noOfNodes = nodeList.size();
+		int[][] neighbours = getNeighbours(nodeList);
+		int[] noOfPredecessors = new int[noOfNodes];
+		for(int n = 0; n < noOfNodes; n++) {
+			for(int m : neighbours[n])
+				noOfPredecessors[m]++;
+		}
+		int[][] predecessors = new int[noOfNodes][];
+		for(int n = 0; n < noOfNodes; n++)
+			predecessors[n] = new int[noOfPredecessors[n]];
+		for(int n = 0; n < noOfNodes; n++) {
+			for(int m : neighbours[n])
+				predecessors[m][--noOfPredecessors[m]] = n;
+		}
+
+		//Nodes reachable from START in exactly I moves.
+		possibleAt = new boolean[maxSteps + 1][noOfNodes];
+		for(Node node : nodeList) {
+			if(node.getName().equals("START"))
+				possibleAt[0][node.getId()] = true;
+		}
+		for(int i = 0; i < maxSteps; i++) {
+			for(int n = 0; n < noOfNodes; n++) {
+				if(possibleAt[i][n]) {
+					for(int m : neighbours[n])
+						possibleAt[i + 1][m] = true;
+				}
+			}
+		}
+		int[] pickUpSteps = getPickUpSteps(maze, treasureList);
+		//Nodes from which the treasures not yet picked up can still be reached.
+		for(int t = 0; t < treasureList.size(); t++) {
+			int[] distances = getDistancesTo(maze.getTreasureMap().get(treasureList.get(t)), predecessors);
+			for(int i = 0; i < pickUpSteps[t] && i <= maxSteps; i++) {
+				for(int n = 0; n < noOfNodes; n++) {
+					if(distances[n] > maxSteps - i)
+						possibleAt[i][n] = false;
+				}
+			}
+		}
+		//Nodes from which a walk of the remaining steps exists.
+		for(int i = maxSteps - 1; i >= 0; i--) {
+			for(int n = 0; n < noOfNodes; n++) {
+				if(possibleAt[i][n]) {
+					boolean continues = false;
+					for(int m : neighbours[n])
+						continues |= possibleAt[i + 1][m];
+					possibleAt[i][n] = continues;
+				}
+			}
+		}
+		//Drops the nodes whose predecessors were all removed, which leaves every remaining node on a walk of all the steps.
+		for(int i = 0; i < maxSteps; i++) {
+			boolean[] reached = new boolean[noOfNodes];
+			for(int n = 0; n < noOfNodes; n++) {
+				if(possibleAt[i][n]) {
+					for(int m : neighbours[n])
+						reached[m] = true;
+				}
+			}
+			for(int n = 0; n < noOfNodes; n++)
+				possibleAt[i + 1][n] &= reached[n];
+		}
+
+		pickUpSteps = getPickUpSteps(maze, treasureList);
+		possibleHas = new boolean[maxSteps + 1][treasureList.size()];
+		solvable = false;
+		for(int n = 0; n < noOfNodes; n++)
+			solvable |= possibleAt[0][n];
+		for(int t = 0; t < treasureList.size(); t++) {
+			solvable &= pickUpSteps[t] <= maxSteps;
+			for(int i = Math.min(pickUpSteps[t], maxSteps + 1); i <= maxSteps; i++)
+				possibleHas[i][t] = true;
+		}
+	}
+
+	/**
+	 * Returns whether the player can be at a node at a step.
+	 * @param step
+	 * @param nodeId
+	 * @return boolean
+	 */
+	public boolean isAtPossible(int step, int nodeId) {
+		return possibleAt[step][nodeId];
+	}
+
+	/**
+	 * Returns whether the player can have a treasure at a step.
+	 * @param step
+	 * @param treasureId
+	 * @return boolean
+	 */
+	public boolean isHasPossible(int step, int treasureId) {
+		return possibleHas[step][treasureId];
+	}
+
+	/**
+	 * Returns whether a solution may exist. If not, no atom may be true at START at step 0 or some treasure cannot
+	 * be picked up, and the pruned atoms cannot express the problem.
+	 * @return boolean
+	 */
+	public boolean isSolvable() {
+		return solvable;
+	}
+
+	/**
+	 * Finds the first step at which every treasure can be picked up, given the nodes possible so far.
+	 * @param maze
+	 * @param treasureList
+	 * @return int[] the step for every treasure, or NEVER.
+	 */
+	private int[] getPickUpSteps(Maze maze, List<String> treasureList) {
+		int[] pickUpSteps = new int[treasureList.size()];
+		Arrays.fill(pickUpSteps, NEVER);
+		for(int t = 0; t < treasureList.size(); t++) {
+			for(Node node : maze.getTreasureMap().get(treasureList.get(t))) {
+				for(int i = 0; i < possibleAt.length && i < pickUpSteps[t]; i++) {
+					if(possibleAt[i][node.getId()])
+						pickUpSteps[t] = i;
+				}
+			}
+		}
+		return pickUpSteps;
+	}
+
+	/**
+	 * Returns the ids of the neighbours of every node, indexed by node id.
+	 * @param nodeList
+	 * @return int[][]
+	 */
+	static int[][] getNeighbours(List<Node> nodeList) {
+		int[][] neighbours = new int[nodeList.size()][];
+		for(Node node : nodeList) {
+			List<Node> nodeNeighbours = node.getNeighbourNodes();
+			neighbours[node.getId()] = new int[nodeNeighbours.size()];
+			for(int i = 0; i < nodeNeighbours.size(); i++)
+				neighbours[node.getId()][i] = nodeNeighbours.get(i).getId();
+		}
+		return neighbours;
+	}
+
+	/**
+	 * Computes the no. of moves between every node and the nearest of a set of nodes by a breadth first search. Given
+	 * the predecessors of the nodes, these are the moves from every node to the set. Given their neighbours, they are
+	 * the moves from the set to every node.
+	 * @param targets
+	 * @param predecessors the ids of the nodes having an edge to a node, or which a node has an edge to, for every
+	 * node id.
+	 * @return int[] the distance for every node id, or NEVER if none of the targets can be reached.
+	 */
+	static int[] getDistancesTo(List<Node> targets, int[][] predecessors) {
+		int[] distances = new int[predecessors.length];
+		Arrays.fill(distances, NEVER);
+		Deque<Integer> queue = new ArrayDeque<Integer>();
+		for(Node target : targets) {
+			if(distances[target.getId()] == NEVER) {
+				distances[target.getId()] = 0;
+				queue.add(target.getId());
+			}
+		}
+		while(!queue.isEmpty()) {
+			int m = queue.poll();
+			for(int n : predecessors[m]) {
+				if(distances[n] == NEVER) {
+					distances[n] = distances[m] + 1;
+					queue.add(n);
+				}
+			}
+		}
+		return distances;
+	}
+}
@@ -1,14 +1,24 @@
 package ai.sat.frontend;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 
+import ai.sat.dpll.BinaryCnf;
+import ai.sat.dpll.ClauseArena;
+import ai.sat.dpll.ClauseSink;
 import ai.sat.maze.Maze;
+import ai.sat.maze.Node;
 
 /**
  * Sat Compiler generates atoms the atoms and clauses for a given problem such that it can be
@@ -18,29 +28,85 @@ import ai.sat.maze.Maze;
  */
 public class SATCompiler {
 	/**
-	 * Stores a mapping of 'HAS' type atoms from its string form to an integer form conducive to run Dpll on.
+	 * Numbers the 'AT' and 'HAS' type atoms from the ids of the nodes and treasures, in an integer form conducive to
+	 * run Dpll on.
 	 */
-	private Map<String, Integer> hasAtomMap = new LinkedHashMap<String, Integer>();
+	private AtomTable atoms;
 
 	/**
-	 * Stores a mapping of 'AT' type atoms from its string form to an integer form conducive to run Dpll on.
+	 * No. of atoms generated.
 	 */
-	private Map<String, Integer> atAtomMap = new LinkedHashMap<String, Integer>();
+	private int noOfAtoms = 0;
 
 	/**
-	 * Stores the list of generated clauses
+	 * Maze for which the Sat compiler is executed.
 	 */
-	private List<String> clauses = new ArrayList<String>();
+	private Maze maze;
 
 	/**
-	 * Maze for which the Sat compiler is executed.
+	 * Whether the clauses are written in the binary format of BinaryCnf instead of text.
 	 */
-	private Maze maze;
+	private boolean binaryOutput = false;
+
+	/**
+	 * Encodes the constraint that the player is at one place at a time.
+	 */
+	private AtMostOneEncoder atMostOneEncoder = new AtMostOneEncoder(AtMostOneEncoding.PAIRWISE);
+
+	/**
+	 * No. of threads generating the clauses.
+	 */
+	private int noOfThreads = 1;
+
+	/**
+	 * Whether the atoms which are never true, as found by a reachability analysis of the maze, are left out.
+	 */
+	private boolean prune = false;
+
+	/**
+	 * No. of clauses generated so far.
+	 */
+	private long noOfClauses = 0;
 
 	public SATCompiler(Maze maze) {
 		this.maze = maze;
 	}	
 
+	/**
+	 * Writes the clauses in the binary format of BinaryCnf instead of text from now on.
+	 * @param binaryOutput
+	 */
+	public void setBinaryOutput(boolean binaryOutput) {
+		this.binaryOutput = binaryOutput;
+	}
+
+	/**
+	 * Sets how the constraint that the player is at one place at a time is encoded. Defaults to pairwise.
+	 * @param atMostOneEncoding
+	 */
+	public void setAtMostOneEncoding(AtMostOneEncoding atMostOneEncoding) {
+		this.atMostOneEncoder = new AtMostOneEncoder(atMostOneEncoding);
+	}
+
+	/**
+	 * Sets the no. of threads generating the clauses. The clauses are the same and in the same order whatever the
+	 * no. of threads. Defaults to 1.
+	 * @param noOfThreads
+	 */
+	public void setNoOfThreads(int noOfThreads) {
+		this.noOfThreads = Math.max(noOfThreads, 1);
+	}
+
+	/**
+	 * Sets whether to leave out the 'AT' atoms of the nodes which cannot be reached at a step, and the 'HAS' atoms of
+	 * the treasures which cannot have been picked up by a step, together with the clauses they decide. Must be set
+	 * before generateAtoms.
+	 * @param prune
+	 */
+	public void setPrune(boolean prune) {
+		this.prune = prune;
+	}
+
 	/**
 	 * Given the nodes, and treasures for a given maze problem, generates atoms corresponding to the same.
 	 * @param nodes nodes in the adventure maze.
@@ -48,74 +114,210 @@ public class SATCompiler {
 	 * @param treasureList List of all the treasures that exist on the maze.
 	 */
 	public void generateAtoms() {
-		int noOfAtoms = 1;
-		for(int i = 0; i <= maze.getMaxSteps(); i++) {
-			for(int j = 0; j < maze.getNodeList().size(); j++) {
-				atAtomMap.put(maze.getNodeList().get(j).getName() + " " + String.valueOf(i), noOfAtoms++);
-			}
-		}
-		for(int i = 0; i <= maze.getMaxSteps(); i++) {
-			for(int j = 0; j < maze.getTreasureList().size(); j++) {
-				hasAtomMap.put(maze.getTreasureList().get(j) + " " + String.valueOf(i), noOfAtoms++);
-			}
+		int noOfNodes = maze.getNodeList().size();
+		int noOfTreasures = maze.getTreasureList().size();
+		atoms = null;
+		if(prune) {
+			ReachabilityAnalysis reachability = new ReachabilityAnalysis(maze);
+			//An unsolvable maze keeps every atom, so that its clauses still state why it is unsolvable.
+			if(reachability.isSolvable())
+				atoms = new AtomTable(reachability, noOfNodes, noOfTreasures, maze.getMaxSteps(), atMostOneEncoder);
 		}
-		/* Prints out the generated atoms.*/
-		/*for(String x : atAtomMap.keySet()) {
-			System.out.println(x + " : " + atAtomMap.get(x));
+		if(atoms == null) {
+			//The auxiliary atoms of the at-one-place-at-a-time constraint follow the 'AT' and 'HAS' atoms, so the key
+			//read by the backend is the same whatever the encoding.
+			int noOfAuxiliaryAtoms = atMostOneEncoder.getNoOfAuxiliaryAtoms(noOfNodes);
+			atoms = new AtomTable(noOfNodes, noOfTreasures, maze.getMaxSteps(), noOfAuxiliaryAtoms);
 		}
-		for(String x : hasAtomMap.keySet()) {
-			System.out.println(x + " : " + hasAtomMap.get(x));
-		}*/
+		noOfAtoms = atoms.getNoOfAtoms();
 	}
 
 	/**
-	 * Generates the set of clauses representing the adventure maze problem.
+	 * Generates the set of clauses representing the adventure maze problem and writes them to the output file.
 	 */
 	public void generateClauses() {
+		if(binaryOutput)
+			writeBinaryClauses();
+		else
+			writeClauses();
+	}
+
+	/**
+	 * Generates the set of clauses representing the adventure maze problem, passing every clause to a sink as soon
+	 * as it is generated. With several threads, the clauses are generated in parts which are passed to the sink in
+	 * order.
+	 * @param sink
+	 */
+	public void generateClauses(ClauseSink sink) {
+		List<Consumer<ClauseSink>> parts = getGenerationParts();
+		ClauseSink countingSink = (literals, length) -> {
+			noOfClauses++;
+			sink.addClause(literals, length);
+		};
+		if(noOfThreads == 1) {
+			for(Consumer<ClauseSink> part : parts)
+				part.accept(countingSink);
+		}
+		else
+			generateClausesInParallel(parts, countingSink);
+	}
+
+	/**
+	 * Returns the no. of clauses generated so far.
+	 * @return long
+	 */
+	public long getNoOfClauses() {
+		return noOfClauses;
+	}
+
+	/**
+	 * Splits the generation of the clauses into parts which can run in any order, each producing a run of the
+	 * clauses. The clause families looping over the steps first are split into steps, the others into ranges
+	 * of nodes, so that the runs concatenated in the order of the parts are the clauses in the sequential order.
+	 * @return List<Consumer<ClauseSink>> the parts in the order of their clauses.
+	 */
+	private List<Consumer<ClauseSink>> getGenerationParts() {
 		PropositionalConstraints propConstraints = new PropositionalConstraints();
-		clauses.addAll(propConstraints.getAtOnePlaceAtATimeClauses(atAtomMap, maze.getMaxSteps(), maze.getNodeList()));
-		clauses.addAll(propConstraints.getMoveOnEdgesClauses(atAtomMap, maze.getMaxSteps(), maze.getNodeList()));
-		clauses.addAll(propConstraints.getHasTreasureAtNodeClauses(atAtomMap, hasAtomMap, maze.getMaxSteps(), maze.getNodeList()));
-		clauses.addAll(propConstraints.getOnceGotTreasureHasTreasureClauses(hasAtomMap, maze.getMaxSteps(), maze.getTreasureList()));
-		clauses.addAll(propConstraints.getGotTreasureClauses(maze.getTreasureMap(), hasAtomMap, atAtomMap, maze.getMaxSteps(), maze.getTreasureList()));
-		clauses.addAll(propConstraints.getStartClause(atAtomMap));
-		clauses.addAll(propConstraints.getNoTreasureAtStartClauses(hasAtomMap, maze.getTreasureList()));
-		clauses.addAll(propConstraints.getHasAllTreasuresClauses(hasAtomMap, maze.getMaxSteps(), maze.getTreasureList()));
-		writeClauses();
+		int maxSteps = maze.getMaxSteps();
+		List<Node> nodeList = maze.getNodeList();
+		List<String> treasureList = maze.getTreasureList();
+		//A few parts per thread, so that threads finishing early pick up more.
+		int nodesPerPart = noOfThreads == 1 ? nodeList.size() : Math.max(1, nodeList.size() / (4 * noOfThreads));
+		List<Consumer<ClauseSink>> parts = new ArrayList<Consumer<ClauseSink>>();
+		for(int i = 0; i <= maxSteps; i++) {
+			int step = i;
+			parts.add(sink -> propConstraints.addAtOnePlaceAtATimeClauses(sink, atoms, step, step, nodeList, atMostOneEncoder));
+		}
+		for(int i = 0; i < nodeList.size(); i += nodesPerPart) {
+			List<Node> nodes = nodeList.subList(i, Math.min(i + nodesPerPart, nodeList.size()));
+			parts.add(sink -> propConstraints.addMoveOnEdgesClauses(sink, atoms, maxSteps, nodes));
+		}
+		for(int i = 0; i < nodeList.size(); i += nodesPerPart) {
+			List<Node> nodes = nodeList.subList(i, Math.min(i + nodesPerPart, nodeList.size()));
+			parts.add(sink -> propConstraints.addHasTreasureAtNodeClauses(sink, atoms, maxSteps, nodes, treasureList));
+		}
+		for(int i = 0; i < maxSteps; i++) {
+			int step = i;
+			parts.add(sink -> propConstraints.addOnceGotTreasureHasTreasureClauses(sink, atoms, step, step + 1, treasureList));
+		}
+		for(int i = 0; i < maxSteps; i++) {
+			int step = i;
+			parts.add(sink -> propConstraints.addGotTreasureClauses(sink, maze.getTreasureMap(), atoms, step, step + 1, treasureList));
+		}
+		parts.add(sink -> {
+			propConstraints.addStartClause(sink, atoms, nodeList);
+			propConstraints.addNoTreasureAtStartClauses(sink, atoms, treasureList);
+			propConstraints.addHasAllTreasuresClauses(sink, atoms, maxSteps, treasureList);
+		});
+		return parts;
 	}
 
 	/**
-	 * Writes the generated clauses to an output file.
+	 * Runs the parts of the generation on a pool of threads, each into a buffer of its own, and passes the buffers
+	 * to the sink in the order of the parts. At most twice as many parts as threads are run ahead of the one passed
+	 * to the sink next, which bounds the memory held by the buffers.
+	 * @param parts
+	 * @param sink
 	 */
-	public void writeClauses() {
-		File outputFile = new File(System.getProperty("user.dir") + "/src/io_files/dpll_input.txt");
-		BufferedWriter out;
+	private void generateClausesInParallel(List<Consumer<ClauseSink>> parts, ClauseSink sink) {
+		ExecutorService executor = Executors.newFixedThreadPool(noOfThreads, runnable -> {
+			Thread thread = new Thread(runnable, "clause-generator");
+			thread.setDaemon(true);
+			return thread;
+		});
+		Deque<Future<ClauseArena>> pending = new ArrayDeque<Future<ClauseArena>>();
+		int nextPart = 0;
 		try {
-			out = new BufferedWriter(new FileWriter(outputFile));
-			//Writes the clauses to the output file.
-			for(String s : clauses) {
-				out.write(s);
-				out.newLine();
+			while(nextPart < parts.size() || !pending.isEmpty()) {
+				while(nextPart < parts.size() && pending.size() < 2 * noOfThreads) {
+					Consumer<ClauseSink> part = parts.get(nextPart++);
+					pending.add(executor.submit(() -> {
+						ClauseArena buffer = new ClauseArena();
+						part.accept(buffer);
+						return buffer;
+					}));
+				}
+				pending.poll().get().copyTo(sink);
 			}
+		} catch (ExecutionException e) {
+			if(e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			throw new IllegalStateException("Clause generation failed", e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while generating the clauses", e);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
 
-			//Writes out a 0 to separate the clauses to be used by dpll from the key used by the backend.
-			out.write("0");
-			out.newLine();
+	/**
+	 * Generates the set of clauses in the integer form read by the solvers, e.g. to pass them to a solver in the same
+	 * program.
+	 * @return ClauseArena
+	 */
+	public ClauseArena getClauseArena() {
+		ClauseArena clauseArena = new ClauseArena();
+		generateClauses(clauseArena);
+		clauseArena.setNoOfLiterals(noOfAtoms);
+		return clauseArena;
+	}
 
+	/**
+	 * Returns the key mapping the integer form of the 'AT' type atoms back to their string form, as written to the
+	 * output file for the backend.
+	 * @return Map<Integer, String>
+	 */
+	public Map<Integer, String> getAtomKey() {
+		Map<Integer, String> atomKey = new LinkedHashMap<Integer, String>();
+		for(int i = 0; i <= maze.getMaxSteps(); i++) {
+			for(Node node : maze.getNodeList()) {
+				int atom = atoms.getAtAtom(i, node.getId());
+				if(atom != 0)
+					atomKey.put(atom, node.getName() + " " + String.valueOf(i));
+			}
+		}
+		return atomKey;
+	}
+
+	/**
+	 * Generates the clauses and writes them to an output file while they are generated, so that they are never all
+	 * held in memory.
+	 */
+	public void writeClauses() {
+		File outputFile = new File(System.getProperty("user.dir") + "/src/io_files/dpll_input.txt");
+		try {
+			ClauseWriter out = new ClauseWriter(outputFile);
+			generateClauses(out);
 			/*Writes out a key used to map the integer form of the atoms back to their respective string forms
 			 * to be used by the backend for conversion back to the domain solution.
 			 */
-			for(String s : atAtomMap.keySet()) {
-				out.write(atAtomMap.get(s) + " " + s);
-				out.newLine();
-			}
-			/*for(String s : hasAtomMap.keySet()) {
-				out.write(hasAtomMap.get(s) + " " + s);
-				out.newLine();
-			}*/
+			out.writeKey(getAtomKey());
 			out.close();
 		} catch (IOException e) {
 			e.printStackTrace();
+		} catch (UncheckedIOException e) {
+			e.getCause().printStackTrace();
+		}
+	}
+
+	/**
+	 * Generates the clauses and writes them with the key to an output file in the binary format of BinaryCnf, which
+	 * is smaller and faster to read than the text written by writeClauses. The clauses are collected in integer form
+	 * first since the format starts with their number.
+	 */
+	public void writeBinaryClauses() {
+		File outputFile = new File(System.getProperty("user.dir") + "/src/io_files/dpll_input.bin");
+		ClauseArena clauseArena = getClauseArena();
+		//The key written is the same as the one written in text form.
+		List<String> key = new ArrayList<String>();
+		Map<Integer, String> atomKey = getAtomKey();
+		for(int x : atomKey.keySet())
+			key.add(x + " " + atomKey.get(x));
+		try {
+			BinaryCnf.write(outputFile, clauseArena, key);
+		} catch (IOException e) {
+			e.printStackTrace();
 		}
 	}
 }
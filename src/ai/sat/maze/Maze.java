@@ -48,43 +48,51 @@ public class Maze {
 		Scanner scanner;
 		try {
 			scanner = new Scanner(inputFile);
-			//Reads all the nodes.
-			List<String> nodes = Arrays.asList(scanner.nextLine().split("\\s+"));
-			nodes.stream().forEach(n -> {
-				Node node = new Node(n);
-				nodeMap.put(n, node);
-				nodeList.add(node);
-			});
-
-			//Reads all the treasures.
-			treasureList = Arrays.asList(scanner.nextLine().split("\\s+"));
-			for(int i = 0; i < treasureList.size();i++) {
-				treasureMap.put(treasureList.get(i), new ArrayList<Node>());
-			}
-
-			maxSteps = Integer.parseInt(scanner.nextLine());
-
-			List<String> nodeInfo;
-			while(scanner.hasNextLine()) {
-				String x = scanner.nextLine();
-				nodeInfo = Arrays.asList(x.split("\\s+"));
-				Node node = nodeMap.get(nodeInfo.get(0));
-				int i;
-				//Adds current node to the list of nodes for each treasure where they may be found.
-				for(i = 2; !nodeInfo.get(i).equals("NEXT"); i++) {
-					treasureMap.get(nodeInfo.get(i)).add(node);
-					node.addTreasure(nodeInfo.get(i));
-				}
-				//Adds a nodes neighbours to its list of neighbours
-				for(i = i + 1; i < nodeInfo.size(); i++)
-					node.addNeighbour(nodeMap.get(nodeInfo.get(i)));
-			}
+			getInput(scanner);
 			scanner.close();
 		} catch (FileNotFoundException e) {
 			e.printStackTrace();
 		}		
 	}
 
+	/**
+	 * Reads input for the maze in the format of the input file from a scanner, e.g. over a string held in memory.
+	 * @param scanner
+	 */
+	public void getInput(Scanner scanner) {
+		//Reads all the nodes.
+		List<String> nodes = Arrays.asList(scanner.nextLine().split("\\s+"));
+		nodes.stream().forEach(n -> {
+			Node node = new Node(n, nodeList.size());
+			nodeMap.put(n, node);
+			nodeList.add(node);
+		});
+
+		//Reads all the treasures.
+		treasureList = Arrays.asList(scanner.nextLine().split("\\s+"));
+		for(int i = 0; i < treasureList.size();i++) {
+			treasureMap.put(treasureList.get(i), new ArrayList<Node>());
+		}
+
+		maxSteps = Integer.parseInt(scanner.nextLine());
+
+		List<String> nodeInfo;
+		while(scanner.hasNextLine()) {
+			String x = scanner.nextLine();
+			nodeInfo = Arrays.asList(x.split("\\s+"));
+			Node node = nodeMap.get(nodeInfo.get(0));
+			int i;
+			//Adds current node to the list of nodes for each treasure where they may be found.
+			for(i = 2; !nodeInfo.get(i).equals("NEXT"); i++) {
+				treasureMap.get(nodeInfo.get(i)).add(node);
+				node.addTreasure(nodeInfo.get(i));
+			}
+			//Adds a nodes neighbours to its list of neighbours
+			for(i = i + 1; i < nodeInfo.size(); i++)
+				node.addNeighbour(nodeMap.get(nodeInfo.get(i)));
+		}
+	}
+
 	/**
 	 * Prints the input read for debugging purposes.
 	 */
@@ -114,6 +122,14 @@ public class Maze {
 		return maxSteps;
 	}
 
+	/**
+	 * Sets the max number of steps the solution can use, e.g. to the shortest horizon found by a search.
+	 * @param maxSteps
+	 */
+	public void setMaxSteps(int maxSteps) {
+		this.maxSteps = maxSteps;
+	}
+
 	/**
 	 * Returns the list of all treasures in the maze.
 	 * @return List<String> The list of possible treasures.
@@ -14,6 +14,11 @@ public class Node {
 	 */
 	private String name;
 
+	/**
+	 * Position of the node in the list of nodes of the maze, used to number its atoms.
+	 */
+	private int id;
+
 	/**
 	 * List of treasures at the node.
 	 */
@@ -24,8 +29,9 @@ public class Node {
 	 */
 	private List<Node> neighbourNodes;
 
-	public Node(String name) {
+	public Node(String name, int id) {
 		this.name = name;
+		this.id = id;
 		this.treasureList = new ArrayList<String>();
 		this.neighbourNodes = new ArrayList<Node>();
 	}
@@ -38,6 +44,14 @@ public class Node {
 		return name;
 	}
 
+	/**
+	 * Returns the position of the node in the list of nodes of the maze.
+	 * @return int id of the node.
+	 */
+	public int getId() {
+		return id;
+	}
+
 	/**
 	 * Adds a treasure to the treasure list of the node
 	 * @param String treasure that must be added to the treasure list of the node.
@@ -0,0 +1,48 @@
+package ai.sat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import ai.sat.bench.Workloads;
+import ai.sat.frontend.MazeSolutions;
+
+/**
+ * Tests the solution paths of the pipeline with the options of the front end and of the sat solver.
+ * @author kps9907
+ *
+ */
+public class MazePipelineTest {
+	/**
+	 * Maze whose only solution in 3 steps is START A B A.
+	 */
+	private static final String MAZE = "START A B\nGOLD RUBY\n3\nSTART TREASURES NEXT A\nA TREASURES GOLD NEXT START B\nB TREASURES RUBY NEXT A\n";
+
+	@Test
+	public void solvesSmallMaze() {
+		assertEquals(Arrays.asList("START", "A", "B", "A"), new MazePipeline().solve(MAZE));
+		assertEquals(Arrays.asList("START", "A", "B", "A"), new MazePipeline("-prune", "-amo", "sequential", "-solver", "cdcl").solve(MAZE));
+		//B, holding RUBY, is 2 moves away.
+		assertNull(new MazePipeline().solve(MAZE.replace("\n3\n", "\n1\n")));
+	}
+
+	@Test
+	public void givesSolutionPaths() {
+		String[][] options = {{}, {"-prune"}, {"-amo", "commander", "-threads", "3"}, {"-prune", "-amo", "bimander", "-solver", "cdcl"}};
+		for(long seed = 1; seed <= 6; seed++) {
+			String mazeText = Workloads.maze(4, 3, 2, 6, seed);
+			List<String> path = new MazePipeline().solve(mazeText);
+			for(String[] args : options) {
+				List<String> optionPath = new MazePipeline(args).solve(mazeText);
+				assertEquals(path == null, optionPath == null, "seed " + seed + " " + Arrays.toString(args));
+				if(optionPath != null)
+					assertTrue(MazeSolutions.isSolution(Workloads.toMaze(mazeText), optionPath), "seed " + seed + " " + Arrays.toString(args) + " path " + optionPath);
+			}
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package ai.sat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the line protocol of the solver daemon on jobs read from a stream.
+ * @author kps9907
+ *
+ */
+public class SolverDaemonTest {
+	private SolverDaemon daemon = new SolverDaemon(2);
+
+	@AfterEach
+	public void shutdown() {
+		daemon.shutdown();
+	}
+
+	@Test
+	public void answersEveryJob() throws IOException {
+		Map<String, String> answers = serve(
+				"MAZE gold",
+				"START A",
+				"GOLD",
+				"1",
+				"START TREASURES NEXT A",
+				"A TREASURES GOLD NEXT START",
+				"END",
+				"",
+				"MAZE none -solver cdcl",
+				"START A",
+				"GOLD",
+				"2",
+				"START TREASURES NEXT A",
+				"A TREASURES NEXT START",
+				"END",
+				"CNF sat",
+				"p cnf 2 2",
+				"1 0",
+				"-1 2 0",
+				"END",
+				"CNF unsat -solver cdcl",
+				"1 0",
+				"-1 0",
+				"END");
+		assertEquals(4, answers.size());
+		assertEquals("START A", answers.get("gold").trim());
+		assertEquals("NO SOLUTION", answers.get("none"));
+		assertEquals("1 2 0", answers.get("sat"));
+		assertEquals("NO SOLUTION", answers.get("unsat"));
+	}
+
+	@Test
+	public void answersMalformedJobsWithError() throws IOException {
+		Map<String, String> answers = serve(
+				"CNF bad",
+				"1 x 0",
+				"END",
+				"SOLVE wrong",
+				"MAZE",
+				"CNF ok",
+				"1 0",
+				"END");
+		assertTrue(answers.get("bad").startsWith("ERROR "), answers.get("bad"));
+		assertTrue(answers.get("wrong").startsWith("ERROR "), answers.get("wrong"));
+		assertTrue(answers.get("ERROR").startsWith("expected MAZE id or CNF id"), answers.get("ERROR"));
+		assertEquals("1 0", answers.get("ok"));
+	}
+
+	@Test
+	public void doesNotSolveJobCutOffBeforeEnd() throws IOException {
+		Map<String, String> answers = serve(
+				"CNF whole",
+				"1 0",
+				"END",
+				"CNF trunc",
+				"1 2 0");
+		assertEquals(2, answers.size());
+		assertEquals("1 0", answers.get("whole"));
+		assertTrue(answers.get("trunc").startsWith("ERROR "), answers.get("trunc"));
+	}
+
+	/**
+	 * Serves the given lines and returns the answers by id, the jobs possibly finishing in any order.
+	 * @param lines
+	 * @return Map<String, String> the rest of every answer line by its first word.
+	 * @throws IOException
+	 */
+	private Map<String, String> serve(String... lines) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		daemon.serve(new ByteArrayInputStream((String.join("\n", lines) + "\n").getBytes(StandardCharsets.UTF_8)), out);
+		Map<String, String> answers = new HashMap<String, String>();
+		for(String line : out.toString(StandardCharsets.UTF_8).split("\\R")) {
+			String[] fields = line.split(" ", 2);
+			assertNull(answers.put(fields[0], fields.length > 1 ? fields[1] : ""), line);
+		}
+		return answers;
+	}
+}
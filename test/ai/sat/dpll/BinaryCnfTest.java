@@ -0,0 +1,100 @@
+package ai.sat.dpll;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import ai.sat.bench.Workloads;
+
+/**
+ * Tests that formulas written in the binary format read back as they were, through CnfReader as SatSolver reads them,
+ * and that malformed binary formulas raise IOException.
+ * @author kps9907
+ *
+ */
+public class BinaryCnfTest {
+	@TempDir
+	Path directory;
+
+	@Test
+	public void roundTripsClausesAndKey() throws IOException {
+		ClauseArena clauses = Workloads.randomKSat(300, 3, Workloads.PHASE_TRANSITION_RATIO, 1);
+		//Long clauses and far apart variables give multi byte varints and negative differences.
+		clauses.addClause(new int[] {300, -1, 150, -299, 2, 1}, 6);
+		List<String> key = Arrays.asList("1 START 0", "2 Zürich 1", "3 東京 2");
+		File file = directory.resolve("clauses.bin").toFile();
+		BinaryCnf.write(file, clauses, key);
+
+		ClauseArena read = new ClauseArena();
+		List<String> remainder = new ArrayList<String>();
+		new CnfReader(read, remainder).read(file);
+		assertEquals(clauses.toLists(), read.toLists());
+		assertEquals(clauses.getNoOfLiterals(), read.getNoOfLiterals());
+		assertEquals(Arrays.asList("0", "1 START 0", "2 Zürich 1", "3 東京 2"), remainder);
+		assertTrue(file.length() < Workloads.toDimacs(clauses).length());
+	}
+
+	@Test
+	public void roundTripsWithoutKey() throws IOException {
+		ClauseArena clauses = Workloads.pigeonhole(4);
+		File file = directory.resolve("pigeonhole.bin").toFile();
+		BinaryCnf.write(file, clauses, null);
+		ClauseArena read = new ClauseArena();
+		List<String> remainder = new ArrayList<String>();
+		new CnfReader(read, remainder).read(file);
+		assertEquals(clauses.toLists(), read.toLists());
+		assertEquals(0, remainder.size());
+	}
+
+	@Test
+	public void rejectsMalformedFormulas() throws IOException {
+		ClauseArena clauses = Workloads.randomKSat(40, 3, Workloads.PHASE_TRANSITION_RATIO, 2);
+		File file = directory.resolve("clauses.bin").toFile();
+		BinaryCnf.write(file, clauses, Arrays.asList("1 START 0"));
+		byte[] bytes = Files.readAllBytes(file.toPath());
+
+		//Cut off at every point after the magic bytes.
+		for(int length = 6; length < bytes.length; length++)
+			assertMalformed(Arrays.copyOf(bytes, length), "length " + length);
+		byte[] version = bytes.clone();
+		version[4] = 2;
+		assertMalformed(version, "version");
+		//Literals beyond the no. of variables, which is lowered to 1.
+		byte[] variables = bytes.clone();
+		variables[6] = 1;
+		assertMalformed(variables, "variables");
+		//No clauses and Integer.MAX_VALUE variables, too many for the arrays of the solvers.
+		assertMalformed(new byte[] {'S', 'A', 'T', 'B', 1, 0, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x07, 0, 0},
+				"too many variables");
+		//A key line claiming Integer.MAX_VALUE bytes while only one follows.
+		assertMalformed(new byte[] {'S', 'A', 'T', 'B', 1, 1, 1, 0, 0, 1, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x07,
+				'a'}, "key line length");
+		assertThrows(IOException.class, () -> BinaryCnf.read(ByteBuffer.wrap("p cnf 1 1\n".getBytes(StandardCharsets.US_ASCII)), new ClauseArena(),
+				new ArrayList<String>()));
+	}
+
+	/**
+	 * Asserts that reading a binary formula, from a file or from its bytes, raises IOException.
+	 * @param bytes
+	 * @param message
+	 * @throws IOException
+	 */
+	private void assertMalformed(byte[] bytes, String message) throws IOException {
+		File file = Files.write(directory.resolve("malformed.bin"), bytes).toFile();
+		assertThrows(IOException.class, () -> new CnfReader(new ClauseArena(), new ArrayList<String>()).read(file), message);
+		assertThrows(IOException.class, () -> BinaryCnf.read(ByteBuffer.wrap(bytes), new ClauseArena(), new ArrayList<String>()), message);
+	}
+}
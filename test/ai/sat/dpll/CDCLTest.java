@@ -0,0 +1,46 @@
+package ai.sat.dpll;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import ai.sat.bench.Workloads;
+
+/**
+ * Tests the cases of cdcl not covered by SatSolverTest: learning on unsatisfiable problems with either heuristic and
+ * bindings given before solving.
+ * @author kps9907
+ *
+ */
+public class CDCLTest {
+	@Test
+	public void pigeonholeIsUnsatisfiable() {
+		for(int noOfHoles = 1; noOfHoles <= 6; noOfHoles++) {
+			ClauseArena clauses = Workloads.pigeonhole(noOfHoles);
+			assertFalse(new CDCL(clauses.getNoOfLiterals()).solve(clauses, new byte[clauses.getNoOfLiterals() + 1]), noOfHoles + " holes");
+			//Learning and backjumping do not depend on the order in which the variables are picked.
+			assertFalse(new CDCL(clauses.getNoOfLiterals(), new StaticOrderHeuristic()).solve(clauses, new byte[clauses.getNoOfLiterals() + 1]),
+					noOfHoles + " holes");
+		}
+	}
+
+	@Test
+	public void keepsBoundVariables() {
+		ClauseArena clauses = new ClauseArena();
+		clauses.addClause(new int[] {1, 2}, 2);
+		clauses.addClause(new int[] {-2, 3}, 2);
+		clauses.setNoOfLiterals(3);
+		byte[] bindings = new byte[4];
+		bindings[2] = WatchedLiteralPropagator.TRUE;
+		assertTrue(new CDCL(3).solve(clauses, bindings));
+		assertEquals(WatchedLiteralPropagator.TRUE, bindings[2]);
+		assertEquals(WatchedLiteralPropagator.TRUE, bindings[3]);
+
+		bindings = new byte[4];
+		bindings[2] = WatchedLiteralPropagator.TRUE;
+		bindings[3] = WatchedLiteralPropagator.FALSE;
+		assertFalse(new CDCL(3).solve(clauses, bindings));
+	}
+}
@@ -0,0 +1,114 @@
+package ai.sat.dpll;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import ai.sat.bench.Workloads;
+
+/**
+ * Tests reading the front end format and DIMACS CNF, plain from a file or a stream and gzip compressed, and that
+ * malformed input raises IOException.
+ * @author kps9907
+ *
+ */
+public class CnfReaderTest {
+	/**
+	 * Clauses and key in the front end format, the key holding node names which are not ASCII.
+	 */
+	private static final String FRONT_END = "1 -2\n-1 3 2\n-3\n0\n1 START 0\n2 Zürich 1\n3 東京 2\n";
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void readsFrontEndFormat() throws IOException {
+		File file = write("front.txt", FRONT_END.getBytes(StandardCharsets.UTF_8));
+		for(int i = 0; i < 2; i++) {
+			ClauseArena clauses = new ClauseArena();
+			List<String> remainder = new ArrayList<String>();
+			CnfReader reader = new CnfReader(clauses, remainder);
+			if(i == 0)
+				reader.read(file);
+			else
+				reader.read(new ByteArrayInputStream(FRONT_END.getBytes(StandardCharsets.UTF_8)));
+			assertEquals(Arrays.asList(Arrays.asList(1, -2), Arrays.asList(-1, 3, 2), Arrays.asList(-3)), clauses.toLists());
+			assertEquals(Arrays.asList("0", "1 START 0", "2 Zürich 1", "3 東京 2"), remainder);
+		}
+	}
+
+	@Test
+	public void readsDimacs() throws IOException {
+		ClauseArena expected = Workloads.randomKSat(50, 3, Workloads.PHASE_TRANSITION_RATIO, 1);
+		//Comments, and clauses spread over lines and sharing them, are allowed.
+		String dimacs = "c generated\n" + Workloads.toDimacs(expected).replace(" 0\n1 ", " 0 1 ").replace("-5 ", "-5\n");
+		File file = write("random.cnf", dimacs.getBytes(StandardCharsets.UTF_8));
+		ClauseArena clauses = new ClauseArena();
+		List<String> remainder = new ArrayList<String>();
+		new CnfReader(clauses, remainder).read(file);
+		assertEquals(expected.toLists(), clauses.toLists());
+		assertEquals(50, clauses.getNoOfLiterals());
+		assertEquals(0, remainder.size());
+	}
+
+	@Test
+	public void readsGzip() throws IOException {
+		ClauseArena expected = Workloads.randomKSat(50, 3, Workloads.PHASE_TRANSITION_RATIO, 2);
+		for(String text : new String[] {Workloads.toDimacs(expected), FRONT_END}) {
+			File file = directory.resolve("input.gz").toFile();
+			try (OutputStream out = new GZIPOutputStream(new FileOutputStream(file))) {
+				out.write(text.getBytes(StandardCharsets.UTF_8));
+			}
+			ClauseArena clauses = new ClauseArena();
+			List<String> remainder = new ArrayList<String>();
+			new CnfReader(clauses, remainder).read(file);
+			ClauseArena plainClauses = new ClauseArena();
+			List<String> plainRemainder = new ArrayList<String>();
+			new CnfReader(plainClauses, plainRemainder).read(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+			assertEquals(plainClauses.toLists(), clauses.toLists());
+			assertEquals(plainRemainder, remainder);
+		}
+	}
+
+	@Test
+	public void rejectsMalformedInput() {
+		String[] inputs = {
+				"1 x 0\n",
+				"p cnf 3 1\n1 2 3\n",
+				"p cnf three 1\n1 2 3 0\n",
+				"p dnf 3 1\n1 2 3 0\n",
+				"1 - 2\n0\n",
+				"p cnf 3 1\n1 99999999999 0\n"};
+		for(String input : inputs) {
+			byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+			assertThrows(IOException.class, () -> new CnfReader(new ClauseArena(), new ArrayList<String>()).read(new ByteArrayInputStream(bytes)), input);
+			assertThrows(IOException.class, () -> new CnfReader(new ClauseArena(), new ArrayList<String>()).read(write("malformed.cnf", bytes)), input);
+		}
+	}
+
+	/**
+	 * Writes bytes to a file of the temporary directory.
+	 * @param name
+	 * @param bytes
+	 * @return File
+	 * @throws IOException
+	 */
+	private File write(String name, byte[] bytes) throws IOException {
+		return Files.write(directory.resolve(name), bytes).toFile();
+	}
+}
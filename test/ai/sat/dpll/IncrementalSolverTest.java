@@ -0,0 +1,50 @@
+package ai.sat.dpll;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests solving with assumptions and clauses added between calls.
+ * @author kps9907
+ *
+ */
+public class IncrementalSolverTest {
+	@Test
+	public void solvesUnderAssumptions() {
+		IncrementalSolver solver = new IncrementalSolver();
+		solver.addClause(1, 2);
+		solver.addClause(-1, 3);
+		assertTrue(solver.solve());
+
+		assertFalse(solver.solve(-2, -3));
+		int[] failed = solver.getFailedAssumptions();
+		assertTrue(failed.length > 0);
+		for(int literal : failed)
+			assertTrue(literal == -2 || literal == -3, Arrays.toString(failed));
+
+		assertTrue(solver.solve(-2));
+		assertEquals(WatchedLiteralPropagator.TRUE, solver.getValue(1));
+		assertEquals(WatchedLiteralPropagator.TRUE, solver.getValue(3));
+	}
+
+	@Test
+	public void keepsClausesAdded() {
+		IncrementalSolver solver = new IncrementalSolver();
+		solver.addClause(1, 2);
+		solver.addClause(-1, 3);
+		solver.addClause(5, 6);
+		assertEquals(6, solver.getNoOfLiterals());
+		solver.addClause(-3);
+		solver.addClause(-2);
+		assertFalse(solver.solve());
+		assertArrayEquals(new int[0], solver.getFailedAssumptions());
+		assertThrows(IllegalStateException.class, () -> solver.getValue(1));
+	}
+}
@@ -0,0 +1,39 @@
+package ai.sat.dpll;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import ai.sat.bench.Workloads;
+
+/**
+ * Tests the cases of the parallel dpll not covered by SatSolverTest: cutoff depths from solving the whole problem as
+ * one cube to cubes deeper than the no. of variables, and the VSIDS heuristic in every thread.
+ * @author kps9907
+ *
+ */
+public class ParallelDPLLTest {
+	@ParameterizedTest
+	@ValueSource(ints = {0, 1, 3, 8, 64})
+	public void agreesWithReferenceAtEveryCutoff(int cutoffDepth) {
+		for(long seed = 1; seed <= 10; seed++) {
+			ClauseArena clauses = Workloads.randomKSat(30, 3, Workloads.PHASE_TRANSITION_RATIO, seed);
+			byte[] bindings = new byte[clauses.getNoOfLiterals() + 1];
+			boolean satisfiable = new ParallelDPLL(clauses.getNoOfLiterals(), StaticOrderHeuristic::new, 4, cutoffDepth).solve(clauses, bindings);
+			assertEquals(Valuations.isSatisfiable(clauses), satisfiable, "seed " + seed);
+			if(satisfiable)
+				assertTrue(Valuations.satisfies(clauses, bindings), "seed " + seed);
+		}
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = {0, 2, 6})
+	public void pigeonholeIsUnsatisfiableWithVSIDS(int cutoffDepth) {
+		ClauseArena clauses = Workloads.pigeonhole(5);
+		int noOfLiterals = clauses.getNoOfLiterals();
+		assertFalse(new ParallelDPLL(noOfLiterals, () -> new VSIDSHeuristic(noOfLiterals), 4, cutoffDepth).solve(clauses, new byte[noOfLiterals + 1]));
+	}
+}
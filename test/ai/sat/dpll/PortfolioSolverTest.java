@@ -0,0 +1,51 @@
+package ai.sat.dpll;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import ai.sat.bench.Workloads;
+
+/**
+ * Tests the cases of the portfolio not covered by SatSolverTest: sharing learnt clauses, a single solver and
+ * bindings given before solving.
+ * @author kps9907
+ *
+ */
+public class PortfolioSolverTest {
+	@Test
+	public void sharingClausesAgreesWithReference() {
+		for(long seed = 1; seed <= 10; seed++) {
+			ClauseArena clauses = Workloads.randomKSat(40, 3, Workloads.PHASE_TRANSITION_RATIO, seed);
+			byte[] bindings = new byte[clauses.getNoOfLiterals() + 1];
+			boolean satisfiable = new PortfolioSolver(clauses.getNoOfLiterals(), 4, true).solve(clauses, bindings);
+			assertEquals(Valuations.isSatisfiable(clauses), satisfiable, "seed " + seed);
+			if(satisfiable)
+				assertTrue(Valuations.satisfies(clauses, bindings), "seed " + seed);
+		}
+		ClauseArena pigeonhole = Workloads.pigeonhole(6);
+		assertFalse(new PortfolioSolver(pigeonhole.getNoOfLiterals(), 4, true).solve(pigeonhole, new byte[pigeonhole.getNoOfLiterals() + 1]));
+	}
+
+	@Test
+	public void runsSingleSolver() {
+		ClauseArena pigeonhole = Workloads.pigeonhole(5);
+		assertFalse(new PortfolioSolver(pigeonhole.getNoOfLiterals(), 0, false).solve(pigeonhole, new byte[pigeonhole.getNoOfLiterals() + 1]));
+	}
+
+	@Test
+	public void keepsBoundVariables() {
+		ClauseArena clauses = new ClauseArena();
+		clauses.addClause(new int[] {1, 2}, 2);
+		clauses.addClause(new int[] {-2, 3}, 2);
+		clauses.setNoOfLiterals(3);
+		byte[] bindings = new byte[4];
+		bindings[1] = WatchedLiteralPropagator.FALSE;
+		assertTrue(new PortfolioSolver(3, 2, true).solve(clauses, bindings));
+		assertEquals(WatchedLiteralPropagator.FALSE, bindings[1]);
+		assertEquals(WatchedLiteralPropagator.TRUE, bindings[2]);
+		assertEquals(WatchedLiteralPropagator.TRUE, bindings[3]);
+	}
+}
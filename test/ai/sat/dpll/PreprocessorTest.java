@@ -0,0 +1,66 @@
+package ai.sat.dpll;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import ai.sat.bench.Workloads;
+
+/**
+ * Tests that preprocessing keeps the clauses satisfiable exactly when they were, and that the valuations of the
+ * simplified clauses extend to valuations of the original ones.
+ * @author kps9907
+ *
+ */
+public class PreprocessorTest {
+	@Test
+	public void keepsSatisfiability() {
+		for(long seed = 1; seed <= 20; seed++) {
+			//Below the phase transition, where most problems are satisfiable and variables can be eliminated.
+			double ratio = seed % 2 == 0 ? Workloads.PHASE_TRANSITION_RATIO : 3.0;
+			ClauseArena clauses = Workloads.randomKSat(40, 3, ratio, seed);
+			Preprocessor preprocessor = new Preprocessor(clauses.getNoOfLiterals());
+			ClauseArena simplified = preprocessor.preprocess(clauses);
+			byte[] bindings = new byte[clauses.getNoOfLiterals() + 1];
+			boolean satisfiable = new DPLL(clauses.getNoOfLiterals()).solve(simplified, bindings);
+			assertEquals(Valuations.isSatisfiable(clauses), satisfiable, "seed " + seed);
+			if(satisfiable) {
+				preprocessor.extendModel(bindings);
+				assertTrue(Valuations.satisfies(clauses, bindings), "seed " + seed);
+			}
+		}
+	}
+
+	@Test
+	public void propagatesUnits() {
+		ClauseArena clauses = new ClauseArena();
+		clauses.addClause(new int[] {1}, 1);
+		clauses.addClause(new int[] {-1, 2}, 2);
+		clauses.addClause(new int[] {-2, 3, 4}, 3);
+		clauses.setNoOfLiterals(4);
+		Preprocessor preprocessor = new Preprocessor(4);
+		ClauseArena simplified = preprocessor.preprocess(clauses);
+		byte[] bindings = new byte[5];
+		assertTrue(new DPLL(4).solve(simplified, bindings));
+		preprocessor.extendModel(bindings);
+		assertTrue(Valuations.satisfies(clauses, bindings));
+	}
+
+	@Test
+	public void findsEmptyClause() {
+		ClauseArena clauses = new ClauseArena();
+		clauses.addClause(new int[] {1}, 1);
+		clauses.addClause(new int[] {-1, 2}, 2);
+		clauses.addClause(new int[] {-2}, 1);
+		clauses.setNoOfLiterals(2);
+		ClauseArena simplified = new Preprocessor(2).preprocess(clauses);
+		assertEquals(1, simplified.getNoOfClauses());
+		assertEquals(0, simplified.getSize(0));
+
+		ClauseArena pigeonhole = Workloads.pigeonhole(4);
+		ClauseArena simplifiedPigeonhole = new Preprocessor(pigeonhole.getNoOfLiterals()).preprocess(pigeonhole);
+		assertFalse(new DPLL(pigeonhole.getNoOfLiterals()).solve(simplifiedPigeonhole, new byte[pigeonhole.getNoOfLiterals() + 1]));
+	}
+}
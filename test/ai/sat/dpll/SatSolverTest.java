@@ -0,0 +1,104 @@
+package ai.sat.dpll;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import ai.sat.bench.Workloads;
+
+/**
+ * Tests every algorithm of the sat solver: the results and valuations, and stopping the search by its budget, by
+ * cancel and by an interrupt of the thread solving.
+ * @author kps9907
+ *
+ */
+public class SatSolverTest {
+	@ParameterizedTest
+	@ValueSource(strings = {"parallel", "portfolio", "cdcl", "dpll"})
+	public void agreesWithReference(String solver) {
+		for(long seed = 1; seed <= 10; seed++) {
+			ClauseArena clauses = Workloads.randomKSat(30, 3, Workloads.PHASE_TRANSITION_RATIO, seed);
+			byte[] bindings = new byte[clauses.getNoOfLiterals() + 1];
+			SolveResult result = createSatSolver(solver).solveWithinBudget(clauses, bindings);
+			boolean satisfiable = Valuations.isSatisfiable(clauses);
+			assertEquals(satisfiable ? SolveResult.SATISFIABLE : SolveResult.UNSATISFIABLE, result, "seed " + seed);
+			if(satisfiable)
+				assertTrue(Valuations.satisfies(clauses, bindings), "seed " + seed);
+		}
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"parallel", "portfolio", "cdcl", "dpll"})
+	public void pigeonholeIsUnsatisfiable(String solver) {
+		ClauseArena clauses = Workloads.pigeonhole(5);
+		assertEquals(SolveResult.UNSATISFIABLE, createSatSolver(solver).solveWithinBudget(clauses, new byte[clauses.getNoOfLiterals() + 1]));
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"parallel", "portfolio", "cdcl", "dpll"})
+	public void conflictLimitGivesUnknown(String solver) {
+		ClauseArena clauses = Workloads.pigeonhole(9);
+		SatSolver satSolver = createSatSolver(solver, "-max-conflicts", "10");
+		assertEquals(SolveResult.UNKNOWN, satSolver.solveWithinBudget(clauses, new byte[clauses.getNoOfLiterals() + 1]));
+		assertEquals("conflict limit", satSolver.getExhaustedBy());
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"parallel", "portfolio", "cdcl", "dpll"})
+	public void cancelBeforeSolvingGivesUnknown(String solver) {
+		ClauseArena clauses = Workloads.pigeonhole(9);
+		SatSolver satSolver = createSatSolver(solver);
+		satSolver.cancel();
+		assertEquals(SolveResult.UNKNOWN, satSolver.solveWithinBudget(clauses, new byte[clauses.getNoOfLiterals() + 1]));
+		assertEquals("cancelled", satSolver.getExhaustedBy());
+	}
+
+	@ParameterizedTest
+	@ValueSource(strings = {"parallel", "portfolio", "cdcl", "dpll"})
+	@Timeout(30)
+	public void interruptGivesUnknown(String solver) throws InterruptedException {
+		ClauseArena clauses = Workloads.pigeonhole(11);
+		SatSolver satSolver = createSatSolver(solver, "-stats");
+		AtomicReference<Object> result = new AtomicReference<Object>();
+		Thread thread = new Thread(() -> {
+			try {
+				result.set(satSolver.solveWithinBudget(clauses, new byte[clauses.getNoOfLiterals() + 1]));
+			} catch (RuntimeException e) {
+				result.set(e);
+			}
+		});
+		thread.start();
+		//Interrupts once the search made decisions, so that the interrupt comes while the workers are waited for.
+		while(satSolver.getStatistics().getDecisions() == 0 && thread.isAlive())
+			Thread.sleep(10);
+		thread.interrupt();
+		thread.join();
+		assertFalse(thread.isAlive());
+		assertEquals(SolveResult.UNKNOWN, result.get());
+		assertEquals("interrupted", satSolver.getExhaustedBy());
+	}
+
+	/**
+	 * Creates a sat solver running an algorithm with two workers for parallel and portfolio.
+	 * @param solver
+	 * @param options further options.
+	 * @return SatSolver
+	 */
+	private static SatSolver createSatSolver(String solver, String... options) {
+		String[] args = new String[options.length + 4];
+		args[0] = "-solver";
+		args[1] = solver;
+		args[2] = "-workers";
+		args[3] = "2";
+		System.arraycopy(options, 0, args, 4, options.length);
+		SatSolver satSolver = new SatSolver();
+		satSolver.parseArguments(args);
+		return satSolver;
+	}
+}
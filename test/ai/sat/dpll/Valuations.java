@@ -0,0 +1,40 @@
+package ai.sat.dpll;
+
+/**
+ * Checks the answers of the solvers under test against the clauses and against the original DPLL algorithm.
+ * @author kps9907
+ *
+ */
+final class Valuations {
+	private Valuations() {
+	}
+
+	/**
+	 * Returns whether a valuation makes a literal of every clause true.
+	 * @param clauses
+	 * @param bindings TRUE or FALSE for every variable.
+	 * @return boolean
+	 */
+	static boolean satisfies(ClauseArena clauses, byte[] bindings) {
+		for(int i = 0; i < clauses.getNoOfClauses(); i++) {
+			boolean satisfied = false;
+			for(int j = 0; j < clauses.getSize(i) && !satisfied; j++) {
+				int literal = clauses.getLiteral(i, j);
+				satisfied = bindings[Math.abs(literal)] == (literal > 0 ? WatchedLiteralPropagator.TRUE : WatchedLiteralPropagator.FALSE);
+			}
+			if(!satisfied)
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns whether the clauses are satisfiable according to the original DPLL algorithm, which copies the clauses
+	 * at every branch.
+	 * @param clauses
+	 * @return boolean
+	 */
+	static boolean isSatisfiable(ClauseArena clauses) {
+		return new DPLL(clauses.getNoOfLiterals(), PropagationMode.REFERENCE).solve(clauses, new byte[clauses.getNoOfLiterals() + 1]);
+	}
+}
@@ -0,0 +1,62 @@
+package ai.sat.frontend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import ai.sat.bench.Workloads;
+import ai.sat.dpll.IncrementalSolver;
+import ai.sat.maze.Maze;
+
+/**
+ * Tests that every at-most-one encoding allows exactly the valuations with at most one true atom, and that mazes
+ * compiled with it are solvable exactly when they are with pairwise.
+ * @author kps9907
+ *
+ */
+public class AtMostOneEncoderTest {
+	@ParameterizedTest
+	@EnumSource(AtMostOneEncoding.class)
+	public void allowsAtMostOneTrueAtom(AtMostOneEncoding atMostOneEncoding) {
+		AtMostOneEncoder encoder = new AtMostOneEncoder(atMostOneEncoding);
+		for(int noOfAtoms = 1; noOfAtoms <= 10; noOfAtoms++) {
+			int[] atoms = new int[noOfAtoms];
+			for(int i = 0; i < noOfAtoms; i++)
+				atoms[i] = i + 1;
+			IncrementalSolver solver = new IncrementalSolver();
+			int noOfAuxiliaryAtoms = encoder.getNoOfAuxiliaryAtoms(noOfAtoms);
+			assertEquals(noOfAuxiliaryAtoms, encoder.encode(atoms, noOfAtoms + 1, (literals, length) -> solver.addClause(Arrays.copyOf(literals, length))),
+					noOfAtoms + " atoms");
+			//The auxiliary atoms reserved are the only ones used.
+			assertTrue(solver.getNoOfLiterals() <= noOfAtoms + noOfAuxiliaryAtoms, noOfAtoms + " atoms");
+			//Every valuation of the atoms, the auxiliary atoms being left to the solver.
+			for(int valuation = 0; valuation < 1 << noOfAtoms; valuation++) {
+				int[] assumptions = new int[noOfAtoms];
+				for(int i = 0; i < noOfAtoms; i++)
+					assumptions[i] = (valuation >> i & 1) != 0 ? atoms[i] : -atoms[i];
+				assertEquals(Integer.bitCount(valuation) <= 1, solver.solve(assumptions), noOfAtoms + " atoms, valuation " + valuation);
+			}
+		}
+	}
+
+	@ParameterizedTest
+	@EnumSource(AtMostOneEncoding.class)
+	public void solvesMazesAsPairwise(AtMostOneEncoding atMostOneEncoding) {
+		for(long seed = 1; seed <= 8; seed++) {
+			//Short horizons, for which some of the mazes are unsolvable.
+			for(int maxSteps = 3; maxSteps <= 7; maxSteps++) {
+				Maze maze = Workloads.toMaze(Workloads.maze(4, 3, 2, maxSteps, seed));
+				boolean solvable = MazeSolutions.solve(maze, AtMostOneEncoding.PAIRWISE, false) != null;
+				List<String> path = MazeSolutions.solve(maze, atMostOneEncoding, false);
+				assertEquals(solvable, path != null, "seed " + seed + " steps " + maxSteps);
+				if(path != null)
+					assertTrue(MazeSolutions.isSolution(maze, path), "seed " + seed + " steps " + maxSteps + " path " + path);
+			}
+		}
+	}
+}
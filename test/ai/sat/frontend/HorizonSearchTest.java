@@ -0,0 +1,75 @@
+package ai.sat.frontend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import ai.sat.bench.Workloads;
+import ai.sat.maze.Maze;
+
+/**
+ * Tests that the incremental search finds the same shortest horizon as compiling and solving the maze for every no.
+ * of steps in turn.
+ * @author kps9907
+ *
+ */
+public class HorizonSearchTest {
+	/**
+	 * Largest no. of steps tried.
+	 */
+	private static final int LIMIT = 10;
+
+	@ParameterizedTest
+	@EnumSource(value = AtMostOneEncoding.class, names = {"PAIRWISE", "SEQUENTIAL", "BIMANDER"})
+	public void agreesWithLinearScan(AtMostOneEncoding atMostOneEncoding) {
+		for(long seed = 1; seed <= 12; seed++) {
+			String mazeText = Workloads.maze(4, 3, 3, LIMIT, seed);
+			int horizon = new HorizonSearch(Workloads.toMaze(mazeText), atMostOneEncoding).findShortestHorizon(LIMIT);
+			assertEquals(findByLinearScan(mazeText, LIMIT), horizon, "seed " + seed);
+			if(horizon >= 0) {
+				//No horizon is found below it, and the clauses compiled for it give a path solving the maze.
+				assertEquals(-1, new HorizonSearch(Workloads.toMaze(mazeText), atMostOneEncoding).findShortestHorizon(horizon - 1), "seed " + seed);
+				Maze maze = Workloads.toMaze(mazeText);
+				maze.setMaxSteps(horizon);
+				List<String> path = MazeSolutions.solve(maze, AtMostOneEncoding.PAIRWISE, false);
+				assertTrue(MazeSolutions.isSolution(maze, path), "seed " + seed + " path " + path);
+			}
+		}
+	}
+
+	@Test
+	public void findsNoHorizonForUnreachableTreasure() {
+		String mazeText = "START A B\nGOLD\n3\nSTART TREASURES NEXT A\nA TREASURES NEXT START\nB TREASURES GOLD NEXT A\n";
+		HorizonSearch horizonSearch = new HorizonSearch(Workloads.toMaze(mazeText));
+		assertEquals(-1, horizonSearch.findShortestHorizon(horizonSearch.getDefaultLimit()));
+	}
+
+	@Test
+	public void findsNoHorizonBelowLimit() {
+		//The player has to move at every step, so the treasure at A is held after 1 step and not after 0.
+		String mazeText = "START A\nGOLD\n1\nSTART TREASURES NEXT A\nA TREASURES GOLD NEXT START\n";
+		assertEquals(1, new HorizonSearch(Workloads.toMaze(mazeText)).findShortestHorizon(5));
+		assertEquals(-1, new HorizonSearch(Workloads.toMaze(mazeText)).findShortestHorizon(0));
+	}
+
+	/**
+	 * Finds the shortest horizon by compiling and solving the maze for 0, 1, 2... steps.
+	 * @param mazeText
+	 * @param limit
+	 * @return int the smallest no. of steps of a solution or -1 if there is none within the limit.
+	 */
+	private static int findByLinearScan(String mazeText, int limit) {
+		for(int maxSteps = 0; maxSteps <= limit; maxSteps++) {
+			Maze maze = Workloads.toMaze(mazeText);
+			maze.setMaxSteps(maxSteps);
+			if(MazeSolutions.solve(maze, AtMostOneEncoding.PAIRWISE, false) != null)
+				return maxSteps;
+		}
+		return -1;
+	}
+}
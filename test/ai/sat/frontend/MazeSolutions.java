@@ -0,0 +1,84 @@
+package ai.sat.frontend;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import ai.sat.backend.BackEnd;
+import ai.sat.dpll.ClauseArena;
+import ai.sat.dpll.SatSolver;
+import ai.sat.dpll.SolveResult;
+import ai.sat.maze.Maze;
+import ai.sat.maze.Node;
+
+/**
+ * Solves the clauses compiled from a maze and checks the solution paths against the maze itself.
+ * @author kps9907
+ *
+ */
+public final class MazeSolutions {
+	private MazeSolutions() {
+	}
+
+	/**
+	 * Compiles a maze with the given options and solves its clauses with cdcl.
+	 * @param maze
+	 * @param atMostOneEncoding
+	 * @param prune
+	 * @return List<String> the solution path as read by the back end, or null if there is none.
+	 */
+	static List<String> solve(Maze maze, AtMostOneEncoding atMostOneEncoding, boolean prune) {
+		SATCompiler satCompiler = new SATCompiler(maze);
+		satCompiler.setAtMostOneEncoding(atMostOneEncoding);
+		satCompiler.setPrune(prune);
+		satCompiler.generateAtoms();
+		ClauseArena clauses = satCompiler.getClauseArena();
+		SatSolver satSolver = new SatSolver();
+		satSolver.parseArguments(new String[] {"-solver", "cdcl"});
+		byte[] bindings = new byte[clauses.getNoOfLiterals() + 1];
+		SolveResult result = satSolver.solveWithinBudget(clauses, bindings);
+		if(result != SolveResult.SATISFIABLE)
+			return null;
+		return new BackEnd(satCompiler.getAtomKey(), bindings, result).getSolutionPath();
+	}
+
+	/**
+	 * Returns whether a path solves a maze: it starts at START, moves along a link at every one of the max no. of
+	 * steps and passes by a node holding every treasure.
+	 * @param maze
+	 * @param path the names of the nodes visited at every step.
+	 * @return boolean
+	 */
+	public static boolean isSolution(Maze maze, List<String> path) {
+		if(path == null || path.size() != maze.getMaxSteps() + 1 || !path.get(0).equals("START"))
+			return false;
+		Set<String> treasures = new HashSet<String>();
+		Node previous = null;
+		for(String name : path) {
+			Node node = findNode(maze, name);
+			if(node == null || previous != null && !previous.getNeighbourNodes().contains(node))
+				return false;
+			treasures.addAll(node.getTreasureList());
+			previous = node;
+		}
+		for(String treasure : maze.getTreasureList()) {
+			if(!treasure.isEmpty() && !treasures.contains(treasure))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Finds a node by its name.
+	 * @param maze
+	 * @param name
+	 * @return Node or null if the maze has no such node.
+	 */
+	static Node findNode(Maze maze, String name) {
+		for(Node node : maze.getNodeList()) {
+			if(node.getName().equals(name))
+				return node;
+		}
+		return null;
+	}
+}
@@ -0,0 +1,75 @@
+package ai.sat.frontend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import ai.sat.bench.Workloads;
+import ai.sat.dpll.ClauseArena;
+import ai.sat.maze.Maze;
+import ai.sat.maze.Node;
+
+/**
+ * Tests that pruning by reachability leaves out atoms without losing any solution.
+ * @author kps9907
+ *
+ */
+public class ReachabilityAnalysisTest {
+	@Test
+	public void keepsEverySolution() {
+		for(long seed = 1; seed <= 8; seed++) {
+			//Short horizons, for which some of the mazes are unsolvable.
+			for(int maxSteps = 3; maxSteps <= 7; maxSteps++) {
+				String message = "seed " + seed + " steps " + maxSteps;
+				Maze maze = Workloads.toMaze(Workloads.maze(4, 3, 2, maxSteps, seed));
+				ReachabilityAnalysis reachability = new ReachabilityAnalysis(maze);
+				List<String> path = MazeSolutions.solve(maze, AtMostOneEncoding.PAIRWISE, false);
+				List<String> prunedPath = MazeSolutions.solve(maze, AtMostOneEncoding.PAIRWISE, true);
+				if(path == null) {
+					assertNull(prunedPath, message);
+					continue;
+				}
+				assertTrue(reachability.isSolvable(), message);
+				assertTrue(MazeSolutions.isSolution(maze, prunedPath), message + " path " + prunedPath);
+				//The nodes of a solution found without pruning are possible at their steps.
+				for(int i = 0; i < path.size(); i++)
+					assertTrue(reachability.isAtPossible(i, MazeSolutions.findNode(maze, path.get(i)).getId()), message + " path " + path + " step " + i);
+			}
+		}
+	}
+
+	@Test
+	public void leavesOutUnreachableAtoms() {
+		Maze maze = Workloads.toMaze(Workloads.maze(4, 3, 2, 6, 1));
+		ReachabilityAnalysis reachability = new ReachabilityAnalysis(maze);
+		assertTrue(reachability.isSolvable());
+		Node start = maze.getNodeList().get(0);
+		for(Node node : maze.getNodeList()) {
+			assertEquals(node == start, reachability.isAtPossible(0, node.getId()), node.getName());
+			if(!start.getNeighbourNodes().contains(node))
+				assertFalse(reachability.isAtPossible(1, node.getId()), node.getName());
+		}
+		for(int t = 0; t < maze.getTreasureList().size(); t++)
+			assertFalse(reachability.isHasPossible(0, t), maze.getTreasureList().get(t));
+		assertTrue(compile(maze, true).getNoOfLiterals() < compile(maze, false).getNoOfLiterals());
+		assertTrue(compile(maze, true).getNoOfClauses() < compile(maze, false).getNoOfClauses());
+	}
+
+	/**
+	 * Compiles a maze into clauses with the pairwise encoding.
+	 * @param maze
+	 * @param prune
+	 * @return ClauseArena
+	 */
+	private static ClauseArena compile(Maze maze, boolean prune) {
+		SATCompiler satCompiler = new SATCompiler(maze);
+		satCompiler.setPrune(prune);
+		satCompiler.generateAtoms();
+		return satCompiler.getClauseArena();
+	}
+}
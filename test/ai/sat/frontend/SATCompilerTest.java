@@ -0,0 +1,50 @@
+package ai.sat.frontend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import ai.sat.bench.Workloads;
+import ai.sat.maze.Maze;
+
+/**
+ * Tests that the clauses generated in parallel are those generated by a single thread, in the same order.
+ * @author kps9907
+ *
+ */
+public class SATCompilerTest {
+	@ParameterizedTest
+	@EnumSource(AtMostOneEncoding.class)
+	public void threadsGiveSequentialClauses(AtMostOneEncoding atMostOneEncoding) {
+		for(long seed = 1; seed <= 5; seed++) {
+			for(boolean prune : new boolean[] {false, true}) {
+				String mazeText = Workloads.maze(5, 4, 3, 8, seed);
+				List<List<Integer>> sequential = compile(mazeText, atMostOneEncoding, prune, 1);
+				for(int noOfThreads : new int[] {2, 3, 8})
+					assertEquals(sequential, compile(mazeText, atMostOneEncoding, prune, noOfThreads),
+							"seed " + seed + " prune " + prune + " threads " + noOfThreads);
+			}
+		}
+	}
+
+	/**
+	 * Compiles a maze into clauses.
+	 * @param mazeText
+	 * @param atMostOneEncoding
+	 * @param prune
+	 * @param noOfThreads
+	 * @return List<List<Integer>>
+	 */
+	private static List<List<Integer>> compile(String mazeText, AtMostOneEncoding atMostOneEncoding, boolean prune, int noOfThreads) {
+		Maze maze = Workloads.toMaze(mazeText);
+		SATCompiler satCompiler = new SATCompiler(maze);
+		satCompiler.setAtMostOneEncoding(atMostOneEncoding);
+		satCompiler.setPrune(prune);
+		satCompiler.setNoOfThreads(noOfThreads);
+		satCompiler.generateAtoms();
+		return satCompiler.getClauseArena().toLists();
+	}
+}